@@ -0,0 +1,72 @@
+package com.github.forax.framework.mapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Compares the formatting of the numbers of a metrics document, written as a String and then encoded
+// or written directly as bytes, and the formatting of a double alone,
+// the benchmark is in the package of the mapper because the formatter is not public,
+// java -jar benchmarks/target/benchmarks.jar NumberWriterBenchmark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class NumberWriterBenchmark {
+  public record Metric(String name, long timestamp, int count, double value, double min, double max) {}
+
+  private static final List<Metric> METRICS;
+  static {
+    var random = new SplittableRandom(0);
+    METRICS = IntStream.range(0, 1_000)
+        .mapToObj(i -> new Metric("cpu" + i % 16, 1_700_000_000_000L + i * 1_000L, random.nextInt(10_000),
+            random.nextDouble() * 100, random.nextDouble(), random.nextDouble() * 1e6))
+        .toList();
+  }
+
+  private final JSONWriter writer = new JSONWriter();
+  private final double[] doubles = new SplittableRandom(1).doubles(1_000).map(d -> d * 1e4).toArray();
+  private final byte[] buffer = new byte[Schubfach.MAX_LENGTH];
+
+  @Benchmark
+  public byte[] metrics_string_then_bytes() {
+    return writer.toJSON(METRICS).getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] metrics_bytes() {
+    return writer.toJSONBytes(METRICS);
+  }
+
+  @Benchmark
+  public int doubles_toString() {
+    var sum = 0;
+    for (var value : doubles) {
+      sum += Double.toString(value).getBytes(StandardCharsets.ISO_8859_1).length;
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int doubles_schubfach() {
+    var sum = 0;
+    for (var value : doubles) {
+      sum += Schubfach.writeDouble(value, buffer, 0);
+    }
+    return sum;
+  }
+}
@@ -0,0 +1,55 @@
+package com.github.forax.framework.mapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Compares the scalar and the vectorized versions of the structural index,
+// the benchmark is in the package of the mapper because the index is not public,
+// java -jar benchmarks/target/benchmarks.jar StructuralIndexBenchmark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StructuralIndexBenchmark {
+  // the same shape as the text used by JSONReaderTest.Parallel
+  private static final String TEXT = IntStream.range(0, 10_000)
+      .mapToObj(i -> "{ \"id\": " + i + ", \"label\": \"[a, \\\"b\\\"] {" + i + "} é\", \"tags\": [\"x\", \"y\"] }")
+      .collect(Collectors.joining(",\n", "[\n", "\n]\n"));
+
+  private final char[] chars = TEXT.toCharArray();
+  private final byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+
+  @Benchmark
+  public int[] scalar_chars() {
+    return StructuralIndex.scalarSeparators(chars);
+  }
+
+  @Benchmark
+  public int[] vector_chars() {
+    return VectorStructuralIndex.separators(chars);
+  }
+
+  @Benchmark
+  public int[] scalar_bytes() {
+    return StructuralIndex.scalarSeparators(bytes);
+  }
+
+  @Benchmark
+  public int[] vector_bytes() {
+    return VectorStructuralIndex.separators(bytes);
+  }
+}
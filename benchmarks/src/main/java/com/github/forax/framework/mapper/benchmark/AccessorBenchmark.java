@@ -0,0 +1,110 @@
+package com.github.forax.framework.mapper.benchmark;
+
+import com.github.forax.framework.mapper.JSONWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.lang.invoke.MethodType.methodType;
+
+// Compares the strategies to call a getter from a serializer,
+// java -jar benchmarks/target/benchmarks.jar AccessorBenchmark
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class AccessorBenchmark {
+  public static final class Person {
+    private final String name;
+    private final int age;
+
+    public Person(String name, int age) {
+      this.name = name;
+      this.age = age;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getAge() {
+      return age;
+    }
+  }
+
+  private final Person person = new Person("Bob", 42);
+  private final JSONWriter writer = new JSONWriter();
+
+  private final Method nameMethod;
+  private final Method ageMethod;
+  private final MethodHandle nameHandle;
+  private final MethodHandle ageHandle;
+  private final Function<Object, Object> nameFunction;
+  private final Function<Object, Object> ageFunction;
+
+  public AccessorBenchmark() {
+    try {
+      nameMethod = Person.class.getMethod("getName");
+      ageMethod = Person.class.getMethod("getAge");
+      var lookup = MethodHandles.lookup();
+      nameHandle = lookup.unreflect(nameMethod).asType(methodType(Object.class, Object.class));
+      ageHandle = lookup.unreflect(ageMethod).asType(methodType(Object.class, Object.class));
+      nameFunction = function(lookup, nameMethod);
+      ageFunction = function(lookup, ageMethod);
+    } catch (Throwable e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Function<Object, Object> function(MethodHandles.Lookup lookup, Method method) throws Throwable {
+    var target = lookup.unreflect(method);
+    var callSite = LambdaMetafactory.metafactory(lookup, "apply",
+        methodType(Function.class),
+        methodType(Object.class, Object.class),
+        target,
+        methodType(Object.class, method.getDeclaringClass()));
+    return (Function<Object, Object>) (Function<?, ?>) callSite.getTarget().invokeExact();
+  }
+
+  @Benchmark
+  public Object direct() {
+    return person.getName().length() + person.getAge();
+  }
+
+  @Benchmark
+  public Object reflection() throws InvocationTargetException, IllegalAccessException {
+    return ((String) nameMethod.invoke(person)).length() + (int) ageMethod.invoke(person);
+  }
+
+  @Benchmark
+  public Object methodHandle() throws Throwable {
+    return ((String) (Object) nameHandle.invokeExact((Object) person)).length() + (int) (Object) ageHandle.invokeExact((Object) person);
+  }
+
+  @Benchmark
+  public Object lambdaMetafactory() {
+    return ((String) nameFunction.apply(person)).length() + (int) ageFunction.apply(person);
+  }
+
+  @Benchmark
+  public String toJSON() {
+    return writer.toJSON(person);
+  }
+}
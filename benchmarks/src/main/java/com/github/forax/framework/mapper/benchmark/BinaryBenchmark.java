@@ -0,0 +1,113 @@
+package com.github.forax.framework.mapper.benchmark;
+
+import com.github.forax.framework.mapper.BinaryReader;
+import com.github.forax.framework.mapper.BinaryWriter;
+import com.github.forax.framework.mapper.JSONCodec;
+import com.github.forax.framework.mapper.JSONReader;
+import com.github.forax.framework.mapper.JSONWriter;
+import com.github.forax.framework.mapper.benchmark.MapperBenchmark.Measure;
+import com.github.forax.framework.mapper.benchmark.MapperBenchmark.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Compares the binary format of BinaryWriter/BinaryReader with the JSON text encoded in UTF-8
+// on a large array of objects and on a numeric-heavy document,
+// java -jar benchmarks/target/benchmarks.jar BinaryBenchmark -prof gc
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BinaryBenchmark {
+  private static final List<Order> ORDERS;
+  private static final List<Measure> MEASURES;
+  static {
+    var random = new SplittableRandom(0);
+    ORDERS = IntStream.range(0, 1_000)
+        .mapToObj(i -> new Order(i, "customer" + i % 100, random.nextInt(100), random.nextDouble() * 1_000, i % 3 == 0))
+        .toList();
+    MEASURES = IntStream.range(0, 1_000)
+        .mapToObj(i -> new Measure(1_700_000_000_000L + i, random.nextDouble(), random.nextDouble() * -1e3,
+            random.nextDouble() * 1e6, random.nextDouble() * 100, random.nextDouble() * 1e-3))
+        .toList();
+  }
+
+  private static final Type ORDER_LIST = JSONCodec.parameterizedType(List.class, Order.class);
+  private static final Type MEASURE_LIST = JSONCodec.parameterizedType(List.class, Measure.class);
+
+  private final JSONWriter jsonWriter = new JSONWriter();
+  private final BinaryWriter binaryWriter = new BinaryWriter();
+  private final JSONReader jsonReader = new JSONReader();
+  private final BinaryReader binaryReader = new BinaryReader(jsonReader);
+
+  private final byte[] ordersJSON = jsonWriter.toJSONBytes(ORDERS);
+  private final byte[] ordersBinary = binaryWriter.toBinary(ORDERS);
+  private final byte[] measuresJSON = jsonWriter.toJSONBytes(MEASURES);
+  private final byte[] measuresBinary = binaryWriter.toBinary(MEASURES);
+
+  public BinaryBenchmark() {
+    jsonReader.addTypeMatcher(type -> Optional.of(type)
+        .flatMap(t -> t instanceof ParameterizedType parameterizedType ? Optional.of(parameterizedType) : Optional.empty())
+        .filter(t -> t.getRawType() == List.class)
+        .map(t -> JSONReader.ObjectBuilder.list(t.getActualTypeArguments()[0])));
+    jsonReader.addTypeMatcher(type -> Optional.of(type)
+        .flatMap(t -> t instanceof Class<?> clazz && clazz.isRecord() ? Optional.of(clazz) : Optional.empty())
+        .map(JSONReader.ObjectBuilder::record));
+  }
+
+  @Benchmark
+  public byte[] write_largeArray_json() {
+    return jsonWriter.toJSONBytes(ORDERS);
+  }
+
+  @Benchmark
+  public byte[] write_largeArray_binary() {
+    return binaryWriter.toBinary(ORDERS);
+  }
+
+  @Benchmark
+  public Object read_largeArray_json() {
+    return jsonReader.parseUTF8(ordersJSON, ORDER_LIST);
+  }
+
+  @Benchmark
+  public Object read_largeArray_binary() {
+    return binaryReader.fromBinary(ordersBinary, ORDER_LIST);
+  }
+
+  @Benchmark
+  public byte[] write_numericHeavy_json() {
+    return jsonWriter.toJSONBytes(MEASURES);
+  }
+
+  @Benchmark
+  public byte[] write_numericHeavy_binary() {
+    return binaryWriter.toBinary(MEASURES);
+  }
+
+  @Benchmark
+  public Object read_numericHeavy_json() {
+    return jsonReader.parseUTF8(measuresJSON, MEASURE_LIST);
+  }
+
+  @Benchmark
+  public Object read_numericHeavy_binary() {
+    return binaryReader.fromBinary(measuresBinary, MEASURE_LIST);
+  }
+}
@@ -0,0 +1,206 @@
+package com.github.forax.framework.mapper.benchmark;
+
+import com.github.forax.framework.mapper.JSONReader;
+import com.github.forax.framework.mapper.JSONWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Measures JSONWriter.toJSON and JSONReader.parseJSON on representative shapes of documents,
+// a flat bean, a record, a deep nesting, a large array of objects, a numeric-heavy and a string-heavy document,
+// run it with -prof gc to see the allocation rate,
+// java -jar benchmarks/target/benchmarks.jar MapperBenchmark -prof gc
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+  public static final class Person {
+    private String name;
+    private int age;
+    private boolean admin;
+    private String email;
+
+    public String getName() {
+      return name;
+    }
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getAge() {
+      return age;
+    }
+    public void setAge(int age) {
+      this.age = age;
+    }
+
+    public boolean isAdmin() {
+      return admin;
+    }
+    public void setAdmin(boolean admin) {
+      this.admin = admin;
+    }
+
+    public String getEmail() {
+      return email;
+    }
+    public void setEmail(String email) {
+      this.email = email;
+    }
+  }
+
+  public record Point(int x, int y, String label) {}
+
+  public record Node(String name, List<Node> children) {}
+
+  public record Order(long id, String customer, int quantity, double price, boolean shipped) {}
+
+  public record Measure(long timestamp, double value, double min, double max, double mean, double deviation) {}
+
+  public record Text(String title, String body, String comment) {}
+
+  private static Person person(int i) {
+    var person = new Person();
+    person.setName("person" + i);
+    person.setAge(20 + i % 50);
+    person.setAdmin(i % 7 == 0);
+    person.setEmail("person" + i + "@example.com");
+    return person;
+  }
+
+  private static Node node(int depth) {
+    if (depth == 0) {
+      return new Node("leaf", List.of());
+    }
+    return new Node("node" + depth, List.of(node(depth - 1), node(depth - 1)));
+  }
+
+  private static final Person PERSON = person(42);
+  private static final Point POINT = new Point(3, 4, "origin");
+  private static final Node TREE = node(8);
+  private static final List<Order> ORDERS;
+  private static final List<Measure> MEASURES;
+  private static final List<Text> TEXTS;
+  static {
+    var random = new SplittableRandom(0);
+    ORDERS = IntStream.range(0, 1_000)
+        .mapToObj(i -> new Order(i, "customer" + i % 100, random.nextInt(100), random.nextDouble() * 1_000, i % 3 == 0))
+        .toList();
+    MEASURES = IntStream.range(0, 1_000)
+        .mapToObj(i -> new Measure(1_700_000_000_000L + i, random.nextDouble(), random.nextDouble() * -1e3,
+            random.nextDouble() * 1e6, random.nextDouble() * 100, random.nextDouble() * 1e-3))
+        .toList();
+    TEXTS = IntStream.range(0, 100)
+        .mapToObj(i -> new Text("title " + i, "Lorem ipsum dolor sit amet, été \"quoted\" ".repeat(20),
+            "line 1\nline 2\t€ " + i))
+        .toList();
+  }
+
+  private static final JSONReader.TypeReference<List<Order>> ORDER_LIST = new JSONReader.TypeReference<>() {};
+  private static final JSONReader.TypeReference<List<Measure>> MEASURE_LIST = new JSONReader.TypeReference<>() {};
+  private static final JSONReader.TypeReference<List<Text>> TEXT_LIST = new JSONReader.TypeReference<>() {};
+
+  private final JSONWriter writer = new JSONWriter();
+  private final JSONReader reader = new JSONReader();
+
+  private final String personJSON = writer.toJSON(PERSON);
+  private final String pointJSON = writer.toJSON(POINT);
+  private final String treeJSON = writer.toJSON(TREE);
+  private final String ordersJSON = writer.toJSON(ORDERS);
+  private final String measuresJSON = writer.toJSON(MEASURES);
+  private final String textsJSON = writer.toJSON(TEXTS);
+
+  private final Person person = new Person();
+
+  public MapperBenchmark() {
+    reader.addTypeMatcher(type -> Optional.of(type)
+        .flatMap(t -> t instanceof ParameterizedType parameterizedType ? Optional.of(parameterizedType) : Optional.empty())
+        .filter(t -> t.getRawType() == List.class)
+        .map(t -> JSONReader.ObjectBuilder.list(t.getActualTypeArguments()[0])));
+    reader.addTypeMatcher(type -> Optional.of(type)
+        .flatMap(t -> t instanceof Class<?> clazz && clazz.isRecord() ? Optional.of(clazz) : Optional.empty())
+        .map(JSONReader.ObjectBuilder::record));
+  }
+
+  @Benchmark
+  public String write_flatBean() {
+    return writer.toJSON(PERSON);
+  }
+
+  @Benchmark
+  public Person read_flatBean() {
+    return reader.parseJSON(personJSON, Person.class);
+  }
+
+  // the same bean is recycled by each call
+  @Benchmark
+  public Person read_flatBean_into() {
+    return reader.parseInto(personJSON, person);
+  }
+
+  @Benchmark
+  public String write_record() {
+    return writer.toJSON(POINT);
+  }
+
+  @Benchmark
+  public Point read_record() {
+    return reader.parseJSON(pointJSON, Point.class);
+  }
+
+  @Benchmark
+  public String write_deepNesting() {
+    return writer.toJSON(TREE);
+  }
+
+  @Benchmark
+  public Node read_deepNesting() {
+    return reader.parseJSON(treeJSON, Node.class);
+  }
+
+  @Benchmark
+  public String write_largeArray() {
+    return writer.toJSON(ORDERS);
+  }
+
+  @Benchmark
+  public List<Order> read_largeArray() {
+    return reader.parseJSON(ordersJSON, ORDER_LIST);
+  }
+
+  @Benchmark
+  public String write_numericHeavy() {
+    return writer.toJSON(MEASURES);
+  }
+
+  @Benchmark
+  public List<Measure> read_numericHeavy() {
+    return reader.parseJSON(measuresJSON, MEASURE_LIST);
+  }
+
+  @Benchmark
+  public String write_stringHeavy() {
+    return writer.toJSON(TEXTS);
+  }
+
+  @Benchmark
+  public List<Text> read_stringHeavy() {
+    return reader.parseJSON(textsJSON, TEXT_LIST);
+  }
+}
@@ -0,0 +1,585 @@
+package com.github.forax.framework.mapper.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * An annotation processor that generates a {@code JSONCodec} for the beans and the records
+ * annotated with {@code @JSONType} or having a member annotated with {@code @JSONProperty}.
+ *
+ * The generated codecs do not use reflection, the codec of a type {@code Outer.Inner} is named
+ * {@code Outer_InnerJSONCodec} so {@code JSONWriter} and {@code JSONReader} can find it by name,
+ * the codecs are also registered as services in
+ * {@code META-INF/services/com.github.forax.framework.mapper.JSONCodec}.
+ *
+ * The codecs follow the rules of the reflective implementation, the properties of a bean are written
+ * in the order of their names and read using the setters, the components of a record are written
+ * in the order of the declaration.
+ * No codec is generated (with a warning) for a generic type or a type with a property type
+ * that contains a type variable or a wildcard.
+ */
+public final class JSONCodecProcessor extends AbstractProcessor {
+  private static final String MAPPER_PACKAGE = "com.github.forax.framework.mapper";
+  private static final String JSON_PROPERTY = MAPPER_PACKAGE + ".JSONProperty";
+  private static final String JSON_TYPE = MAPPER_PACKAGE + ".JSONType";
+  private static final String SERVICE_FILE = "META-INF/services/" + MAPPER_PACKAGE + ".JSONCodec";
+
+  private final List<String> codecNames = new ArrayList<>();
+  private final Set<String> compiledTypeNames = new HashSet<>();
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Set.of(JSON_PROPERTY, JSON_TYPE);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (roundEnv.processingOver()) {
+      if (!codecNames.isEmpty()) {
+        writeServiceFile();
+      }
+      return false;
+    }
+    for (var element : ElementFilter.typesIn(roundEnv.getRootElements())) {
+      addCompiledTypeNames(element);
+    }
+    var types = new LinkedHashMap<String, TypeElement>();
+    for (var annotation : annotations) {
+      for (var element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        var type = enclosingType(element);
+        if (type != null) {
+          types.putIfAbsent(type.getQualifiedName().toString(), type);
+        }
+      }
+    }
+    for (var type : types.values()) {
+      generate(type);
+    }
+    return false;
+  }
+
+  private void addCompiledTypeNames(TypeElement type) {
+    compiledTypeNames.add(type.getQualifiedName().toString());
+    for (var memberType : ElementFilter.typesIn(type.getEnclosedElements())) {
+      addCompiledTypeNames(memberType);
+    }
+  }
+
+  private static TypeElement enclosingType(Element element) {
+    for (var e = element; e != null; e = e.getEnclosingElement()) {
+      if (e.getKind() == ElementKind.CLASS || e.getKind() == ElementKind.RECORD) {
+        return (TypeElement) e;
+      }
+    }
+    return null;
+  }
+
+  private void warning(Element element, String message) {
+    processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "no JSON codec generated, " + message, element);
+  }
+
+  // the name of the property of a getter or a setter, see java.beans.Introspector.decapitalize
+  private static String decapitalize(String name) {
+    if (name.length() > 1 && Character.isUpperCase(name.charAt(1)) && Character.isUpperCase(name.charAt(0))) {
+      return name;
+    }
+    return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+  }
+
+  private static String jsonProperty(Element element) {
+    for (var annotationMirror : element.getAnnotationMirrors()) {
+      var annotationType = (TypeElement) annotationMirror.getAnnotationType().asElement();
+      if (annotationType.getQualifiedName().contentEquals(JSON_PROPERTY)) {
+        for (var entry : annotationMirror.getElementValues().entrySet()) {
+          if (entry.getKey().getSimpleName().contentEquals("value")) {
+            return (String) entry.getValue().getValue();
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * A property written by the codec.
+   * @param key the key of the property in the JSON object
+   * @param accessor the name of the method that returns the value of the property
+   */
+  private record Getter(String key, String accessor) {}
+
+  /**
+   * A property read by the codec.
+   * @param key the key of the property in the JSON object
+   * @param type the type of the property
+   * @param target the name of the setter or the name of the field of the record builder
+   */
+  private record Setter(String key, TypeMirror type, String target) {}
+
+  private void generate(TypeElement type) {
+    if (type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS) {
+      warning(type, "the type is a local class");
+      return;
+    }
+    if (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC)) {
+      warning(type, "the type is an inner class");
+      return;
+    }
+    for (var e = (Element) type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+      if (e.getModifiers().contains(Modifier.PRIVATE)) {
+        warning(type, "the type is private");
+        return;
+      }
+    }
+    if (!type.getTypeParameters().isEmpty()) {
+      warning(type, "the type is generic");
+      return;
+    }
+
+    List<Getter> getters;
+    List<Setter> setters;
+    var isRecord = type.getKind() == ElementKind.RECORD;
+    if (isRecord) {
+      getters = new ArrayList<>();
+      setters = new ArrayList<>();
+      for (var component : type.getRecordComponents()) {
+        var name = component.getSimpleName().toString();
+        var key = jsonProperty(component);
+        if (key == null) {
+          key = jsonProperty(component.getAccessor());
+        }
+        getters.add(new Getter(key == null ? name : key, name + "()"));
+        setters.add(new Setter(name, component.asType(), name));
+      }
+    } else {
+      var getterMap = new TreeMap<String, Getter>();
+      var setterMap = new TreeMap<String, Setter>();
+      var methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type));
+      for (var method : methods) {
+        if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)) {
+          continue;
+        }
+        var name = method.getSimpleName().toString();
+        var parameters = method.getParameters();
+        var returnType = method.getReturnType();
+        if (parameters.isEmpty() && returnType.getKind() != TypeKind.VOID && !name.equals("getClass")) {
+          String propertyName = null;
+          if (name.startsWith("get") && name.length() > 3) {
+            propertyName = decapitalize(name.substring(3));
+          } else if (name.startsWith("is") && name.length() > 2 && returnType.getKind() == TypeKind.BOOLEAN) {
+            propertyName = decapitalize(name.substring(2));
+          }
+          if (propertyName != null) {
+            var key = jsonProperty(method);
+            getterMap.putIfAbsent(propertyName, new Getter(key == null ? propertyName : key, name + "()"));
+          }
+          continue;
+        }
+        if (parameters.size() == 1 && returnType.getKind() == TypeKind.VOID && name.startsWith("set") && name.length() > 3) {
+          var propertyName = decapitalize(name.substring(3));
+          setterMap.putIfAbsent(propertyName, new Setter(propertyName, parameters.get(0).asType(), name));
+        }
+      }
+      getters = List.copyOf(getterMap.values());
+      setters = List.copyOf(setterMap.values());
+    }
+
+    for (var setter : setters) {
+      if (typeExpression(setter.type) == null) {
+        warning(type, "the type " + setter.type + " of the property " + setter.key + " is not supported");
+        return;
+      }
+    }
+
+    var hasDefaultConstructor = isRecord || ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+        .anyMatch(constructor -> constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE));
+
+    var packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    var typeName = type.getQualifiedName().toString();
+    var simpleName = typeName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+    var codecSimpleName = simpleName.replace('.', '_') + "JSONCodec";
+    var codecName = packageName.isEmpty() ? codecSimpleName : packageName + "." + codecSimpleName;
+    var source = isRecord ?
+        recordCodec(packageName, typeName, codecSimpleName, getters, setters) :
+        beanCodec(packageName, typeName, codecSimpleName, getters, setters, hasDefaultConstructor);
+    try {
+      var file = processingEnv.getFiler().createSourceFile(codecName, type);
+      try (var writer = file.openWriter()) {
+        writer.write(source);
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "can not generate " + codecName + " " + e.getMessage(), type);
+      return;
+    }
+    codecNames.add(codecName);
+  }
+
+  // an incremental compilation only processes some of the types,
+  // so the codecs already listed in the service file are kept if they are not stale
+  private void writeServiceFile() {
+    var filer = processingEnv.getFiler();
+    var names = new LinkedHashSet<String>();
+    try {
+      var existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+      try (var reader = new BufferedReader(existing.openReader(true))) {
+        reader.lines()
+            .map(line -> line.replaceFirst("#.*", "").strip())
+            .filter(line -> !line.isEmpty())
+            .filter(this::isCodecUpToDate)
+            .forEach(names::add);
+      }
+    } catch (IOException e) {
+      // no service file yet
+    }
+    names.addAll(codecNames);
+    try {
+      var file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+      try (var writer = file.openWriter()) {
+        for (var codecName : names) {
+          writer.write(codecName + "\n");
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Returns true if a codec of the service file not generated by this compilation still exists
+   * and its type still exists and was not compiled by this compilation,
+   * otherwise the type has been removed or has lost its codec.
+   */
+  private boolean isCodecUpToDate(String codecName) {
+    var elements = processingEnv.getElementUtils();
+    var codec = elements.getTypeElement(codecName);
+    if (codec == null) {
+      return false;
+    }
+    for (var supertype : codec.getInterfaces()) {
+      var element = (TypeElement) processingEnv.getTypeUtils().asElement(supertype);
+      if (element == null || !element.getQualifiedName().contentEquals(MAPPER_PACKAGE + ".JSONCodec")) {
+        continue;
+      }
+      var typeArguments = ((DeclaredType) supertype).getTypeArguments();
+      if (typeArguments.size() != 1 || typeArguments.get(0).getKind() != TypeKind.DECLARED) {
+        return false;
+      }
+      var typeName = ((TypeElement) ((DeclaredType) typeArguments.get(0)).asElement()).getQualifiedName().toString();
+      return !compiledTypeNames.contains(typeName) && elements.getTypeElement(typeName) != null;
+    }
+    return false;
+  }
+
+  /**
+   * Returns a Java expression that creates the {@code java.lang.reflect.Type} of a type mirror
+   * or null if the type contains a type variable or a wildcard.
+   */
+  private String typeExpression(TypeMirror type) {
+    return switch (type.getKind()) {
+      case BOOLEAN, BYTE, SHORT, CHAR, INT, LONG, FLOAT, DOUBLE -> type + ".class";
+      case ARRAY -> {
+        var componentType = ((ArrayType) type).getComponentType();
+        if (componentType.getKind() == TypeKind.DECLARED && !((DeclaredType) componentType).getTypeArguments().isEmpty()) {
+          yield null;  // generic array
+        }
+        var component = typeExpression(componentType);
+        yield component == null ? null : erasure(type) + ".class";
+      }
+      case DECLARED -> {
+        var declaredType = (DeclaredType) type;
+        var typeArguments = declaredType.getTypeArguments();
+        var rawType = erasure(type) + ".class";
+        if (typeArguments.isEmpty()) {
+          yield rawType;
+        }
+        var arguments = new ArrayList<String>();
+        for (var typeArgument : typeArguments) {
+          var argument = typeExpression(typeArgument);
+          if (argument == null) {
+            yield null;
+          }
+          arguments.add(argument);
+        }
+        yield MAPPER_PACKAGE + ".JSONCodec.parameterizedType(" + rawType + ", " + String.join(", ", arguments) + ")";
+      }
+      default -> null;
+    };
+  }
+
+  private String erasure(TypeMirror type) {
+    return processingEnv.getTypeUtils().erasure(type).toString();
+  }
+
+  // the boxed type of a primitive type or the type itself
+  private String boxed(TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName().toString();
+    }
+    return type.toString();
+  }
+
+  // the expression that converts value (an Object) to the type of a property
+  private String conversion(TypeMirror type) {
+    return switch (type.getKind()) {
+      case LONG -> "((java.lang.Number) value).longValue()";
+      case DOUBLE -> "((java.lang.Number) value).doubleValue()";
+      case FLOAT -> "((java.lang.Number) value).floatValue()";
+      default -> "(" + boxed(type) + ") value";
+    };
+  }
+
+  // escapes the content of a JSON string like JSONWriter does
+  private static String jsonEscape(String text) {
+    var builder = new StringBuilder();
+    for (var i = 0; i < text.length(); i++) {
+      var c = text.charAt(i);
+      switch (c) {
+        case '"' -> builder.append("\\\"");
+        case '\\' -> builder.append("\\\\");
+        case '\b' -> builder.append("\\b");
+        case '\f' -> builder.append("\\f");
+        case '\n' -> builder.append("\\n");
+        case '\r' -> builder.append("\\r");
+        case '\t' -> builder.append("\\t");
+        default -> {
+          if (c < ' ') {
+            builder.append("\\u%04x".formatted((int) c));
+          } else {
+            builder.append(c);
+          }
+        }
+      }
+    }
+    return builder.toString();
+  }
+
+  private static String javaString(String text) {
+    var builder = new StringBuilder("\"");
+    for (var i = 0; i < text.length(); i++) {
+      var c = text.charAt(i);
+      switch (c) {
+        case '"' -> builder.append("\\\"");
+        case '\\' -> builder.append("\\\\");
+        case '\n' -> builder.append("\\n");
+        case '\r' -> builder.append("\\r");
+        case '\t' -> builder.append("\\t");
+        default -> {
+          if (c < ' ') {
+            builder.append("\\u%04x".formatted((int) c));
+          } else {
+            builder.append(c);
+          }
+        }
+      }
+    }
+    return builder.append('"').toString();
+  }
+
+  private static String header(String packageName, String typeName, String codecSimpleName) {
+    return (packageName.isEmpty() ? "" : "package " + packageName + ";\n\n") + """
+        @javax.annotation.processing.Generated("%s")
+        @SuppressWarnings("unchecked")
+        public final class %s implements %s.JSONCodec<%s> {
+          @Override
+          public Class<%s> type() {
+            return %s.class;
+          }
+
+        """.formatted(JSONCodecProcessor.class.getName(), codecSimpleName, MAPPER_PACKAGE, typeName, typeName, typeName);
+  }
+
+  private static String writeMethod(String typeName, List<Getter> getters) {
+    var builder = new StringBuilder();
+    builder.append("""
+          @Override
+          public void write(%s.JSONWriter writer, %s value, java.lang.Appendable out) throws java.io.IOException {
+        """.formatted(MAPPER_PACKAGE, typeName));
+    for (var i = 0; i < getters.size(); i++) {
+      var getter = getters.get(i);
+      var prefix = (i == 0 ? "{" : ", ") + '"' + jsonEscape(getter.key) + "\": ";
+      builder.append("    out.append(").append(javaString(prefix)).append(");\n");
+      builder.append("    writer.toJSON(value.").append(getter.accessor).append(", out);\n");
+    }
+    builder.append(getters.isEmpty() ? "    out.append(\"{}\");\n" : "    out.append('}');\n");
+    builder.append("  }\n\n");
+    return builder.toString();
+  }
+
+  private String typeOfMethod(String typeName, List<Setter> setters) {
+    var builder = new StringBuilder();
+    builder.append("""
+          private static java.lang.reflect.Type typeOf(String key) {
+            return switch (key) {
+        """);
+    for (var setter : setters) {
+      builder.append("      case ").append(javaString(setter.key)).append(" -> ").append(typeExpression(setter.type)).append(";\n");
+    }
+    builder.append("""
+              default -> throw new IllegalStateException("unknown key " + key + " for %s");
+            };
+          }
+
+          private static boolean isKey(String key) {
+            return switch (key) {
+        """.formatted(typeName));
+    if (!setters.isEmpty()) {
+      builder.append("      case ")
+          .append(setters.stream().map(setter -> javaString(setter.key)).collect(Collectors.joining(", ")))
+          .append(" -> true;\n");
+    }
+    builder.append("""
+              default -> false;
+            };
+          }
+
+        """);
+    return builder.toString();
+  }
+
+  // the primitive populate methods, int values can be stored in long and double properties, long values in double properties
+  private static final List<String> PRIMITIVE_POPULATES = List.of("Int:int", "Long:long", "Double:double", "Boolean:boolean");
+
+  private static boolean accepts(String primitive, TypeKind kind) {
+    return switch (primitive) {
+      case "int" -> kind == TypeKind.INT || kind == TypeKind.LONG || kind == TypeKind.DOUBLE;
+      case "long" -> kind == TypeKind.LONG || kind == TypeKind.DOUBLE;
+      case "double" -> kind == TypeKind.DOUBLE;
+      case "boolean" -> kind == TypeKind.BOOLEAN;
+      default -> throw new AssertionError(primitive);
+    };
+  }
+
+  private String populater(String instanceType, String typeName, List<Setter> setters, String assignmentFormat) {
+    var builder = new StringBuilder();
+    builder.append("""
+                new %s.JSONReader.ObjectBuilder.Populater<%s>() {
+                  @Override
+                  public void populate(%s instance, String key, Object value) {
+                    switch (key) {
+        """.formatted(MAPPER_PACKAGE, instanceType, instanceType));
+    for (var setter : setters) {
+      builder.append("              case ").append(javaString(setter.key)).append(" -> ")
+          .append(assignmentFormat.formatted(setter.target, conversion(setter.type))).append(";\n");
+    }
+    builder.append("""
+                      default -> throw new IllegalStateException("unknown key " + key + " for %s");
+                    }
+                  }
+        """.formatted(typeName));
+    for (var populate : PRIMITIVE_POPULATES) {
+      var suffix = populate.substring(0, populate.indexOf(':'));
+      var primitive = populate.substring(populate.indexOf(':') + 1);
+      var accepted = setters.stream().filter(setter -> accepts(primitive, setter.type.getKind())).toList();
+      if (accepted.isEmpty()) {
+        continue;
+      }
+      builder.append("""
+
+                  @Override
+                  public void populate%s(%s instance, String key, %s value) {
+                    switch (key) {
+        """.formatted(suffix, instanceType, primitive));
+      for (var setter : accepted) {
+        builder.append("              case ").append(javaString(setter.key)).append(" -> ")
+            .append(assignmentFormat.formatted(setter.target, "value")).append(";\n");
+      }
+      builder.append("""
+                      default -> populate(instance, key, (Object) value);
+                    }
+                  }
+        """);
+    }
+    builder.append("        }");
+    return builder.toString();
+  }
+
+  private String beanCodec(String packageName, String typeName, String codecSimpleName,
+                           List<Getter> getters, List<Setter> setters, boolean hasDefaultConstructor) {
+    var builder = new StringBuilder(header(packageName, typeName, codecSimpleName));
+    builder.append(writeMethod(typeName, getters));
+    builder.append(typeOfMethod(typeName, setters));
+    builder.append("""
+          @Override
+          public %s.JSONReader.ObjectBuilder<?> objectBuilder() {
+        """.formatted(MAPPER_PACKAGE));
+    if (!hasDefaultConstructor) {
+      builder.append("""
+              throw new IllegalStateException("no default constructor for %s");
+            }
+          }
+          """.formatted(typeName));
+      return builder.toString();
+    }
+    builder.append("""
+            return new %s.JSONReader.ObjectBuilder<%s>(
+                %s::typeOf,
+                %s::new,
+        %s,
+                instance -> instance,
+                %s::isKey);
+          }
+        }
+        """.formatted(MAPPER_PACKAGE, typeName, codecSimpleName, typeName,
+            populater(typeName, typeName, setters, "instance.%s(%s)"), codecSimpleName));
+    return builder.toString();
+  }
+
+  private String recordCodec(String packageName, String typeName, String codecSimpleName,
+                             List<Getter> getters, List<Setter> setters) {
+    var builder = new StringBuilder(header(packageName, typeName, codecSimpleName));
+    builder.append(writeMethod(typeName, getters));
+    builder.append(typeOfMethod(typeName, setters));
+    // the values of the components are stored in the fields of a builder
+    builder.append("  private static final class Builder {\n");
+    for (var setter : setters) {
+      builder.append("    private ").append(setter.type).append(' ').append(setter.target).append(";\n");
+    }
+    builder.append("  }\n\n");
+    builder.append("""
+          @Override
+          public %s.JSONReader.ObjectBuilder<?> objectBuilder() {
+            return new %s.JSONReader.ObjectBuilder<Builder>(
+                %s::typeOf,
+                Builder::new,
+        %s,
+                builder -> new %s(%s),
+                %s::isKey);
+          }
+        }
+        """.formatted(MAPPER_PACKAGE, MAPPER_PACKAGE, codecSimpleName,
+            populater("Builder", typeName, setters, "instance.%s = %s"),
+            typeName, setters.stream().map(setter -> "builder." + setter.target).collect(Collectors.joining(", ")),
+            codecSimpleName));
+    return builder.toString();
+  }
+}
@@ -0,0 +1,309 @@
+package com.github.forax.framework.mapper.processor;
+
+import com.github.forax.framework.mapper.JSONCodec;
+import com.github.forax.framework.mapper.JSONReader;
+import com.github.forax.framework.mapper.JSONWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JSONCodecProcessorTest {
+  private static final Map<String, String> SOURCES = Map.of(
+      "sample/Person.java", """
+          package sample;
+
+          import com.github.forax.framework.mapper.JSONProperty;
+          import com.github.forax.framework.mapper.JSONType;
+          import java.util.List;
+
+          @JSONType
+          public class Person {
+            private String name;
+            private int age;
+            private double score;
+            private boolean admin;
+            private List<Address> addresses;
+
+            public String getName() { return name; }
+            public void setName(String name) { this.name = name; }
+            public int getAge() { return age; }
+            public void setAge(int age) { this.age = age; }
+            public double getScore() { return score; }
+            public void setScore(double score) { this.score = score; }
+            @JSONProperty("is-admin")
+            public boolean isAdmin() { return admin; }
+            public void setAdmin(boolean admin) { this.admin = admin; }
+            public List<Address> getAddresses() { return addresses; }
+            public void setAddresses(List<Address> addresses) { this.addresses = addresses; }
+          }
+          """,
+      "sample/Address.java", """
+          package sample;
+
+          import com.github.forax.framework.mapper.JSONType;
+
+          @JSONType
+          public record Address(String street, int number, boolean main) {}
+          """,
+      "sample/Outer.java", """
+          package sample;
+
+          import com.github.forax.framework.mapper.JSONProperty;
+
+          public class Outer {
+            public record Point(int x, @JSONProperty("ordinate") int y) {}
+          }
+          """,
+      "sample/Box.java", """
+          package sample;
+
+          import com.github.forax.framework.mapper.JSONType;
+
+          @JSONType
+          public class Box<T> {
+            private T content;
+
+            public T getContent() { return content; }
+            public void setContent(T content) { this.content = content; }
+          }
+          """
+  );
+
+  private static final class Source extends SimpleJavaFileObject {
+    private final String code;
+
+    private Source(String path, String code) {
+      super(URI.create("string:///" + path), Kind.SOURCE);
+      this.code = code;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return code;
+    }
+  }
+
+  private static DiagnosticCollector<JavaFileObject> compile(Path output) throws IOException {
+    return compile(output, SOURCES);
+  }
+
+  // the output directory is also on the class path, like in an incremental compilation
+  private static DiagnosticCollector<JavaFileObject> compile(Path output, Map<String, String> sourceMap) throws IOException {
+    var compiler = ToolProvider.getSystemJavaCompiler();
+    var diagnostics = new DiagnosticCollector<JavaFileObject>();
+    try (var fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+      var sources = sourceMap.entrySet().stream().map(entry -> new Source(entry.getKey(), entry.getValue())).toList();
+      var classPath = output + File.pathSeparator + System.getProperty("java.class.path");
+      var options = List.of("-d", output.toString(), "-classpath", classPath);
+      var task = compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+      task.setProcessors(List.of(new JSONCodecProcessor()));
+      assertTrue(task.call(), () -> diagnostics.getDiagnostics().toString());
+    }
+    return diagnostics;
+  }
+
+  @Test
+  public void generateCodecs(@TempDir Path output) throws IOException {
+    var diagnostics = compile(output);
+    var services = Files.readAllLines(output.resolve("META-INF/services/com.github.forax.framework.mapper.JSONCodec"));
+    assertAll(
+        () -> assertEquals(Set.of("sample.PersonJSONCodec", "sample.AddressJSONCodec", "sample.Outer_PointJSONCodec"),
+            Set.copyOf(services)),
+        () -> assertTrue(Files.exists(output.resolve("sample/Outer_PointJSONCodec.class"))),
+        () -> assertFalse(Files.exists(output.resolve("sample/BoxJSONCodec.class"))),
+        () -> assertTrue(diagnostics.getDiagnostics().stream()
+            .anyMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.WARNING && diagnostic.getMessage(null).contains("generic")))
+    );
+  }
+
+  @Test
+  public void incrementalCompilationKeepsTheOtherCodecs(@TempDir Path output) throws IOException {
+    compile(output);
+    compile(output, Map.of("sample/Address.java", SOURCES.get("sample/Address.java")));
+    var services = Files.readAllLines(output.resolve("META-INF/services/com.github.forax.framework.mapper.JSONCodec"));
+    assertAll(
+        () -> assertEquals(Set.of("sample.PersonJSONCodec", "sample.AddressJSONCodec", "sample.Outer_PointJSONCodec"),
+            Set.copyOf(services)),
+        () -> assertEquals(3, services.size())
+    );
+  }
+
+  @Test
+  public void incrementalCompilationRemovesTheCodecOfARemovedType(@TempDir Path output) throws IOException {
+    compile(output);
+    // the build tool removes the classes of a removed source file
+    Files.delete(output.resolve("sample/Outer.class"));
+    Files.delete(output.resolve("sample/Outer$Point.class"));
+    compile(output, Map.of("sample/Address.java", SOURCES.get("sample/Address.java")));
+    var services = Files.readAllLines(output.resolve("META-INF/services/com.github.forax.framework.mapper.JSONCodec"));
+    assertEquals(Set.of("sample.PersonJSONCodec", "sample.AddressJSONCodec"), Set.copyOf(services));
+  }
+
+  @Test
+  public void incrementalCompilationRemovesTheCodecOfATypeNotAnnotatedAnymore(@TempDir Path output) throws IOException {
+    compile(output);
+    compile(output, Map.of(
+        "sample/Address.java", SOURCES.get("sample/Address.java").replace("@JSONType", ""),
+        "sample/Outer.java", SOURCES.get("sample/Outer.java")));
+    var services = Files.readAllLines(output.resolve("META-INF/services/com.github.forax.framework.mapper.JSONCodec"));
+    assertEquals(Set.of("sample.PersonJSONCodec", "sample.Outer_PointJSONCodec"), Set.copyOf(services));
+  }
+
+  @Test
+  public void writeAndReadWithCodecs(@TempDir Path output) throws Exception {
+    compile(output);
+    try (var loader = new URLClassLoader(new URL[] { output.toUri().toURL() }, JSONCodecProcessorTest.class.getClassLoader())) {
+      var personClass = loader.loadClass("sample.Person");
+      var pointClass = loader.loadClass("sample.Outer$Point");
+      var codecClass = loader.loadClass("sample.PersonJSONCodec");
+      var codec = (JSONCodec<?>) codecClass.getConstructor().newInstance();
+
+      var text = """
+          {"addresses": null, "is-admin": true, "age": 42, "name": "Bob", "score": 3.5}\
+          """;
+      var reader = new JSONReader();
+      reader.addTypeMatcher(type -> Optional.of(type)
+          .flatMap(t -> t instanceof ParameterizedType parameterizedType ? Optional.of(parameterizedType) : Optional.empty())
+          .filter(t -> t.getRawType() == List.class)
+          .map(t -> JSONReader.ObjectBuilder.list(t.getActualTypeArguments()[0])));
+      var person = reader.parseJSON(text.replace("is-admin", "admin"), personClass);
+      var personWithAddresses = reader.parseJSON("""
+          {"name": "Ana", "addresses": [{"street": "main street", "number": 12, "main": true}]}
+          """, personClass);
+      var addresses = (List<?>) personClass.getMethod("getAddresses").invoke(personWithAddresses);
+      var point = reader.parseJSON("""
+          {"x": 1, "y": 2}
+          """, pointClass);
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertEquals(personClass, codec.type()),
+          () -> assertEquals(text, writer.toJSON(person)),
+          () -> assertEquals("""
+              {"street": "main street", "number": 12, "main": true}\
+              """, writer.toJSON(addresses.get(0))),
+          () -> assertEquals("""
+              {"x": 1, "ordinate": 2}\
+              """, writer.toJSON(point))
+      );
+    }
+  }
+
+  @Test
+  public void parseIntoABeanWithACodec(@TempDir Path output) throws Exception {
+    compile(output);
+    try (var loader = new URLClassLoader(new URL[] { output.toUri().toURL() }, JSONCodecProcessorTest.class.getClassLoader())) {
+      var personClass = loader.loadClass("sample.Person");
+      var reader = new JSONReader();
+      reader.addTypeMatcher(type -> Optional.of(type)
+          .flatMap(t -> t instanceof ParameterizedType parameterizedType ? Optional.of(parameterizedType) : Optional.empty())
+          .filter(t -> t.getRawType() == List.class)
+          .map(t -> JSONReader.ObjectBuilder.list(t.getActualTypeArguments()[0])));
+      var person = personClass.getConstructor().newInstance();
+      var result = reader.parseInto("""
+          {"name": "Ana", "age": 32, "addresses": [{"street": "main street", "number": 12, "main": true}]}
+          """, person);
+      var addresses = (List<?>) personClass.getMethod("getAddresses").invoke(person);
+      reader.parseInto("""
+          {"name": "Bob", "addresses": [{"street": "side street", "number": 7, "main": false}]}
+          """, person);
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertSame(person, result),
+          () -> assertSame(addresses, personClass.getMethod("getAddresses").invoke(person)),
+          () -> assertEquals("""
+              {"addresses": [{"street": "side street", "number": 7, "main": false}], "is-admin": false, "age": 0, "name": "Bob", "score": 0.0}\
+              """, writer.toJSON(person))
+      );
+    }
+  }
+
+  // uses the codec of a class loaded by a new class loader and returns a weak reference on that class loader
+  private static WeakReference<ClassLoader> writeWithANewClassLoader(Path output) throws Exception {
+    try (var loader = new URLClassLoader(new URL[] { output.toUri().toURL() }, JSONCodecProcessorTest.class.getClassLoader())) {
+      var point = new JSONReader().parseJSON("""
+          {"x": 1, "y": 2}
+          """, loader.loadClass("sample.Outer$Point"));
+      assertEquals("""
+          {"x": 1, "ordinate": 2}\
+          """, new JSONWriter().toJSON(point));
+      return new WeakReference<>(loader);
+    }
+  }
+
+  @Test
+  public void codecsDoNotRetainTheirClassLoader(@TempDir Path output) throws Exception {
+    compile(output);
+    var loaderRef = writeWithANewClassLoader(output);
+    for (var i = 0; i < 100 && loaderRef.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(loaderRef.get());
+  }
+
+  @Test
+  public void aStaleServiceEntryDoesNotBreakTheLookup(@TempDir Path output) throws Exception {
+    compile(output);
+    Files.writeString(output.resolve("META-INF/services/com.github.forax.framework.mapper.JSONCodec"),
+        "sample.DeletedJSONCodec\n", StandardOpenOption.APPEND);
+    try (var loader = new URLClassLoader(new URL[] { output.toUri().toURL() }, JSONCodecProcessorTest.class.getClassLoader())) {
+      var point = new JSONReader().parseJSON("""
+          {"x": 1, "y": 2}
+          """, loader.loadClass("sample.Outer$Point"));
+      var box = new JSONReader().parseJSON("""
+          {"content": "hello"}
+          """, loader.loadClass("sample.Box"));
+      assertAll(
+          () -> assertEquals("""
+              {"x": 1, "ordinate": 2}\
+              """, new JSONWriter().toJSON(point)),
+          () -> assertEquals("""
+              {"content": "hello"}\
+              """, new JSONWriter().toJSON(box))
+      );
+    }
+  }
+
+  @Test
+  public void parameterizedTypes(@TempDir Path output) throws Exception {
+    compile(output);
+    try (var loader = new URLClassLoader(new URL[] { output.toUri().toURL() }, JSONCodecProcessorTest.class.getClassLoader())) {
+      var codec = (JSONCodec<?>) loader.loadClass("sample.PersonJSONCodec").getConstructor().newInstance();
+      var reflectiveType = loader.loadClass("sample.Person").getMethod("setAddresses", List.class).getGenericParameterTypes()[0];
+      Type type = codec.objectBuilder().typeProvider().apply("addresses");
+      assertAll(
+          () -> assertEquals(reflectiveType, type),
+          () -> assertEquals(type, reflectiveType),
+          () -> assertEquals(reflectiveType.hashCode(), type.hashCode()),
+          () -> assertEquals(int.class, codec.objectBuilder().typeProvider().apply("age"))
+      );
+    }
+  }
+}
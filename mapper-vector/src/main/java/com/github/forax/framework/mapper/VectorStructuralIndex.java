@@ -0,0 +1,221 @@
+package com.github.forax.framework.mapper;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * A version of {@link StructuralIndex} that uses the Vector API to classify the characters
+ * of the text by blocks of 64 characters, like the stage 1 of simdjson.
+ *
+ * For each block, the comparisons of the vectors are stored as bitmasks (one bit per character),
+ * the escaped characters and the characters inside a string are computed from the bitmasks
+ * of the backslashes and the quotes, so only the structural characters outside the strings
+ * are examined one by one.
+ *
+ * This class requires the module {@code jdk.incubator.vector}, so it is compiled in its own module
+ * and {@link StructuralIndex} finds it by name, the core of the mapper is compiled without the incubator module.
+ */
+final class VectorStructuralIndex {
+  private VectorStructuralIndex() {
+    throw new AssertionError();
+  }
+
+  // a mask of a block must fit in a long
+  private static final VectorSpecies<Byte> BYTE_SPECIES =
+      ByteVector.SPECIES_PREFERRED.length() <= 64 ? ByteVector.SPECIES_PREFERRED : ByteVector.SPECIES_512;
+  private static final VectorSpecies<Short> SHORT_SPECIES =
+      ShortVector.SPECIES_PREFERRED.length() <= 64 ? ShortVector.SPECIES_PREFERRED : ShortVector.SPECIES_512;
+
+  private static final int BLOCK_SIZE = 64;
+
+  /**
+   * The state of the scan carried from one block to the next one.
+   */
+  private static final class Scanner {
+    private int[] separators = new int[64];
+    private int count;
+    private int depth;
+    private boolean escapeCarry;  // true if the last character of the previous block is an unescaped backslash
+    private long stringCarry;     // all ones if the previous block ends inside a string
+    private boolean valueSeen;    // true if a non blank character has been seen since the last separator
+    private boolean empty;        // true if the top-level array is empty
+
+    private void add(int position) {
+      if (count == separators.length) {
+        separators = Arrays.copyOf(separators, count << 1);
+      }
+      separators[count++] = position;
+    }
+
+    /**
+     * Scans a block of 64 characters.
+     *
+     * @return true if the closing bracket of the top-level array is found.
+     */
+    private boolean block(int base, long quotes, long backslashes, long opens, long closes, long commas, long nonBlanks) {
+      // find the characters escaped by a backslash
+      var escaped = escapeCarry ? 1L : 0L;
+      escapeCarry = false;
+      if (backslashes != 0) {
+        var unescaped = backslashes & ~escaped;
+        while (unescaped != 0) {
+          var bit = unescaped & -unescaped;
+          if (bit == Long.MIN_VALUE) {
+            escapeCarry = true;
+          }
+          var next = bit << 1;
+          escaped |= next;
+          unescaped &= ~(bit | next);
+        }
+      }
+
+      // inside a string, the bits in between an opening quote and a closing quote (prefix xor)
+      var inString = quotes & ~escaped;
+      inString ^= inString << 1;
+      inString ^= inString << 2;
+      inString ^= inString << 4;
+      inString ^= inString << 8;
+      inString ^= inString << 16;
+      inString ^= inString << 32;
+      inString ^= stringCarry;
+      stringCarry = inString >> 63;
+
+      var last = -1;  // index of the last separator in the block
+      var structurals = (opens | closes | commas) & ~inString;
+      while (structurals != 0) {
+        var index = Long.numberOfTrailingZeros(structurals);
+        var bit = structurals & -structurals;
+        structurals ^= bit;
+        if ((opens & bit) != 0) {
+          if (depth++ == 0) {
+            add(base + index);
+            last = index;
+            valueSeen = false;
+          }
+          continue;
+        }
+        var close = (closes & bit) != 0;
+        if (close) {
+          depth--;
+        }
+        if (depth != (close ? 0 : 1)) {
+          continue;
+        }
+        // a separator of the top-level array
+        var value = valueSeen || (nonBlanks & lowMask(index) & ~lowMask(last + 1)) != 0;
+        if (!value && !(close && count == 1)) {
+          throw new IllegalStateException("expect a value at " + (base + index));
+        }
+        add(base + index);
+        if (close) {
+          empty = !value;
+          return true;
+        }
+        last = index;
+        valueSeen = false;
+      }
+      valueSeen |= (nonBlanks & ~lowMask(last + 1)) != 0;
+      return false;
+    }
+
+    private int[] separators(char close) {
+      var position = separators[count - 1];
+      if (close != ']') {
+        throw new IllegalStateException("expect RIGHT_BRACKET at " + position);
+      }
+      if (empty) {
+        return new int[] { separators[0] };
+      }
+      return Arrays.copyOf(separators, count);
+    }
+  }
+
+  private static long lowMask(int n) {
+    return n == 64 ? -1L : (1L << n) - 1;
+  }
+
+  /**
+   * Returns the positions of the separators of the elements of the top-level array.
+   *
+   * @param input a JSON text
+   * @return the positions of the separators of the elements of the top-level array.
+   * @throws IllegalStateException if the text is not a JSON array.
+   *
+   * @see StructuralIndex#separators(char[])
+   */
+  static int[] separators(char[] input) {
+    var start = StructuralIndex.start(input);
+    var scanner = new Scanner();
+    var length = input.length;
+    var padded = new char[BLOCK_SIZE];
+    for (var base = start; base < length; base += BLOCK_SIZE) {
+      var block = input;
+      var offset = base;
+      if (length - base < BLOCK_SIZE) {
+        // the spaces are not structural
+        Arrays.fill(padded, ' ');
+        System.arraycopy(input, base, padded, 0, length - base);
+        block = padded;
+        offset = 0;
+      }
+      long quotes = 0, backslashes = 0, opens = 0, closes = 0, commas = 0, blanks = 0;
+      for (var i = 0; i < BLOCK_SIZE; i += SHORT_SPECIES.length()) {
+        var vector = ShortVector.fromCharArray(SHORT_SPECIES, block, offset + i);
+        quotes |= vector.eq((short) '"').toLong() << i;
+        backslashes |= vector.eq((short) '\\').toLong() << i;
+        opens |= vector.eq((short) '{').or(vector.eq((short) '[')).toLong() << i;
+        closes |= vector.eq((short) '}').or(vector.eq((short) ']')).toLong() << i;
+        commas |= vector.eq((short) ',').toLong() << i;
+        blanks |= vector.eq((short) ' ').or(vector.eq((short) '\n')).or(vector.eq((short) '\r')).or(vector.eq((short) '\t')).toLong() << i;
+      }
+      if (scanner.block(base, quotes, backslashes, opens, closes, commas, ~blanks)) {
+        return scanner.separators((char) input[scanner.separators[scanner.count - 1]]);
+      }
+    }
+    throw new IllegalStateException("expect RIGHT_BRACKET at " + length);
+  }
+
+  /**
+   * Returns the positions of the separators of the elements of the top-level array.
+   *
+   * @param input a JSON text encoded in UTF-8
+   * @return the positions of the separators of the elements of the top-level array.
+   * @throws IllegalStateException if the text is not a JSON array.
+   *
+   * @see StructuralIndex#separators(byte[])
+   */
+  static int[] separators(byte[] input) {
+    var start = StructuralIndex.start(input);
+    var scanner = new Scanner();
+    var length = input.length;
+    var padded = new byte[BLOCK_SIZE];
+    for (var base = start; base < length; base += BLOCK_SIZE) {
+      var block = input;
+      var offset = base;
+      if (length - base < BLOCK_SIZE) {
+        // the spaces are not structural
+        Arrays.fill(padded, (byte) ' ');
+        System.arraycopy(input, base, padded, 0, length - base);
+        block = padded;
+        offset = 0;
+      }
+      long quotes = 0, backslashes = 0, opens = 0, closes = 0, commas = 0, blanks = 0;
+      for (var i = 0; i < BLOCK_SIZE; i += BYTE_SPECIES.length()) {
+        var vector = ByteVector.fromArray(BYTE_SPECIES, block, offset + i);
+        quotes |= vector.eq((byte) '"').toLong() << i;
+        backslashes |= vector.eq((byte) '\\').toLong() << i;
+        opens |= vector.eq((byte) '{').or(vector.eq((byte) '[')).toLong() << i;
+        closes |= vector.eq((byte) '}').or(vector.eq((byte) ']')).toLong() << i;
+        commas |= vector.eq((byte) ',').toLong() << i;
+        blanks |= vector.eq((byte) ' ').or(vector.eq((byte) '\n')).or(vector.eq((byte) '\r')).or(vector.eq((byte) '\t')).toLong() << i;
+      }
+      if (scanner.block(base, quotes, backslashes, opens, closes, commas, ~blanks)) {
+        return scanner.separators((char) input[scanner.separators[scanner.count - 1]]);
+      }
+    }
+    throw new IllegalStateException("expect RIGHT_BRACKET at " + length);
+  }
+}
@@ -0,0 +1,88 @@
+package com.github.forax.framework.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VectorStructuralIndexTest {
+  // the vectorized index must find the same separators as the scalar one
+  private static int[] separators(String text) {
+    var chars = text.toCharArray();
+    var bytes = text.getBytes(StandardCharsets.UTF_8);
+    var separators = VectorStructuralIndex.separators(chars);
+    assertArrayEquals(StructuralIndex.scalarSeparators(chars), separators);
+    assertArrayEquals(StructuralIndex.scalarSeparators(bytes), VectorStructuralIndex.separators(bytes));
+    assertArrayEquals(separators, StructuralIndex.separators(chars));
+    return separators;
+  }
+
+  private static void assertInvalid(String text) {
+    var chars = text.toCharArray();
+    var bytes = text.getBytes(StandardCharsets.UTF_8);
+    assertAll(
+        () -> assertThrows(IllegalStateException.class, () -> VectorStructuralIndex.separators(chars)),
+        () -> assertThrows(IllegalStateException.class, () -> VectorStructuralIndex.separators(bytes))
+    );
+  }
+
+  @Test
+  public void vectorized() {
+    // the tests are run with --add-modules jdk.incubator.vector
+    assertTrue(StructuralIndex.VECTORIZED);
+  }
+
+  @Test
+  public void separators() {
+    assertAll(
+        () -> assertArrayEquals(new int[] { 0, 2, 5, 8 }, separators("[1, 2, 3]")),
+        () -> assertArrayEquals(new int[] { 1, 10, 20 }, separators(" [{\"a\": 1}, [2, [3]]] ")),
+        () -> assertArrayEquals(new int[] { 0, 12, 17 }, separators("[\"a, ] \\\" }\", \"b\"]")),
+        () -> assertArrayEquals(new int[] { 2 }, separators("\n [ \n ]"))
+    );
+  }
+
+  @Test
+  public void separatorsInvalid() {
+    assertAll(
+        () -> assertInvalid(""),
+        () -> assertInvalid("{}"),
+        () -> assertInvalid("[1, 2"),
+        () -> assertInvalid("[1, ]"),
+        () -> assertInvalid("[, 1]"),
+        () -> assertInvalid("[1 }"),
+        () -> assertInvalid("[\"1, 2]"),
+        () -> assertInvalid("[1, " + " ".repeat(100) + ", 2]")
+    );
+  }
+
+  @Test
+  public void separatorsAcrossBlocks() {
+    var random = new Random(0);
+    var fragments = new String[] {
+        "\"\\\\\"", "\"\\\"\"", "\"\\\\\\\"\"", "\"a, b\"", "\"[{\"", "\"}]\"", "\"é日\"", "\"😀\"",
+        "{ \"k\": [1, 2] }", "[[], {}]", "null", "12.5", " ", "\n"
+    };
+    for (var i = 0; i < 200; i++) {
+      var text = IntStream.range(0, random.nextInt(1, 200))
+          .mapToObj(__ -> {
+            var count = random.nextInt(1, 4);
+            return IntStream.range(0, count)
+                .mapToObj(___ -> fragments[random.nextInt(fragments.length)])
+                .filter(fragment -> !fragment.isBlank())
+                .findFirst()
+                .orElse("0") + " ".repeat(random.nextInt(3));
+          })
+          .collect(Collectors.joining(",", " ".repeat(random.nextInt(70)) + "[", "]"));
+      var separators = separators(text);
+      assertTrue(separators.length > 1, text);
+    }
+  }
+}
@@ -0,0 +1,252 @@
+package com.github.forax.framework.mapper;
+
+import com.github.forax.framework.mapper.ToyJSONParser.JSONVisitor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Type;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Reads the binary format written by {@link BinaryWriter}.
+ *
+ * The objects are created by the {@link JSONReader.ObjectBuilder object builders} of a {@link JSONReader},
+ * so the {@link JSONReader.TypeMatcher type matchers} added to the JSONReader and the configuration
+ * to ignore the unknown keys are used by this reader too.
+ * The numbers are read as is and the strings are decoded without unescaping.
+ *
+ * Any integer argument width of CBOR is accepted, so the numbers written with the smallest width
+ * by another CBOR encoder are also recognized, but the indefinite lengths, the tags
+ * and the keys that are not strings are not supported.
+ *
+ * @see BinaryWriter
+ */
+public final class BinaryReader {
+  private final JSONReader reader;
+
+  /**
+   * Creates a reader that uses the object builders of a JSONReader.
+   *
+   * @param reader a JSONReader
+   */
+  public BinaryReader(JSONReader reader) {
+    this.reader = Objects.requireNonNull(reader);
+  }
+
+  public <T> T fromBinary(byte[] bytes, Class<T> expectedClass) {
+    return expectedClass.cast(fromBinary(bytes, (Type) expectedClass));
+  }
+
+  public <T> T fromBinary(byte[] bytes, JSONReader.TypeReference<T> typeReference) {
+    var type = reader.giveMeTheTypeRef(typeReference);
+    @SuppressWarnings("unchecked")
+    var decodedObject = (T) fromBinary(bytes, type);
+    return decodedObject;
+  }
+
+  /**
+   * Decodes an object or an array encoded by {@link BinaryWriter}.
+   *
+   * @param bytes the binary encoding
+   * @param expectedType the type of the decoded object
+   * @return the decoded object
+   * @throws IllegalStateException if the bytes are not a valid encoding
+   */
+  public Object fromBinary(byte[] bytes, Type expectedType) {
+    Objects.requireNonNull(bytes);
+    Objects.requireNonNull(expectedType);
+    return reader.parse(expectedType, visitor -> new Decoder(bytes, visitor).parse());
+  }
+
+  private static final VarHandle SHORT_VIEW = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle INT_VIEW = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  // major types
+  private static final int UNSIGNED = 0;
+  private static final int NEGATIVE = 1;
+  private static final int STRING = 3;
+  private static final int ARRAY = 4;
+  private static final int MAP = 5;
+  private static final int SIMPLE = 7;
+
+  private static final class Decoder {
+    private final byte[] bytes;
+    private final JSONVisitor visitor;
+    private int position;
+
+    private Decoder(byte[] bytes, JSONVisitor visitor) {
+      this.bytes = bytes;
+      this.visitor = visitor;
+    }
+
+    private IllegalStateException error(String message) {
+      return new IllegalStateException(message + " at " + position);
+    }
+
+    private void require(int length) {
+      if (bytes.length - position < length) {
+        throw error("unexpected end of input");
+      }
+    }
+
+    void parse() {
+      require(1);
+      var major = (bytes[position] & 0xFF) >>> 5;
+      if (major != MAP && major != ARRAY) {
+        throw error("expect an object or an array");
+      }
+      parseValue(null);
+      if (position != bytes.length) {
+        throw error("unexpected bytes after the value");
+      }
+    }
+
+    // reads the argument that follows the initial byte, an unsigned value
+    private long argument(int info) {
+      switch (info) {
+        case 24 -> {
+          require(1);
+          return bytes[position++] & 0xFFL;
+        }
+        case 25 -> {
+          require(2);
+          var value = (short) SHORT_VIEW.get(bytes, position) & 0xFFFFL;
+          position += 2;
+          return value;
+        }
+        case 26 -> {
+          require(4);
+          var value = (int) INT_VIEW.get(bytes, position) & 0xFFFF_FFFFL;
+          position += 4;
+          return value;
+        }
+        case 27 -> {
+          require(8);
+          var value = (long) LONG_VIEW.get(bytes, position);
+          position += 8;
+          return value;
+        }
+        default -> {
+          if (info < 24) {
+            return info;
+          }
+          throw error("unsupported argument " + info);
+        }
+      }
+    }
+
+    private int length(int info) {
+      var length = argument(info);
+      if (length < 0 || length > bytes.length - position) {
+        throw error("invalid length " + Long.toUnsignedString(length));
+      }
+      return (int) length;
+    }
+
+    private String string(int length) {
+      var text = new String(bytes, position, length, UTF_8);
+      position += length;
+      return text;
+    }
+
+    private void parseValue(String key) {
+      require(1);
+      var initial = bytes[position++] & 0xFF;
+      var info = initial & 0x1F;
+      switch (initial >>> 5) {
+        case UNSIGNED, NEGATIVE -> {
+          var argument = argument(info);
+          if (argument < 0) {
+            throw error("integer too large");
+          }
+          var value = initial >>> 5 == UNSIGNED ? argument : -1 - argument;
+          if (value == (int) value) {
+            visitor.valueInt(key, (int) value);
+          } else {
+            visitor.valueLong(key, value);
+          }
+        }
+        case STRING -> visitor.value(key, string(length(info)));
+        case ARRAY -> {
+          var count = length(info);
+          visitor.startArray(key);
+          for (var i = 0; i < count; i++) {
+            parseValue(null);
+          }
+          visitor.endArray(key);
+        }
+        case MAP -> {
+          var count = length(info);
+          visitor.startObject(key);
+          for (var i = 0; i < count; i++) {
+            var name = parseKey();
+            if (visitor.skipKey(name)) {
+              skipValue();
+            } else {
+              parseValue(name);
+            }
+          }
+          visitor.endObject(key);
+        }
+        case SIMPLE -> {
+          switch (info) {
+            case 20 -> visitor.valueBoolean(key, false);
+            case 21 -> visitor.valueBoolean(key, true);
+            case 22 -> visitor.value(key, null);
+            case 25 -> visitor.valueDouble(key, Float.float16ToFloat((short) argument(info)));
+            case 26 -> visitor.valueDouble(key, Float.intBitsToFloat((int) argument(info)));
+            case 27 -> visitor.valueDouble(key, Double.longBitsToDouble(argument(info)));
+            default -> throw error("unsupported simple value " + info);
+          }
+        }
+        default -> throw error("unsupported major type " + (initial >>> 5));
+      }
+    }
+
+    private String parseKey() {
+      require(1);
+      var initial = bytes[position++] & 0xFF;
+      if (initial >>> 5 != STRING) {
+        throw error("expect a string key");
+      }
+      return string(length(initial & 0x1F));
+    }
+
+    // the lengths are known, so the nested values are skipped without being decoded
+    private void skipValue() {
+      require(1);
+      var initial = bytes[position++] & 0xFF;
+      var info = initial & 0x1F;
+      switch (initial >>> 5) {
+        case UNSIGNED, NEGATIVE -> argument(info);
+        case STRING -> {
+          var length = length(info);
+          position += length;
+        }
+        case ARRAY -> {
+          var count = length(info);
+          for (var i = 0; i < count; i++) {
+            skipValue();
+          }
+        }
+        case MAP -> {
+          var count = length(info);
+          for (var i = 0; i < count; i++) {
+            skipValue();
+            skipValue();
+          }
+        }
+        case SIMPLE -> {
+          if (info > 22) {
+            argument(info);
+          }
+        }
+        default -> throw error("unsupported major type " + (initial >>> 5));
+      }
+    }
+  }
+}
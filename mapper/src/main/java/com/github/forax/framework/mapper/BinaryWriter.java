@@ -0,0 +1,262 @@
+package com.github.forax.framework.mapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Writes an object in a compact binary format that has the same data model as JSON,
+ * it's a subset of CBOR (RFC 8949) so the output can be read by any CBOR decoder.
+ *
+ * The numbers are written with a fixed width in big endian, an int, a short or a byte on 4 bytes,
+ * a long on 8 bytes, a float on 4 bytes and a double on 8 bytes, so there is no text formatting.
+ * The strings are written in UTF-8 prefixed by their length and are never escaped.
+ * The length of a string and the number of elements of an array or of an object are written on 4 bytes.
+ *
+ * The beans and the records are written as objects with the same keys as {@link JSONWriter}
+ * (including the names specified by {@link JSONProperty}), the keys are encoded only once per class.
+ *
+ * @see BinaryReader
+ */
+public final class BinaryWriter {
+  // the initial bytes, the major type in the 3 high bits and the kind of argument in the 5 low bits,
+  // 26 (resp. 27) means that the argument is on 4 (resp. 8) bytes
+  static final int UNSIGNED_INT = 0x1A;
+  static final int NEGATIVE_INT = 0x3A;
+  static final int UNSIGNED_LONG = 0x1B;
+  static final int NEGATIVE_LONG = 0x3B;
+  static final int STRING = 0x7A;
+  static final int ARRAY = 0x9A;
+  static final int MAP = 0xBA;
+  static final int FALSE = 0xF4;
+  static final int TRUE = 0xF5;
+  static final int NULL = 0xF6;
+  static final int FLOAT = 0xFA;
+  static final int DOUBLE = 0xFB;
+
+  /**
+   * Returns the binary encoding of an object.
+   * The bytes are written into a pooled buffer, so the only allocation is the returned array.
+   *
+   * @param o the object to write
+   * @return the binary encoding of the object.
+   */
+  public byte[] toBinary(Object o) {
+    var buffer = ByteOutput.acquire(null);
+    try {
+      write(o, buffer);
+      return buffer.toByteArray();
+    } catch (IOException e) {
+      throw new AssertionError(e);   // a ByteOutput without sink never throws an IOException
+    } finally {
+      buffer.release();
+    }
+  }
+
+  /**
+   * Writes the binary encoding of an object into an {@link OutputStream}
+   * by blocks using a pooled buffer.
+   * The output stream is flushed but not closed.
+   *
+   * @param o the object to write
+   * @param output the output stream
+   * @throws IOException if an I/O error occurs
+   */
+  public void toBinary(Object o, OutputStream output) throws IOException {
+    Objects.requireNonNull(output);
+    var buffer = ByteOutput.acquire(output);
+    try {
+      write(o, buffer);
+      buffer.flush();
+    } finally {
+      buffer.release();
+    }
+    output.flush();
+  }
+
+  private void write(Object o, ByteOutput out) throws IOException {
+    switch (o) {
+      case String s -> writeString(s, out);
+      case null -> out.write(NULL);
+      case Boolean bool -> out.write(bool ? TRUE : FALSE);
+      case Integer integer -> writeInt(integer, out);
+      case Long l -> writeLong(l, out);
+      case Double d -> out.writeBigEndian(DOUBLE, Double.doubleToRawLongBits(d));
+      case Float f -> out.writeBigEndian(FLOAT, Float.floatToRawIntBits(f));
+      case Short s -> writeInt(s, out);
+      case Byte b -> writeInt(b, out);
+      case Character c -> writeChar(c, out);
+      case Collection<?> collection -> writeCollection(collection, out);
+      case Map<?, ?> map -> writeMap(map, out);
+      case Object[] array -> writeArray(array, out);
+      case int[] array -> writeArray(array, out);
+      case long[] array -> writeArray(array, out);
+      case double[] array -> writeArray(array, out);
+      case float[] array -> writeArray(array, out);
+      case boolean[] array -> writeArray(array, out);
+      case short[] array -> writeArray(array, out);
+      case byte[] array -> writeArray(array, out);
+      case char[] array -> writeArray(array, out);
+      default -> writeBean(o, out);
+    }
+  }
+
+  // the argument of a negative integer n is -1 - n, i.e. ~n
+  private static void writeInt(int value, ByteOutput out) throws IOException {
+    if (value >= 0) {
+      out.writeBigEndian(UNSIGNED_INT, value);
+    } else {
+      out.writeBigEndian(NEGATIVE_INT, ~value);
+    }
+  }
+
+  private static void writeLong(long value, ByteOutput out) throws IOException {
+    if (value >= 0) {
+      out.writeBigEndian(UNSIGNED_LONG, value);
+    } else {
+      out.writeBigEndian(NEGATIVE_LONG, ~value);
+    }
+  }
+
+  private static void writeString(String s, ByteOutput out) throws IOException {
+    out.writeBigEndian(STRING, ByteOutput.utf8Length(s));
+    out.append(s);
+    out.finish();  // an unpaired high surrogate at the end is part of this string
+  }
+
+  // a character is a string of one character, an unpaired surrogate is encoded as '?' like in a String
+  private static void writeChar(char c, ByteOutput out) throws IOException {
+    var length = c < 0x80 || Character.isSurrogate(c) ? 1 : c < 0x800 ? 2 : 3;
+    out.writeBigEndian(STRING, length);
+    out.append(c);
+    out.finish();
+  }
+
+  private void writeCollection(Collection<?> collection, ByteOutput out) throws IOException {
+    out.writeBigEndian(ARRAY, collection.size());
+    for (var element : collection) {
+      write(element, out);
+    }
+  }
+
+  // the keys are written using String.valueOf()
+  private void writeMap(Map<?, ?> map, ByteOutput out) throws IOException {
+    out.writeBigEndian(MAP, map.size());
+    for (var entry : map.entrySet()) {
+      writeString(String.valueOf(entry.getKey()), out);
+      write(entry.getValue(), out);
+    }
+  }
+
+  private void writeArray(Object[] array, ByteOutput out) throws IOException {
+    out.writeBigEndian(ARRAY, array.length);
+    for (var element : array) {
+      write(element, out);
+    }
+  }
+
+  private static void writeArray(int[] array, ByteOutput out) throws IOException {
+    out.writeBigEndian(ARRAY, array.length);
+    for (var element : array) {
+      writeInt(element, out);
+    }
+  }
+
+  private static void writeArray(long[] array, ByteOutput out) throws IOException {
+    out.writeBigEndian(ARRAY, array.length);
+    for (var element : array) {
+      writeLong(element, out);
+    }
+  }
+
+  private static void writeArray(double[] array, ByteOutput out) throws IOException {
+    out.writeBigEndian(ARRAY, array.length);
+    for (var element : array) {
+      out.writeBigEndian(DOUBLE, Double.doubleToRawLongBits(element));
+    }
+  }
+
+  private static void writeArray(float[] array, ByteOutput out) throws IOException {
+    out.writeBigEndian(ARRAY, array.length);
+    for (var element : array) {
+      out.writeBigEndian(FLOAT, Float.floatToRawIntBits(element));
+    }
+  }
+
+  private static void writeArray(boolean[] array, ByteOutput out) throws IOException {
+    out.writeBigEndian(ARRAY, array.length);
+    for (var element : array) {
+      out.write(element ? TRUE : FALSE);
+    }
+  }
+
+  private static void writeArray(short[] array, ByteOutput out) throws IOException {
+    out.writeBigEndian(ARRAY, array.length);
+    for (var element : array) {
+      writeInt(element, out);
+    }
+  }
+
+  private static void writeArray(byte[] array, ByteOutput out) throws IOException {
+    out.writeBigEndian(ARRAY, array.length);
+    for (var element : array) {
+      writeInt(element, out);
+    }
+  }
+
+  private static void writeArray(char[] array, ByteOutput out) throws IOException {
+    out.writeBigEndian(ARRAY, array.length);
+    for (var element : array) {
+      writeChar(element, out);
+    }
+  }
+
+  // the header of the object and the encoded keys of a class
+  private record BeanWriter(byte[] header, byte[][] keys, Function<Object, Object>[] accessors) {}
+
+  private static final ClassValue<BeanWriter> CACHE = new ClassValue<>() {
+    @Override
+    protected BeanWriter computeValue(Class<?> type) {
+      var properties = JSONWriter.properties(type);
+      var keys = new byte[properties.size()][];
+      @SuppressWarnings("unchecked")
+      var accessors = (Function<Object, Object>[]) new Function<?, ?>[properties.size()];
+      for (var i = 0; i < properties.size(); i++) {
+        var property = properties.get(i);
+        keys[i] = encode(property.key());
+        accessors[i] = Utils.accessor(property.getter());
+      }
+      var header = new ByteOutput(5);
+      try {
+        header.writeBigEndian(MAP, properties.size());
+      } catch (IOException e) {
+        throw new AssertionError(e);   // a ByteOutput without sink never throws an IOException
+      }
+      return new BeanWriter(header.toByteArray(), keys, accessors);
+    }
+  };
+
+  private static byte[] encode(String key) {
+    var output = new ByteOutput(5 + key.length() * 3);
+    try {
+      writeString(key, output);
+    } catch (IOException e) {
+      throw new AssertionError(e);   // a ByteOutput without sink never throws an IOException
+    }
+    return output.toByteArray();
+  }
+
+  private void writeBean(Object o, ByteOutput out) throws IOException {
+    var beanWriter = CACHE.get(o.getClass());
+    out.write(beanWriter.header);
+    var keys = beanWriter.keys;
+    var accessors = beanWriter.accessors;
+    for (var i = 0; i < keys.length; i++) {
+      out.write(keys[i]);
+      write(accessors[i].apply(o), out);
+    }
+  }
+}
@@ -0,0 +1,477 @@
+package com.github.forax.framework.mapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * A growable buffer of bytes that encodes the characters appended to it in UTF-8.
+ *
+ * {@link JSONWriter} recognizes this class to copy pre-encoded fragments (the keys of the properties)
+ * with {@link #write(byte[])} and to write the numbers without creating strings.
+ * If a sink is set, the buffer does not grow, the bytes are written to the sink each time the buffer is full.
+ *
+ * The buffers are pooled in a {@link SlotPool}, a buffer is taken from the pool by {@link #acquire(OutputStream)}
+ * and is confined to the current thread until {@link #release()} is called.
+ */
+final class ByteOutput implements Appendable {
+  private static final int INITIAL_CAPACITY = 8_192;
+  // a pool slot keeps its buffer forever, so a buffer that has grown bigger than that is not pooled
+  private static final int MAX_POOLED_CAPACITY = 64 * 1_024;
+  private static final int CHUNK_SIZE = (INITIAL_CAPACITY - 1) / 3;
+  private static final byte[] MIN_LONG = Long.toString(Long.MIN_VALUE).getBytes(US_ASCII);
+  private static final SlotPool<ByteOutput> POOL = new SlotPool<>();
+
+  private byte[] buffer;
+  private int size;
+  private OutputStream sink;        // may be null
+  private char pendingHighSurrogate;  // the high surrogate appended alone or 0
+
+  ByteOutput() {
+    this(INITIAL_CAPACITY);
+  }
+
+  ByteOutput(int capacity) {
+    buffer = new byte[capacity];
+  }
+
+  /**
+   * Takes a buffer from the pool or creates a new one if the slot of the current thread is empty.
+   *
+   * @param sink the output stream the bytes are written to when the buffer is full, or null
+   *             if the buffer should grow instead.
+   * @return an empty buffer
+   */
+  static ByteOutput acquire(OutputStream sink) {
+    var output = POOL.acquire();
+    if (output == null) {
+      output = new ByteOutput();
+    }
+    output.sink = sink;
+    return output;
+  }
+
+  /**
+   * Empties the buffer and puts it back into the pool,
+   * the buffer must not be used after this call.
+   */
+  void release() {
+    sink = null;
+    size = 0;
+    pendingHighSurrogate = 0;
+    if (buffer.length <= MAX_POOLED_CAPACITY) {
+      POOL.release(this);
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  byte[] toByteArray() {
+    return Arrays.copyOf(buffer, size);
+  }
+
+  /**
+   * Writes the content of the buffer to the sink and empties the buffer.
+   *
+   * @throws IOException if an I/O error occurs
+   */
+  void flush() throws IOException {
+    if (size != 0) {
+      sink.write(buffer, 0, size);
+      size = 0;
+    }
+  }
+
+  // makes room for at least length bytes
+  private void ensureCapacity(int length) throws IOException {
+    if (size + length <= buffer.length) {
+      return;
+    }
+    if (sink != null) {
+      flush();
+      if (length <= buffer.length) {
+        return;
+      }
+    }
+    buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, size + length));
+  }
+
+  /**
+   * Copies bytes already encoded in UTF-8.
+   *
+   * @param bytes bytes encoded in UTF-8
+   * @throws IOException if an I/O error occurs when flushing the buffer
+   */
+  void write(byte[] bytes) throws IOException {
+    finish();
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, size, bytes.length);
+    size += bytes.length;
+  }
+
+  void write(int b) throws IOException {
+    finish();
+    ensureCapacity(1);
+    buffer[size++] = (byte) b;
+  }
+
+  private static final VarHandle INT_VIEW_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle LONG_VIEW_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  /**
+   * Writes a byte followed by an int in big endian, used by {@link BinaryWriter}.
+   *
+   * @param b a byte
+   * @param value an int
+   * @throws IOException if an I/O error occurs when flushing the buffer
+   */
+  void writeBigEndian(int b, int value) throws IOException {
+    finish();
+    ensureCapacity(5);
+    buffer[size] = (byte) b;
+    INT_VIEW_BE.set(buffer, size + 1, value);
+    size += 5;
+  }
+
+  /**
+   * Writes a byte followed by a long in big endian, used by {@link BinaryWriter}.
+   *
+   * @param b a byte
+   * @param value a long
+   * @throws IOException if an I/O error occurs when flushing the buffer
+   */
+  void writeBigEndian(int b, long value) throws IOException {
+    finish();
+    ensureCapacity(9);
+    buffer[size] = (byte) b;
+    LONG_VIEW_BE.set(buffer, size + 1, value);
+    size += 9;
+  }
+
+  /**
+   * Returns the number of bytes of a text encoded in UTF-8 by {@link #append(CharSequence)},
+   * an unpaired surrogate is encoded as '?'.
+   *
+   * @param csq a text
+   * @return the number of bytes of the text encoded in UTF-8.
+   */
+  static int utf8Length(CharSequence csq) {
+    var length = csq.length();
+    var count = length;
+    for (var i = 0; i < length; i++) {
+      var c = csq.charAt(i);
+      if (c < 0x80) {
+        continue;
+      }
+      if (c < 0x800) {
+        count++;
+        continue;
+      }
+      if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(csq.charAt(i + 1))) {
+        count += 2;  // 4 bytes for 2 chars
+        i++;
+        continue;
+      }
+      if (!Character.isSurrogate(c)) {
+        count += 2;
+      }
+    }
+    return count;
+  }
+
+  // the decimal digits of the numbers from 00 to 99
+  private static final byte[] DIGIT_PAIRS = new byte[200];
+  private static final long[] POW10 = new long[19];
+
+  static {
+    for (var i = 0; i < 100; i++) {
+      DIGIT_PAIRS[i << 1] = (byte) ('0' + i / 10);
+      DIGIT_PAIRS[(i << 1) + 1] = (byte) ('0' + i % 10);
+    }
+    var pow10 = 1L;
+    for (var i = 0; i < POW10.length; i++) {
+      POW10[i] = pow10;
+      pow10 *= 10;
+    }
+  }
+
+  /**
+   * Writes the decimal representation of a long without creating a string,
+   * the digits are written two by two from the end.
+   *
+   * @param value a long
+   * @throws IOException if an I/O error occurs when flushing the buffer
+   */
+  void writeLong(long value) throws IOException {
+    finish();
+    if (value == Long.MIN_VALUE) {
+      write(MIN_LONG);
+      return;
+    }
+    ensureCapacity(20);
+    var bytes = buffer;
+    if (value < 0) {
+      bytes[size++] = '-';
+      value = -value;
+    }
+    if (value < 10) {
+      bytes[size++] = (byte) ('0' + value);
+      return;
+    }
+    // floor(log10(value)) + 1 using floor(log10(2^bits)) ~ bits * 1233 / 4096
+    var length = (64 - Long.numberOfLeadingZeros(value)) * 1233 >>> 12;
+    if (value >= POW10[length]) {
+      length++;
+    }
+    var end = size + length;
+    var index = end;
+    while (value > Integer.MAX_VALUE) {
+      var quotient = value / 100;
+      var pair = (int) (value - quotient * 100) << 1;
+      bytes[--index] = DIGIT_PAIRS[pair + 1];
+      bytes[--index] = DIGIT_PAIRS[pair];
+      value = quotient;
+    }
+    var intValue = (int) value;
+    while (intValue >= 100) {
+      var quotient = intValue / 100;
+      var pair = (intValue - quotient * 100) << 1;
+      bytes[--index] = DIGIT_PAIRS[pair + 1];
+      bytes[--index] = DIGIT_PAIRS[pair];
+      intValue = quotient;
+    }
+    if (intValue >= 10) {
+      bytes[--index] = DIGIT_PAIRS[(intValue << 1) + 1];
+      bytes[--index] = DIGIT_PAIRS[intValue << 1];
+    } else {
+      bytes[--index] = (byte) ('0' + intValue);
+    }
+    size = end;
+  }
+
+  /**
+   * Writes a double with the format of {@link Double#toString(double)} without creating a string.
+   *
+   * @param value a double
+   * @throws IOException if an I/O error occurs when flushing the buffer
+   * @see Schubfach
+   */
+  void writeDouble(double value) throws IOException {
+    finish();
+    ensureCapacity(Schubfach.MAX_LENGTH);
+    size = Schubfach.writeDouble(value, buffer, size);
+  }
+
+  /**
+   * Writes a float with the format of {@link Float#toString(float)} without creating a string.
+   *
+   * @param value a float
+   * @throws IOException if an I/O error occurs when flushing the buffer
+   * @see Schubfach
+   */
+  void writeFloat(float value) throws IOException {
+    finish();
+    ensureCapacity(Schubfach.MAX_LENGTH);
+    size = Schubfach.writeFloat(value, buffer, size);
+  }
+
+  @Override
+  public ByteOutput append(CharSequence csq) throws IOException {
+    return append(csq, 0, csq.length());
+  }
+
+  @Override
+  public ByteOutput append(CharSequence csq, int start, int end) throws IOException {
+    Objects.checkFromToIndex(start, end, csq.length());
+    // at most 3 bytes per char, a surrogate pair is 4 bytes for 2 chars
+    for (var i = start; i < end; i += CHUNK_SIZE) {
+      var limit = Math.min(end, i + CHUNK_SIZE);
+      ensureCapacity((limit - i) * 3 + 1);
+      encodeChunk(csq, i, limit);
+    }
+    return this;
+  }
+
+  // the buffer must have room for the encoded chars
+  private void encodeChunk(CharSequence csq, int start, int end) {
+    var bytes = buffer;
+    var position = size;
+    for (var i = start; i < end; i++) {
+      var c = csq.charAt(i);
+      if (c < 0x80 && pendingHighSurrogate == 0) {
+        bytes[position++] = (byte) c;
+        continue;
+      }
+      size = position;
+      encode(c);
+      position = size;
+    }
+    size = position;
+  }
+
+  private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final long ONES = 0x0101_0101_0101_0101L;
+  private static final long HIGHS = 0x8080_8080_8080_8080L;
+  private static final int ESCAPE_CHUNK_SIZE = (INITIAL_CAPACITY - 1) / 6;
+
+  // a bit 0x80 is set for the bytes that are a quote, a backslash or a control character,
+  // the lowest set bit is always exact, the bits above may be false positives
+  private static long escapeMask(long word) {
+    var quotes = word ^ (ONES * '"');
+    var backslashes = word ^ (ONES * '\\');
+    return ((quotes - ONES) & ~quotes
+        | (backslashes - ONES) & ~backslashes
+        | (word - ONES * 0x20) & ~word) & HIGHS;
+  }
+
+  private static boolean needsEscape(int b) {
+    return b == '"' || b == '\\' || (b >= 0 && b < 0x20);
+  }
+
+  /**
+   * Writes a string as the content of a JSON string, the quotes, the backslashes and
+   * the control characters are escaped.
+   *
+   * The string is encoded in UTF-8 by chunks, then each chunk is checked 8 bytes at a time
+   * (the bytes of a multibyte character are never ASCII), a chunk without character to escape
+   * is kept as is, otherwise the chunk is escaped in place starting from the first character
+   * to escape.
+   *
+   * @param text a string
+   * @throws IOException if an I/O error occurs when flushing the buffer
+   */
+  void writeEscaped(String text) throws IOException {
+    var length = text.length();
+    for (var i = 0; i < length; i += ESCAPE_CHUNK_SIZE) {
+      var limit = Math.min(length, i + ESCAPE_CHUNK_SIZE);
+      // an escaped char takes at most 6 bytes
+      ensureCapacity((limit - i) * 6 + 1);
+      var start = size;
+      encodeChunk(text, i, limit);
+      var end = size;
+      var position = start;
+      var bytes = buffer;
+      for (; position + Long.BYTES <= end; position += Long.BYTES) {
+        var mask = escapeMask((long) LONG_VIEW.get(bytes, position));
+        if (mask != 0) {
+          position += Long.numberOfTrailingZeros(mask) >>> 3;
+          break;
+        }
+      }
+      for (; position < end && !needsEscape(bytes[position]); position++) {
+        // empty
+      }
+      if (position < end) {
+        escapeInPlace(position, end);
+      }
+    }
+    finish();
+  }
+
+  private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(US_ASCII);
+
+  private static int escapeLength(int b) {
+    return switch (b) {
+      case '"', '\\', '\b', '\f', '\n', '\r', '\t' -> 2;
+      default -> needsEscape(b) ? 6 : 1;
+    };
+  }
+
+  // escapes the bytes in between start and end, the buffer must have room for the escaped bytes
+  private void escapeInPlace(int start, int end) {
+    var bytes = buffer;
+    var escapedEnd = end;
+    for (var i = start; i < end; i++) {
+      escapedEnd += escapeLength(bytes[i]) - 1;
+    }
+    // move the bytes backward, from the end
+    var j = escapedEnd;
+    for (var i = end; --i >= start;) {
+      var b = bytes[i];
+      switch (escapeLength(b)) {
+        case 1 -> bytes[--j] = b;
+        case 2 -> {
+          bytes[--j] = (byte) switch (b) {
+            case '\b' -> 'b';
+            case '\f' -> 'f';
+            case '\n' -> 'n';
+            case '\r' -> 'r';
+            case '\t' -> 't';
+            default -> b;  // '"' or '\\'
+          };
+          bytes[--j] = '\\';
+        }
+        default -> {
+          bytes[--j] = HEX_DIGITS[b & 0xF];
+          bytes[--j] = HEX_DIGITS[b >> 4];
+          bytes[--j] = '0';
+          bytes[--j] = '0';
+          bytes[--j] = 'u';
+          bytes[--j] = '\\';
+        }
+      }
+    }
+    size = escapedEnd;
+  }
+
+  @Override
+  public ByteOutput append(char c) throws IOException {
+    ensureCapacity(4);
+    encode(c);
+    return this;
+  }
+
+  // the buffer must have room for 4 bytes
+  private void encode(char c) {
+    var bytes = buffer;
+    if (pendingHighSurrogate != 0) {
+      var high = pendingHighSurrogate;
+      pendingHighSurrogate = 0;
+      if (Character.isLowSurrogate(c)) {
+        var codePoint = Character.toCodePoint(high, c);
+        bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+        bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+        bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+        bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+        return;
+      }
+      bytes[size++] = '?';  // malformed, like String.getBytes()
+    }
+    if (c < 0x80) {
+      bytes[size++] = (byte) c;
+    } else if (c < 0x800) {
+      bytes[size++] = (byte) (0xC0 | (c >> 6));
+      bytes[size++] = (byte) (0x80 | (c & 0x3F));
+    } else if (Character.isHighSurrogate(c)) {
+      pendingHighSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      bytes[size++] = '?';  // malformed, like String.getBytes()
+    } else {
+      bytes[size++] = (byte) (0xE0 | (c >> 12));
+      bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+      bytes[size++] = (byte) (0x80 | (c & 0x3F));
+    }
+  }
+
+  /**
+   * Terminates the encoding of the characters, an unpaired high surrogate is encoded as '?'.
+   * This method is called before writing bytes.
+   *
+   * @throws IOException if an I/O error occurs when flushing the buffer
+   */
+  void finish() throws IOException {
+    if (pendingHighSurrogate != 0) {
+      pendingHighSurrogate = 0;
+      ensureCapacity(1);
+      buffer[size++] = '?';
+    }
+  }
+}
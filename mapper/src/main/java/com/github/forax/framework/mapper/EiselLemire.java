@@ -0,0 +1,131 @@
+package com.github.forax.framework.mapper;
+
+import java.math.BigInteger;
+
+import static java.lang.Math.unsignedMultiplyHigh;
+
+/**
+ * Converts a decimal number, a significand of at most 19 digits and a power of ten,
+ * to the nearest double without allocating, using the algorithm of Michael Eisel and Daniel Lemire
+ * ("Number Parsing at a Gigabyte per Second", 2021).
+ *
+ * If the significand is small enough, the exact double arithmetic of Clinger's fast path is used instead.
+ * In the rare cases where the algorithm can not decide the rounding (subnormal numbers or a result
+ * too close to the middle of two doubles), {@link #toDouble(boolean, long, int)} returns NaN
+ * and the caller is expected to fall back to {@link Double#parseDouble(String)}.
+ *
+ * The table of the powers of five is computed once with {@link BigInteger} when the class is initialized.
+ */
+final class EiselLemire {
+  private EiselLemire() {
+    throw new AssertionError();
+  }
+
+  // range of the exponents of the table of the powers of five,
+  // below the smallest exponent a significand of 19 digits is rounded to zero,
+  // above the largest exponent it's rounded to infinity
+  static final int MIN_EXPONENT = -342;
+  static final int MAX_EXPONENT = 308;
+
+  // high and low 64 bits of the powers of five 5^q for q in [MIN_EXPONENT, MAX_EXPONENT],
+  // normalized so the most significant bit is set
+  private static final long[] POW5 = new long[(MAX_EXPONENT - MIN_EXPONENT + 1) << 1];
+
+  static {
+    // 5^q is truncated to 128 bits, 5^-q is approximated by 2^b / 5^q rounded up
+    for (var q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+      BigInteger c;
+      if (q >= 0) {
+        var pow5 = BigInteger.valueOf(5).pow(q);
+        var shift = 128 - pow5.bitLength();
+        c = shift >= 0 ? pow5.shiftLeft(shift) : pow5.shiftRight(-shift);
+      } else {
+        var pow5 = BigInteger.valueOf(5).pow(-q);
+        var z = pow5.bitLength();
+        var b = q >= -27 ? z + 127 : 2 * z + 128;
+        c = BigInteger.ONE.shiftLeft(b).divide(pow5).add(BigInteger.ONE);
+        c = c.shiftRight(Math.max(0, c.bitLength() - 128));
+      }
+      var index = (q - MIN_EXPONENT) << 1;
+      POW5[index] = c.shiftRight(64).longValue();
+      POW5[index + 1] = c.longValue();
+    }
+  }
+
+  // the powers of ten that are exactly represented by a double
+  private static final double[] POW10 = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+      1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  /**
+   * Returns the double nearest to significand * 10^exponent.
+   *
+   * @param negative true if the number is negative.
+   * @param significand the significand, an unsigned value of at most 19 decimal digits.
+   * @param exponent the power of ten.
+   * @return the nearest double or NaN if the rounding can not be decided.
+   */
+  static double toDouble(boolean negative, long significand, int exponent) {
+    if (significand >>> 53 == 0 && exponent >= -22 && exponent <= 22) {
+      // Clinger's fast path, the significand and the power of ten are exact doubles
+      // so the division or the multiplication is correctly rounded
+      var value = (double) significand;
+      value = exponent < 0 ? value / POW10[-exponent] : value * POW10[exponent];
+      return negative ? -value : value;
+    }
+    if (significand == 0 || exponent < MIN_EXPONENT) {
+      return negative ? -0.0 : 0.0;
+    }
+    if (exponent > MAX_EXPONENT) {
+      return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    }
+
+    // normalize the significand and multiply it by the 64 high bits of the power of five
+    var leadingZeros = Long.numberOfLeadingZeros(significand);
+    var mantissa = significand << leadingZeros;
+    var exponent2 = ((217_706L * exponent) >> 16) + 64 + Double.MAX_EXPONENT - leadingZeros;
+    var index = (exponent - MIN_EXPONENT) << 1;
+    var high = unsignedMultiplyHigh(mantissa, POW5[index]);
+    var low = mantissa * POW5[index];
+
+    // if the lower bits are all ones, the product may be off by one, use the 64 low bits of the power of five
+    if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + mantissa, mantissa) < 0) {
+      var high2 = unsignedMultiplyHigh(mantissa, POW5[index + 1]);
+      var low2 = mantissa * POW5[index + 1];
+      var mergedHigh = high;
+      var mergedLow = low + high2;
+      if (Long.compareUnsigned(mergedLow, low) < 0) {
+        mergedHigh++;
+      }
+      if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow == -1 && Long.compareUnsigned(low2 + mantissa, mantissa) < 0) {
+        return Double.NaN;
+      }
+      high = mergedHigh;
+      low = mergedLow;
+    }
+
+    // keep 54 bits, then round to 53 bits
+    var msb = high >>> 63;
+    var bits = high >>> (msb + 9);
+    exponent2 -= 1 ^ msb;
+    if (low == 0 && (high & 0x1FF) == 0 && (bits & 3) == 1) {
+      // exactly in the middle of two doubles
+      return Double.NaN;
+    }
+    bits = (bits + (bits & 1)) >>> 1;
+    if (bits >>> 53 != 0) {
+      bits >>>= 1;
+      exponent2++;
+    }
+    if (exponent2 <= 0 || exponent2 >= 0x7FF) {
+      // subnormal or infinite
+      return Double.NaN;
+    }
+    bits = exponent2 << 52 | bits & ((1L << 52) - 1);
+    if (negative) {
+      bits |= Long.MIN_VALUE;
+    }
+    return Double.longBitsToDouble(bits);
+  }
+}
@@ -0,0 +1,38 @@
+package com.github.forax.framework.mapper;
+
+import java.io.IOException;
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.UndeclaredThrowableException;
+
+/**
+ * The template of the hidden classes generated by {@link JSONWriter}.
+ *
+ * This class is never loaded as is, its bytecode is used to define one hidden class per bean type,
+ * with a method handle that writes the properties of the bean as class data.
+ * Because the method handle is stored in a static final field, it is a constant for the JIT
+ * which can inline the whole method handle tree, the getters included.
+ */
+final class GeneratorTemplate implements JSONWriter.Generator {
+  private static final MethodHandle GENERATOR;
+
+  static {
+    try {
+      GENERATOR = MethodHandles.classData(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, MethodHandle.class);
+    } catch (IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Override
+  public void generate(JSONWriter writer, Object bean, Appendable out) throws IOException {
+    try {
+      GENERATOR.invokeExact(writer, bean, out);
+    } catch (IOException | RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new UndeclaredThrowableException(e);
+    }
+  }
+}
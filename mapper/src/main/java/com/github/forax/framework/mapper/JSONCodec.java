@@ -0,0 +1,55 @@
+package com.github.forax.framework.mapper;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * A codec that writes and reads a type without using reflection.
+ *
+ * The codecs are generated at compile time by the annotation processor of the module
+ * {@code mapper-processor} and registered as services, {@link JSONWriter} and {@link JSONReader}
+ * load the codec of a type by its name, {@code <package>.<Outer_Inner>JSONCodec}, from the class loader
+ * of the type and prefer it to the introspection of the type.
+ *
+ * @param <T> the type of the objects written and read by the codec
+ *
+ * @see JSONType
+ */
+public interface JSONCodec<T> {
+  /**
+   * Returns the type of the objects written and read by the codec.
+   *
+   * @return the type of the objects written and read by the codec.
+   */
+  Class<T> type();
+
+  /**
+   * Writes an object as a JSON object.
+   *
+   * @param writer the writer used to write the values of the properties
+   * @param value the object to write
+   * @param out the appendable
+   * @throws IOException if an I/O error occurs
+   */
+  void write(JSONWriter writer, T value, Appendable out) throws IOException;
+
+  /**
+   * Returns an object builder that creates an object of the type from a JSON object.
+   *
+   * @return an object builder that creates an object of the type from a JSON object.
+   */
+  JSONReader.ObjectBuilder<?> objectBuilder();
+
+  /**
+   * Creates a parameterized type without using reflection,
+   * used by the generated codecs to describe the type of a generic property.
+   *
+   * @param rawType the raw type
+   * @param typeArguments the type arguments
+   * @return a new parameterized type equals to the one returned by the reflection API.
+   */
+  static ParameterizedType parameterizedType(Class<?> rawType, Type... typeArguments) {
+    return Utils.parameterizedType(rawType, typeArguments);
+  }
+}
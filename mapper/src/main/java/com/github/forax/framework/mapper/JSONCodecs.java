@@ -0,0 +1,58 @@
+package com.github.forax.framework.mapper;
+
+import java.util.Optional;
+
+/**
+ * The registry of the {@link JSONCodec}s.
+ * The annotation processor names the codec of a class {@code <package>.<Outer_Inner>JSONCodec},
+ * so the codec of a class is loaded once by name from the class loader of the class
+ * and stored in a {@link ClassValue}, so the registry does not keep the class loaders alive.
+ *
+ * A class with no codec or with a codec that can not be loaded uses the reflective path.
+ */
+final class JSONCodecs {
+  private JSONCodecs() {
+    throw new AssertionError();
+  }
+
+  private static final ClassValue<Optional<JSONCodec<?>>> CODEC_CLASS_VALUE = new ClassValue<>() {
+    @Override
+    protected Optional<JSONCodec<?>> computeValue(Class<?> type) {
+      var loader = type.getClassLoader();
+      if (loader == null || type.isArray() || type.isHidden()) {  // no codec for the classes of the JDK
+        return Optional.empty();
+      }
+      Class<?> codecClass;
+      try {
+        codecClass = Class.forName(codecName(type), false, loader);
+      } catch (ClassNotFoundException | LinkageError e) {
+        return Optional.empty();
+      }
+      if (!JSONCodec.class.isAssignableFrom(codecClass)) {
+        return Optional.empty();
+      }
+      JSONCodec<?> codec;
+      try {
+        codec = (JSONCodec<?>) codecClass.getConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+        return Optional.empty();
+      }
+      return codec.type() == type ? Optional.of(codec) : Optional.empty();
+    }
+  };
+
+  // the name of the codec generated by the annotation processor, sample.Outer$Point -> sample.Outer_PointJSONCodec
+  private static String codecName(Class<?> type) {
+    return type.getName().replace('$', '_') + "JSONCodec";
+  }
+
+  /**
+   * Returns the codec of a type if it exists.
+   *
+   * @param type the type
+   * @return the codec of the type or an empty optional.
+   */
+  static Optional<JSONCodec<?>> find(Class<?> type) {
+    return CODEC_CLASS_VALUE.get(type);
+  }
+}
@@ -0,0 +1,306 @@
+package com.github.forax.framework.mapper;
+
+import com.github.forax.framework.mapper.ToyJSONParser.Cursor;
+import com.github.forax.framework.mapper.ToyJSONParser.Kind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A JSON value decoded on demand.
+ *
+ * Creating a document only reads the first token of the text, the members of an object
+ * (or the elements of an array) are indexed the first time they are accessed by skipping
+ * their values without decoding them, and a value is only decoded when a method like
+ * {@link #getLong(String)} or {@link #asString()} is called.
+ * <pre>
+ *   var document = JSONDocument.parse(text);
+ *   var id = document.get("user").getLong("id");
+ * </pre>
+ *
+ * As a consequence, the part of the text that is not accessed is not fully validated.
+ * A document is not thread safe.
+ */
+public final class JSONDocument {
+  private final Cursor cursor;
+  private final int position;
+  private final Kind kind;
+  private Members members;  // lazily initialized
+  private int[] elements;   // lazily initialized
+
+  // keys and positions of the values of the members of an object,
+  // map is null if there are only a few keys
+  private record Members(String[] keys, int[] positions, Map<String, Integer> map) {
+    private static final int MAP_THRESHOLD = 8;
+
+    int indexOf(String key) {
+      if (map != null) {
+        var index = map.get(key);
+        return index == null ? -1 : index;
+      }
+      for (var i = keys.length; --i >= 0;) {  // the last duplicate key wins
+        if (keys[i].equals(key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  private JSONDocument(Cursor cursor, int position) {
+    this.cursor = cursor;
+    this.position = position;
+    this.kind = cursor.kind(position);
+  }
+
+  /**
+   * Creates a document from a JSON text.
+   *
+   * @param text a JSON text
+   * @return a new document
+   * @throws IllegalStateException if the text does not start with a JSON value
+   */
+  public static JSONDocument parse(String text) {
+    Objects.requireNonNull(text);
+    var cursor = Cursor.of(text);
+    return new JSONDocument(cursor, cursor.first());
+  }
+
+  /**
+   * Creates a document from a JSON text encoded in UTF-8,
+   * the strings are only decoded when they are accessed.
+   *
+   * @param bytes a JSON text encoded in UTF-8
+   * @return a new document
+   * @throws IllegalStateException if the text does not start with a JSON value
+   */
+  public static JSONDocument parseUTF8(byte[] bytes) {
+    Objects.requireNonNull(bytes);
+    var cursor = Cursor.ofUTF8(bytes);
+    return new JSONDocument(cursor, cursor.first());
+  }
+
+  public boolean isObject() {
+    return kind == Kind.LEFT_CURLY;
+  }
+
+  public boolean isArray() {
+    return kind == Kind.LEFT_BRACKET;
+  }
+
+  public boolean isString() {
+    return kind == Kind.STRING;
+  }
+
+  public boolean isNumber() {
+    return kind == Kind.INTEGER || kind == Kind.DOUBLE;
+  }
+
+  public boolean isBoolean() {
+    return kind == Kind.TRUE || kind == Kind.FALSE;
+  }
+
+  public boolean isNull() {
+    return kind == Kind.NULL;
+  }
+
+  private Members members() {
+    if (members != null) {
+      return members;
+    }
+    if (!isObject()) {
+      throw new IllegalStateException("not an object " + kind + " at " + position);
+    }
+    var keys = new ArrayList<String>();
+    var positions = new int[][] { new int[8] };
+    cursor.members(position, (key, valuePosition) -> {
+      var index = keys.size();
+      if (index == positions[0].length) {
+        positions[0] = Arrays.copyOf(positions[0], index << 1);
+      }
+      keys.add(key);
+      positions[0][index] = valuePosition;
+    });
+    var keyArray = keys.toArray(String[]::new);
+    var positionArray = Arrays.copyOf(positions[0], keyArray.length);
+    Map<String, Integer> map = null;
+    if (keyArray.length > Members.MAP_THRESHOLD) {
+      map = new HashMap<>();
+      for (var i = 0; i < keyArray.length; i++) {
+        map.put(keyArray[i], i);
+      }
+    }
+    return members = new Members(keyArray, positionArray, map);
+  }
+
+  private int[] elements() {
+    if (elements != null) {
+      return elements;
+    }
+    if (!isArray()) {
+      throw new IllegalStateException("not an array " + kind + " at " + position);
+    }
+    var positions = new int[][] { new int[8] };
+    var size = new int[1];
+    cursor.elements(position, elementPosition -> {
+      if (size[0] == positions[0].length) {
+        positions[0] = Arrays.copyOf(positions[0], size[0] << 1);
+      }
+      positions[0][size[0]++] = elementPosition;
+    });
+    return elements = Arrays.copyOf(positions[0], size[0]);
+  }
+
+  /**
+   * Returns true if the object has a member with that key.
+   *
+   * @param key the key of the member
+   * @return true if the object has a member with that key.
+   * @throws IllegalStateException if the document is not an object
+   */
+  public boolean has(String key) {
+    Objects.requireNonNull(key);
+    return members().indexOf(key) != -1;
+  }
+
+  /**
+   * Returns the keys of the object in the order of the text.
+   *
+   * @return an unmodifiable set of the keys of the object.
+   * @throws IllegalStateException if the document is not an object
+   */
+  public Set<String> keys() {
+    return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(members().keys)));
+  }
+
+  /**
+   * Returns the number of members of an object or the number of elements of an array.
+   *
+   * @return the number of members of an object or the number of elements of an array.
+   * @throws IllegalStateException if the document is neither an object nor an array
+   */
+  public int size() {
+    return isObject() ? members().keys.length : elements().length;
+  }
+
+  /**
+   * Returns the value of a member of the object, the value is not decoded.
+   *
+   * @param key the key of the member
+   * @return the value of the member.
+   * @throws IllegalStateException if the document is not an object or if there is no member with that key
+   */
+  public JSONDocument get(String key) {
+    Objects.requireNonNull(key);
+    var members = members();
+    var index = members.indexOf(key);
+    if (index == -1) {
+      throw new IllegalStateException("unknown key " + key + " for object at " + position);
+    }
+    return new JSONDocument(cursor, members.positions[index]);
+  }
+
+  /**
+   * Returns an element of the array, the element is not decoded.
+   *
+   * @param index the index of the element
+   * @return the element of the array.
+   * @throws IllegalStateException if the document is not an array
+   * @throws IndexOutOfBoundsException if the index is out of bounds
+   */
+  public JSONDocument get(int index) {
+    var elements = elements();
+    Objects.checkIndex(index, elements.length);
+    return new JSONDocument(cursor, elements[index]);
+  }
+
+  public String getString(String key) {
+    return get(key).asString();
+  }
+
+  public long getLong(String key) {
+    return get(key).asLong();
+  }
+
+  public int getInt(String key) {
+    return get(key).asInt();
+  }
+
+  public double getDouble(String key) {
+    return get(key).asDouble();
+  }
+
+  public boolean getBoolean(String key) {
+    return get(key).asBoolean();
+  }
+
+  /**
+   * Decodes a string.
+   *
+   * @return the decoded string.
+   * @throws IllegalStateException if the document is not a string
+   */
+  public String asString() {
+    return cursor.stringValue(position);
+  }
+
+  /**
+   * Decodes an integer.
+   *
+   * @return the decoded integer.
+   * @throws IllegalStateException if the document is not an integer
+   */
+  public long asLong() {
+    return cursor.longValue(position);
+  }
+
+  /**
+   * Decodes an integer that fits in an int.
+   *
+   * @return the decoded integer.
+   * @throws IllegalStateException if the document is not an integer or if the integer does not fit in an int
+   */
+  public int asInt() {
+    var value = asLong();
+    if (value != (int) value) {
+      throw new IllegalStateException("integer " + value + " does not fit in an int at " + position);
+    }
+    return (int) value;
+  }
+
+  /**
+   * Decodes a number.
+   *
+   * @return the decoded number.
+   * @throws IllegalStateException if the document is not a number
+   */
+  public double asDouble() {
+    return cursor.doubleValue(position);
+  }
+
+  /**
+   * Decodes a boolean.
+   *
+   * @return the decoded boolean.
+   * @throws IllegalStateException if the document is not a boolean
+   */
+  public boolean asBoolean() {
+    return cursor.booleanValue(position);
+  }
+
+  /**
+   * Returns the JSON text of the value.
+   *
+   * @return the JSON text of the value.
+   */
+  @Override
+  public String toString() {
+    return cursor.text(position);
+  }
+}
@@ -0,0 +1,114 @@
+package com.github.forax.framework.mapper;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A spliterator on the lines of a JSON Lines text encoded in UTF-8,
+ * each non blank line is decoded using a function.
+ * The spliterator is split on line boundaries, so each half can be decoded independently.
+ *
+ * @param <T> the type of the decoded lines
+ */
+final class JSONLinesSpliterator<T> implements Spliterator<T> {
+  // do not split under that size, decoding a small chunk is cheaper than forking
+  private static final int SPLIT_THRESHOLD = 64 * 1_024;
+
+  private final ByteBuffer input;
+  private final Function<? super ByteBuffer, ? extends T> decoder;
+  private int position;
+  private final int end;
+  private byte[] line = new byte[128];
+
+  /**
+   * Creates a spliterator on the bytes of the input between the position and the limit.
+   * The position of the input is not modified.
+   *
+   * @param input a JSON Lines text encoded in UTF-8
+   * @param decoder a function that decodes the bytes between the position and the limit of a buffer
+   */
+  JSONLinesSpliterator(ByteBuffer input, Function<? super ByteBuffer, ? extends T> decoder) {
+    this(input, decoder, input.position(), input.limit());
+  }
+
+  private JSONLinesSpliterator(ByteBuffer input, Function<? super ByteBuffer, ? extends T> decoder, int position, int end) {
+    this.input = input;
+    this.decoder = decoder;
+    this.position = position;
+    this.end = end;
+  }
+
+  private int endOfLine(int index) {
+    while (index < end && input.get(index) != '\n') {
+      index++;
+    }
+    return index;
+  }
+
+  private static boolean isBlank(byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    Objects.requireNonNull(action);
+    while (position < end) {
+      var start = position;
+      var endOfLine = endOfLine(start);
+      position = endOfLine + 1;
+      var length = endOfLine - start;
+      if (length > line.length) {
+        line = new byte[Math.max(length, line.length << 1)];
+      }
+      input.get(start, line, 0, length);
+      var blank = true;
+      for (var i = 0; i < length; i++) {
+        if (!isBlank(line[i])) {
+          blank = false;
+          break;
+        }
+      }
+      if (blank) {
+        continue;
+      }
+      T element;
+      try {
+        element = decoder.apply(ByteBuffer.wrap(line, 0, length));
+      } catch (IllegalStateException e) {
+        throw new IllegalStateException(e.getMessage() + "\n at byte offset " + start, e);
+      }
+      action.accept(element);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public Spliterator<T> trySplit() {
+    var size = end - position;
+    if (size < SPLIT_THRESHOLD) {
+      return null;
+    }
+    var middle = endOfLine(position + (size >>> 1)) + 1;
+    if (middle >= end) {
+      return null;
+    }
+    var prefix = new JSONLinesSpliterator<T>(input, decoder, position, middle);
+    position = middle;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    // the number of lines is unknown, the number of bytes is an upper bound
+    return end - position;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | IMMUTABLE;
+  }
+}
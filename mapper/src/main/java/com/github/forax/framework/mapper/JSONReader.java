@@ -1,22 +1,84 @@
 package com.github.forax.framework.mapper;
 
 import java.beans.PropertyDescriptor;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.lang.invoke.MethodType.methodType;
 
 public class JSONReader {
     public interface TypeReference<T> {
     }
 
-    private record BeanData(Constructor<?> constructor, Map<String, PropertyDescriptor> propertyMap) {
-        PropertyDescriptor findProperty(String key) {
+    // setter has the type (Object, parameterType)void, genericSetter has the type (Object, Object)void,
+    // getter has the type (Object)Object or is null, resetter sets the default value and has the type (Object)void
+    private record PropertyData(int index, Type type, MethodHandle setter, MethodHandle genericSetter,
+                                MethodHandle getter, MethodHandle resetter) {
+        static PropertyData of(int index, PropertyDescriptor property) {
+            var writeMethod = property.getWriteMethod();
+            var parameterType = writeMethod.getParameterTypes()[0];
+            var setter = Utils.unreflect(writeMethod)
+                    .asType(methodType(void.class, Object.class, parameterType));
+            var genericSetter = setter.asType(methodType(void.class, Object.class, Object.class));
+            var readMethod = property.getReadMethod();
+            var getter = readMethod == null ? null :
+                    Utils.unreflect(readMethod).asType(methodType(Object.class, Object.class));
+            var resetter = MethodHandles.collectArguments(setter, 1, MethodHandles.zero(parameterType));
+            return new PropertyData(index, writeMethod.getGenericParameterTypes()[0], setter, genericSetter, getter, resetter);
+        }
+
+        Class<?> parameterType() {
+            return setter.type().parameterType(1);
+        }
+
+        Object get(Object instance) {
+            try {
+                return getter.invokeExact(instance);
+            } catch (Throwable e) {
+                throw Utils.rethrow(e);
+            }
+        }
+
+        void reset(Object instance) {
+            try {
+                resetter.invokeExact(instance);
+            } catch (Throwable e) {
+                throw Utils.rethrow(e);
+            }
+        }
+    }
+
+    // the key plan contains the same String instances as the property map, in the order of JSONWriter,
+    // properties are the properties of the map indexed by PropertyData.index
+    private record BeanData(Constructor<?> constructor, Map<String, PropertyData> propertyMap, KeyPlan keyPlan,
+                            PropertyData[] properties) {
+        PropertyData findProperty(String key) {
             var property = propertyMap.get(key);
             if (property == null) {
                 throw new IllegalStateException("unknown key " + key + " for bean " + constructor.getDeclaringClass().getName());
@@ -30,20 +92,339 @@ public class JSONReader {
         protected BeanData computeValue(Class<?> type) {
             // throw new UnsupportedOperationException("TODO");
             var beanInfo = Utils.beanInfo(type);
-            var map = Arrays.stream(beanInfo.getPropertyDescriptors())
+            var properties = Arrays.stream(beanInfo.getPropertyDescriptors())
                     .filter(property -> !property.getName().equals("class"))
-                    .collect(Collectors.toMap(PropertyDescriptor::getName, Function.identity())); // Function.identity() is the same as property -> property
+                    .filter(property -> property.getWriteMethod() != null)
+                    .toList();
+            var propertyDatas = IntStream.range(0, properties.size())
+                    .mapToObj(i -> PropertyData.of(i, properties.get(i)))
+                    .toArray(PropertyData[]::new);
+            var map = IntStream.range(0, properties.size())
+                    .boxed()
+                    .collect(Collectors.toMap(i -> properties.get(i).getName(), i -> propertyDatas[i]));
+            var keyPlan = new KeyPlan(properties.stream().map(PropertyDescriptor::getName).toList());
             var constructor = Utils.defaultConstructor(type);
-            return new BeanData(constructor, map);
+            return new BeanData(constructor, map, keyPlan, propertyDatas);
+        }
+    };
+
+    // the primitive values are not boxed but calls the setter with the right primitive type,
+    // the methods that take a PropertyData are used when the property is already known
+    private record BeanPopulater(BeanData beanData) implements ObjectBuilder.Populater<Object> {
+        @Override
+        public void populate(Object instance, String key, Object value) {
+            populate(instance, beanData.findProperty(key), value);
+        }
+
+        void populate(Object instance, PropertyData property, Object value) {
+            var setter = property.genericSetter;
+            try {
+                setter.invokeExact(instance, value);
+            } catch (Throwable e) {
+                throw Utils.rethrow(e);
+            }
+        }
+
+        @Override
+        public void populateInt(Object instance, String key, int value) {
+            populateInt(instance, beanData.findProperty(key), value);
+        }
+
+        void populateInt(Object instance, PropertyData property, int value) {
+            var parameterType = property.parameterType();
+            var setter = property.setter;
+            try {
+                if (parameterType == int.class) {
+                    setter.invokeExact(instance, value);
+                } else if (parameterType == long.class) {
+                    setter.invokeExact(instance, (long) value);
+                } else if (parameterType == double.class) {
+                    setter.invokeExact(instance, (double) value);
+                } else {
+                    populate(instance, property, value);
+                }
+            } catch (Throwable e) {
+                throw Utils.rethrow(e);
+            }
+        }
+
+        @Override
+        public void populateLong(Object instance, String key, long value) {
+            populateLong(instance, beanData.findProperty(key), value);
+        }
+
+        void populateLong(Object instance, PropertyData property, long value) {
+            var parameterType = property.parameterType();
+            var setter = property.setter;
+            try {
+                if (parameterType == long.class) {
+                    setter.invokeExact(instance, value);
+                } else if (parameterType == double.class) {
+                    setter.invokeExact(instance, (double) value);
+                } else {
+                    populate(instance, property, value);
+                }
+            } catch (Throwable e) {
+                throw Utils.rethrow(e);
+            }
+        }
+
+        @Override
+        public void populateDouble(Object instance, String key, double value) {
+            populateDouble(instance, beanData.findProperty(key), value);
+        }
+
+        void populateDouble(Object instance, PropertyData property, double value) {
+            var setter = property.setter;
+            try {
+                if (property.parameterType() == double.class) {
+                    setter.invokeExact(instance, value);
+                } else {
+                    populate(instance, property, value);
+                }
+            } catch (Throwable e) {
+                throw Utils.rethrow(e);
+            }
+        }
+
+        @Override
+        public void populateBoolean(Object instance, String key, boolean value) {
+            populateBoolean(instance, beanData.findProperty(key), value);
+        }
+
+        void populateBoolean(Object instance, PropertyData property, boolean value) {
+            var setter = property.setter;
+            try {
+                if (property.parameterType() == boolean.class) {
+                    setter.invokeExact(instance, value);
+                } else {
+                    populate(instance, property, value);
+                }
+            } catch (Throwable e) {
+                throw Utils.rethrow(e);
+            }
+        }
+    }
+
+    // a record so the lists can be recognized when an existing list is recycled
+    private record ListPopulater() implements ObjectBuilder.Populater<List<Object>> {
+        @Override
+        public void populate(List<Object> instance, String key, Object value) {
+            instance.add(value);
+        }
+    }
+
+    // The array used to build a record stores the values of the components of reference type,
+    // the last element of the array is a long[] that stores the values of the primitive components
+    // (doubles and floats are stored as their raw bits).
+    // slots[i] is the index of the i-th component in the long[] or -1 if the component is not primitive,
+    // factory creates the record from the array and the long[] and has the type (Object[], long[])Object
+    // the key plan contains the names of the components in the order of the declaration
+    private record RecordData(RecordComponent[] components, Map<String, Integer> indexMap, KeyPlan keyPlan, Constructor<?> constructor,
+                              int[] slots, int slotCount, MethodHandle factory) {
+        int findIndex(String key) {
+            var index = indexMap.get(key);
+            if (index == null) {
+                throw new IllegalStateException("unknown key " + key + " for record " + constructor.getDeclaringClass().getName());
+            }
+            return index;
+        }
+
+        Object[] newArray() {
+            var array = new Object[components.length + 1];
+            if (slotCount != 0) {
+                array[components.length] = new long[slotCount];
+            }
+            return array;
+        }
+
+        Object newRecord(Object[] array) {
+            try {
+                return factory.invokeExact(array, (long[]) array[components.length]);
+            } catch (Throwable e) {
+                throw Utils.rethrow(e);
+            }
+        }
+    }
+
+    private static final MethodHandle LONG_BITS_TO_DOUBLE;
+    static {
+        try {
+            LONG_BITS_TO_DOUBLE = MethodHandles.lookup().findStatic(Double.class, "longBitsToDouble", methodType(double.class, long.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static final ClassValue<RecordData> RECORD_DATA_CLASS_VALUE = new ClassValue<>() {
+        @Override
+        protected RecordData computeValue(Class<?> type) {
+            var components = type.getRecordComponents();
+            var names = Arrays.stream(components).map(RecordComponent::getName).toList();
+            var map =
+                    IntStream.range(0, components.length)
+                            .boxed() // to get a int stream
+                            .collect(Collectors.toMap(names::get, Function.identity()));
+            var keyPlan = new KeyPlan(names);
+            var constructor = Utils.canonicalConstructor(type, components);
+            var slots = new int[components.length];
+            var slotCount = 0;
+            var target = Utils.unreflectConstructor(constructor);
+            var reorder = new int[components.length];
+            for (var i = 0; i < components.length; i++) {
+                var componentType = components[i].getType();
+                MethodHandle filter;
+                if (componentType.isPrimitive()) {
+                    slots[i] = slotCount;
+                    reorder[i] = 1;
+                    filter = MethodHandles.insertArguments(MethodHandles.arrayElementGetter(long[].class), 1, slotCount++);
+                    if (componentType == double.class || componentType == float.class) {
+                        filter = MethodHandles.filterReturnValue(filter, LONG_BITS_TO_DOUBLE);
+                    }
+                } else {
+                    slots[i] = -1;
+                    filter = MethodHandles.insertArguments(MethodHandles.arrayElementGetter(Object[].class), 1, i);
+                }
+                filter = MethodHandles.explicitCastArguments(filter, filter.type().changeReturnType(componentType));
+                target = MethodHandles.filterArguments(target, i, filter);
+            }
+            var factory = MethodHandles.permuteArguments(target, methodType(type, Object[].class, long[].class), reorder)
+                    .asType(methodType(Object.class, Object[].class, long[].class));
+            return new RecordData(components, map, keyPlan, constructor, slots, slotCount, factory);
         }
     };
 
+    // the primitive values are stored in the long[] of the array without being boxed
+    private record RecordPopulater(RecordData recordData) implements ObjectBuilder.Populater<Object[]> {
+        private long[] primitives(Object[] array) {
+            return (long[]) array[recordData.components.length];
+        }
+
+        @Override
+        public void populate(Object[] array, String key, Object value) {
+            var index = recordData.findIndex(key);
+            var slot = recordData.slots[index];
+            if (slot == -1) {
+                array[index] = value;
+                return;
+            }
+            var componentType = recordData.components[index].getType();
+            primitives(array)[slot] =
+                    componentType == boolean.class ? ((Boolean) value ? 1 : 0) :
+                    componentType == double.class || componentType == float.class ? Double.doubleToRawLongBits(((Number) value).doubleValue()) :
+                    componentType == long.class ? (value instanceof Integer integer ? integer : (Long) value) :
+                    componentType == int.class ? (Integer) value :
+                    componentType == short.class ? (Short) value :
+                    componentType == byte.class ? (Byte) value :
+                    (Character) value;
+        }
+
+        @Override
+        public void populateInt(Object[] array, String key, int value) {
+            var index = recordData.findIndex(key);
+            var slot = recordData.slots[index];
+            var componentType = recordData.components[index].getType();
+            if (componentType == int.class || componentType == long.class) {
+                primitives(array)[slot] = value;
+            } else if (componentType == double.class || componentType == float.class) {
+                primitives(array)[slot] = Double.doubleToRawLongBits(value);
+            } else {
+                populate(array, key, value);
+            }
+        }
+
+        @Override
+        public void populateLong(Object[] array, String key, long value) {
+            var index = recordData.findIndex(key);
+            var slot = recordData.slots[index];
+            var componentType = recordData.components[index].getType();
+            if (componentType == long.class) {
+                primitives(array)[slot] = value;
+            } else if (componentType == double.class || componentType == float.class) {
+                primitives(array)[slot] = Double.doubleToRawLongBits(value);
+            } else {
+                populate(array, key, value);
+            }
+        }
+
+        @Override
+        public void populateDouble(Object[] array, String key, double value) {
+            var index = recordData.findIndex(key);
+            var slot = recordData.slots[index];
+            var componentType = recordData.components[index].getType();
+            if (componentType == double.class || componentType == float.class) {
+                primitives(array)[slot] = Double.doubleToRawLongBits(value);
+            } else {
+                populate(array, key, value);
+            }
+        }
+
+        @Override
+        public void populateBoolean(Object[] array, String key, boolean value) {
+            var index = recordData.findIndex(key);
+            var slot = recordData.slots[index];
+            if (recordData.components[index].getType() == boolean.class) {
+                primitives(array)[slot] = value ? 1 : 0;
+            } else {
+                populate(array, key, value);
+            }
+        }
+    }
+
+    /**
+     * Creates the instance of a type from the values of a JSON object or array.
+     *
+     * @param typeProvider returns the type of the value of a key
+     * @param supplier creates a mutable instance
+     * @param populater populates the mutable instance with the value of a key
+     * @param finisher transforms the mutable instance to the resulting object
+     * @param keyFilter returns true if the key is a key of the object,
+     *                  the values of the other keys are skipped if the reader ignores the unknown keys
+     * @param <T> the type of the mutable instance
+     *
+     * @see JSONReader#setIgnoreUnknownKeys(boolean)
+     */
     public record ObjectBuilder<T>(Function<? super String, ? extends Type> typeProvider,
                                    Supplier<? extends T> supplier,
                                    Populater<? super T> populater,
-                                   Function<? super T, ?> finisher) {
+                                   Function<? super T, ?> finisher,
+                                   Predicate<? super String> keyFilter) {
+        /**
+         * Creates an object builder that accepts all keys.
+         */
+        public ObjectBuilder(Function<? super String, ? extends Type> typeProvider,
+                             Supplier<? extends T> supplier,
+                             Populater<? super T> populater,
+                             Function<? super T, ?> finisher) {
+            this(typeProvider, supplier, populater, finisher, key -> true);
+        }
+
+        /**
+         * Populates an instance with the value associated to a key.
+         * The methods {@code populateInt}, {@code populateLong}, {@code populateDouble} and
+         * {@code populateBoolean} are called for the primitive values, by default they box the value
+         * and call {@link #populate(Object, String, Object)}.
+         *
+         * @param <T> the type of the instance
+         */
         public interface Populater<T> {
             void populate(T instance, String key, Object value);
+
+            default void populateInt(T instance, String key, int value) {
+                populate(instance, key, value);
+            }
+
+            default void populateLong(T instance, String key, long value) {
+                populate(instance, key, value);
+            }
+
+            default void populateDouble(T instance, String key, double value) {
+                populate(instance, key, value);
+            }
+
+            default void populateBoolean(T instance, String key, boolean value) {
+                populate(instance, key, value);
+            }
         }
 
         public static ObjectBuilder<Object> bean(Class<?> beanClass) {
@@ -51,13 +432,11 @@ public class JSONReader {
             var beanData = BEAN_DATA_CLASS_VALUE.get(beanClass);
             var constructor = beanData.constructor;
             return new ObjectBuilder<>(
-                    key -> beanData.findProperty(key).getWriteMethod().getGenericParameterTypes()[0],
+                    key -> beanData.findProperty(key).type,
                     () -> Utils.newInstance(constructor),
-                    (instance, key, value) -> {
-                        var setter = beanData.findProperty(key).getWriteMethod();
-                        Utils.invokeMethod(instance, setter, value);
-                    },
-                    Function.identity()
+                    new BeanPopulater(beanData),
+                    Function.identity(),
+                    beanData.propertyMap::containsKey
             );
         }
 
@@ -66,24 +445,22 @@ public class JSONReader {
             return new ObjectBuilder<List<Object>>(
                     key -> componentType,
                     ArrayList::new,
-                    (instance, key, value) -> instance.add(value),
+                    new ListPopulater(),
                     List::copyOf
             );
         }
 
         // Idée: Créer un tableau d'objet, remplir le tableau d'objet avec les valeurs représentant les champs du record, et à la fin créer le record
         public static ObjectBuilder<Object[]> record(Class<?> recordClass) {
-            var components = recordClass.getRecordComponents();
-            var map =
-                    IntStream.range(0, components.length)
-                            .boxed() // to get a int stream
-                            .collect(Collectors.toMap(i -> components[i].getName(), Function.identity()));
-            var recordConstructor = Utils.canonicalConstructor(recordClass, components);
+            Objects.requireNonNull(recordClass);
+            var recordData = RECORD_DATA_CLASS_VALUE.get(recordClass);
+            var components = recordData.components;
             return new ObjectBuilder<Object[]>(
-                    key -> components[map.get(key)].getGenericType(),
-                    () -> new Object[components.length],
-                    (array, key, value) -> array[map.get(key)] = value,
-                    array -> Utils.newInstance(recordConstructor, array)
+                    key -> components[recordData.findIndex(key)].getGenericType(),
+                    recordData::newArray,
+                    new RecordPopulater(recordData),
+                    recordData::newRecord,
+                    recordData.indexMap::containsKey
             );
         }
     }
@@ -94,37 +471,379 @@ public class JSONReader {
         Optional<ObjectBuilder<?>> match(Type type);
     }
 
-    private final ArrayList<TypeMatcher> typeMatchers = new ArrayList<>();
+    private final List<TypeMatcher> typeMatchers;
+
+    // the object builder of a type is resolved only once, the cache is cleared when a type matcher is added
+    private final ConcurrentHashMap<Type, ObjectBuilder<?>> objectBuilderCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Type, ObjectBuilder<?>> recyclableObjectBuilderCache = new ConcurrentHashMap<>();
+
+    private boolean ignoreUnknownKeys;
+
+    // true if the reader was created by a builder, the configuration can not change
+    private final boolean frozen;
+
+    // the visitors are pooled, a parse takes the visitor of the slot of the current thread and gives it back at the end,
+    // a concurrent or a reentrant parse that finds the slot empty uses a new visitor
+    private final SlotPool<ReaderVisitor> visitorPool = new SlotPool<>();
+
+    /**
+     * Creates a mutable reader, the type matchers and the configuration should not change
+     * once the reader is shared between threads.
+     *
+     * @see #builder()
+     */
+    public JSONReader() {
+        this(new ArrayList<>(), false, false);
+    }
+
+    private JSONReader(List<TypeMatcher> typeMatchers, boolean ignoreUnknownKeys, boolean frozen) {
+        this.typeMatchers = typeMatchers;
+        this.ignoreUnknownKeys = ignoreUnknownKeys;
+        this.frozen = frozen;
+    }
+
+    /**
+     * Returns a builder of a frozen reader.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A builder of a frozen {@link JSONReader}, the type matchers and the configuration
+     * of a frozen reader can not change, so the reader can be shared between threads.
+     *
+     * <pre>
+     *   var reader = JSONReader.builder()
+     *       .addTypeMatcher(type -> ...)
+     *       .ignoreUnknownKeys(true)
+     *       .build();
+     * </pre>
+     */
+    public static final class Builder {
+        private final ArrayList<TypeMatcher> typeMatchers = new ArrayList<>();
+        private boolean ignoreUnknownKeys;
+
+        private Builder() {}
+
+        /**
+         * Adds a type matcher, like {@link JSONReader#addTypeMatcher(TypeMatcher)}
+         * the last added type matcher is tried first.
+         *
+         * @param typeMatcher a type matcher
+         * @return this builder
+         */
+        public Builder addTypeMatcher(TypeMatcher typeMatcher) {
+            Objects.requireNonNull(typeMatcher);
+            typeMatchers.add(typeMatcher);
+            return this;
+        }
+
+        /**
+         * Configures the reader to ignore the unknown keys.
+         *
+         * @param ignoreUnknownKeys true if the unknown keys are ignored
+         * @return this builder
+         * @see JSONReader#setIgnoreUnknownKeys(boolean)
+         */
+        public Builder ignoreUnknownKeys(boolean ignoreUnknownKeys) {
+            this.ignoreUnknownKeys = ignoreUnknownKeys;
+            return this;
+        }
+
+        /**
+         * Creates a frozen reader, the builder can be used to create other readers.
+         *
+         * @return a new frozen reader
+         */
+        public JSONReader build() {
+            return new JSONReader(List.copyOf(typeMatchers), ignoreUnknownKeys, true);
+        }
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new IllegalStateException("the reader is frozen");
+        }
+    }
+
+    /**
+     * Configures the reader to ignore the keys unknown to the {@link ObjectBuilder object builders}
+     * (see {@link ObjectBuilder#keyFilter()}) instead of failing,
+     * the value of an unknown key is skipped by the parser without being decoded.
+     *
+     * @param ignoreUnknownKeys true if the unknown keys are ignored
+     * @throws IllegalStateException if the reader is frozen
+     */
+    public void setIgnoreUnknownKeys(boolean ignoreUnknownKeys) {
+        checkNotFrozen();
+        this.ignoreUnknownKeys = ignoreUnknownKeys;
+    }
 
     public void addTypeMatcher(TypeMatcher typeMatcher) {
         Objects.requireNonNull(typeMatcher);
+        checkNotFrozen();
         typeMatchers.add(typeMatcher);
+        objectBuilderCache.clear();
+        recyclableObjectBuilderCache.clear();
     }
 
     private ObjectBuilder<?> findObjectBuilder(Type type) {
+        return objectBuilderCache.computeIfAbsent(type, this::resolveObjectBuilder);
+    }
+
+    // parseInto() only recycles the beans of ObjectBuilder.bean(), so the codec of a bean is not used
+    private ObjectBuilder<?> findRecyclableObjectBuilder(Type type) {
+        return recyclableObjectBuilderCache.computeIfAbsent(type, this::resolveRecyclableObjectBuilder);
+    }
+
+    private Optional<ObjectBuilder<?>> matchObjectBuilder(Type type) {
         return typeMatchers.reversed()
                 .stream()
                 .flatMap(typeMatcher -> typeMatcher.match(type).stream())
 //             .filter( typeMatcher -> typeMatcher.match(type).isPresent())
 //             .map( typeMatcher -> typeMatcher.match(type).orElseThrow())
-                .findFirst()
-                .orElseGet(() -> ObjectBuilder.bean(Utils.erase(type)));
+                .findFirst();
+    }
+
+    private ObjectBuilder<?> resolveObjectBuilder(Type type) {
+        return matchObjectBuilder(type)
+                .orElseGet(() -> {
+                    var beanClass = Utils.erase(type);
+                    return JSONCodecs.find(beanClass)
+                            .<ObjectBuilder<?>>map(JSONCodec::objectBuilder)
+                            .orElseGet(() -> ObjectBuilder.bean(beanClass));
+                });
+    }
+
+    private ObjectBuilder<?> resolveRecyclableObjectBuilder(Type type) {
+        return matchObjectBuilder(type)
+                .orElseGet(() -> {
+                    var beanClass = Utils.erase(type);
+                    return beanClass.isRecord() ? findObjectBuilder(type) : ObjectBuilder.bean(beanClass);
+                });
     }
 
-    private record Context<T>(ObjectBuilder<T> objectBuilder, T result) {
+    // a frame of the stack of a visitor, the frames are reused from one object to the next
+    private static final class Context {
+        private ObjectBuilder<Object> objectBuilder;
+        private Object result;
+        private KeyPlan keyPlan;
 
-        static <T> Context<T> createContext(ObjectBuilder<T> objectBuilder) {
+        // the state of an existing instance recycled by parseInto(),
+        // either a bean and a bit set of its populated properties or a list and the index of its next element
+        private boolean recycled;
+        private boolean created;  // a new instance, its properties that are not in the text keep their initial value
+        private BeanPopulater recycledBean;
+        private long[] populated = new long[1];
+        private List<Object> recycledList;
+        private int index;
+
+        @SuppressWarnings("unchecked")
+        void init(ObjectBuilder<?> objectBuilder) {
             var instance = objectBuilder.supplier.get();
-            return new Context<>(objectBuilder, instance);
+            this.objectBuilder = (ObjectBuilder<Object>) objectBuilder;
+            this.result = instance;
+            this.keyPlan = keyPlan(objectBuilder);
+        }
+
+        /**
+         * Reuses an existing instance instead of creating a new one,
+         * only a bean of the class of the object builder or an ArrayList can be recycled.
+         *
+         * @return true if the instance is recycled
+         */
+        @SuppressWarnings("unchecked")
+        boolean recycle(ObjectBuilder<?> objectBuilder, Object instance) {
+            if (instance == null) {
+                return false;
+            }
+            switch (objectBuilder.populater) {
+                case BeanPopulater beanPopulater when beanPopulater.beanData.constructor.getDeclaringClass() == instance.getClass() -> {
+                    var length = (beanPopulater.beanData.properties.length + 63) >>> 6;
+                    if (populated.length < length) {
+                        populated = new long[length];
+                    } else {
+                        Arrays.fill(populated, 0, length, 0L);
+                    }
+                    recycledBean = beanPopulater;
+                }
+                case ListPopulater listPopulater when instance instanceof ArrayList<?> list -> {
+                    recycledList = (List<Object>) list;
+                    index = 0;
+                }
+                default -> {
+                    return false;
+                }
+            }
+            this.objectBuilder = (ObjectBuilder<Object>) objectBuilder;
+            this.result = instance;
+            this.keyPlan = keyPlan(objectBuilder);
+            this.recycled = true;
+            return true;
+        }
+
+        /**
+         * Creates a new instance that will be recycled by the next parse,
+         * like {@link #recycle(ObjectBuilder, Object)} but the properties that are not in the text are not reset.
+         *
+         * @return true if the object builder creates instances that can be recycled
+         */
+        boolean recycleNew(ObjectBuilder<?> objectBuilder) {
+            var instance = switch (objectBuilder.populater) {
+                case BeanPopulater beanPopulater -> objectBuilder.supplier.get();
+                case ListPopulater listPopulater -> new ArrayList<>();
+                default -> null;
+            };
+            if (!recycle(objectBuilder, instance)) {
+                return false;
+            }
+            created = true;
+            return true;
+        }
+
+        // only the object builders created by bean() and record() know their keys
+        private static KeyPlan keyPlan(ObjectBuilder<?> objectBuilder) {
+            return switch (objectBuilder.populater) {
+                case BeanPopulater(BeanData beanData) -> beanData.keyPlan;
+                case RecordPopulater(RecordData recordData) -> recordData.keyPlan;
+                default -> null;
+            };
+        }
+
+        // the existing value of a key that can be recycled, the value of a property or the element of a list, or null
+        Object recycledValue(String key) {
+            if (recycledBean != null) {
+                var property = recycledBean.beanData.propertyMap.get(key);
+                return property == null || property.getter == null ? null : property.get(result);
+            }
+            return index < recycledList.size() ? recycledList.get(index) : null;
+        }
+
+        private void add(Object value) {
+            if (index < recycledList.size()) {
+                recycledList.set(index, value);
+            } else {
+                recycledList.add(value);
+            }
+            index++;
+        }
+
+        private PropertyData populatedProperty(String key) {
+            var property = recycledBean.beanData.findProperty(key);
+            populated[property.index >>> 6] |= 1L << property.index;
+            return property;
         }
 
         void populate(String key, Object value) {
+            if (recycled) {
+                if (recycledList != null) {
+                    add(value);
+                } else {
+                    recycledBean.populate(result, populatedProperty(key), value);
+                }
+                return;
+            }
             objectBuilder.populater.populate(result, key, value);
         }
 
+        void populateInt(String key, int value) {
+            if (recycled) {
+                if (recycledList != null) {
+                    add(value);
+                } else {
+                    recycledBean.populateInt(result, populatedProperty(key), value);
+                }
+                return;
+            }
+            objectBuilder.populater.populateInt(result, key, value);
+        }
+
+        void populateLong(String key, long value) {
+            if (recycled) {
+                if (recycledList != null) {
+                    add(value);
+                } else {
+                    recycledBean.populateLong(result, populatedProperty(key), value);
+                }
+                return;
+            }
+            objectBuilder.populater.populateLong(result, key, value);
+        }
+
+        void populateDouble(String key, double value) {
+            if (recycled) {
+                if (recycledList != null) {
+                    add(value);
+                } else {
+                    recycledBean.populateDouble(result, populatedProperty(key), value);
+                }
+                return;
+            }
+            objectBuilder.populater.populateDouble(result, key, value);
+        }
+
+        void populateBoolean(String key, boolean value) {
+            if (recycled) {
+                if (recycledList != null) {
+                    add(value);
+                } else {
+                    recycledBean.populateBoolean(result, populatedProperty(key), value);
+                }
+                return;
+            }
+            objectBuilder.populater.populateBoolean(result, key, value);
+        }
+
         Object finish() {
-            return objectBuilder.finisher.apply(result);
+            var instance = result;
+            if (recycledBean != null) {
+                // the properties of an existing instance that are not in the text are reset to their default value
+                if (!created) {
+                    for (var property : recycledBean.beanData.properties) {
+                        if ((populated[property.index >>> 6] & (1L << property.index)) == 0) {
+                            property.reset(instance);
+                        }
+                    }
+                }
+                clear();
+                return instance;
+            }
+            if (recycledList != null) {
+                while (recycledList.size() > index) {
+                    recycledList.removeLast();
+                }
+                clear();
+                return instance;
+            }
+            clear();
+            return objectBuilder.finisher.apply(instance);
+        }
+
+        void clear() {
+            result = null;
+            recycled = false;
+            created = false;
+            recycledBean = null;
+            recycledList = null;
+        }
+    }
+
+    private ReaderVisitor acquireVisitor(Type expectedType) {
+        var visitor = visitorPool.acquire();
+        if (visitor == null) {
+            visitor = new ReaderVisitor(expectedType);
+        } else {
+            visitor.reset(expectedType);
         }
+        return visitor;
+    }
+
+    private void releaseVisitor(ReaderVisitor visitor) {
+        visitor.clear();
+        visitorPool.release(visitor);
     }
 
     public <T> T parseJSON(String text, Class<T> expectedClass) {
@@ -138,7 +857,7 @@ public class JSONReader {
         return parsedObject;
     }
 
-    private <T> Type giveMeTheTypeRef(TypeReference<T> typeReference) {
+    <T> Type giveMeTheTypeRef(TypeReference<T> typeReference) {
         var typeReferenceType = Arrays.stream(typeReference.getClass().getGenericInterfaces())
                 .flatMap(t -> t instanceof ParameterizedType parameterizedType ? Stream.of(parameterizedType) : null)
                 .filter(t -> t.getRawType() == TypeReference.class)
@@ -147,56 +866,615 @@ public class JSONReader {
         return typeReferenceType.getActualTypeArguments()[0];
     }
 
+    /**
+     * Decodes a value using the object builders of this reader with a parser that drives the visitor,
+     * used by {@link BinaryReader} to decode another format than JSON.
+     *
+     * @param expectedType the type of the decoded object
+     * @param parser a parser that calls the methods of the visitor
+     * @return the decoded object
+     */
+    Object parse(Type expectedType, Consumer<? super ToyJSONParser.JSONVisitor> parser) {
+        var visitor = acquireVisitor(expectedType);
+        try {
+            parser.accept(visitor);
+            return visitor.result;
+        } finally {
+            releaseVisitor(visitor);
+        }
+    }
+
     public Object parseJSON(String text, Type expectedType) {
         Objects.requireNonNull(text);
         Objects.requireNonNull(expectedType);
+        var visitor = acquireVisitor(expectedType);
+        try {
+            ToyJSONParser.parse(text, visitor);
+            return visitor.result;
+        } finally {
+            releaseVisitor(visitor);
+        }
+    }
+
+    public <T> T readJSON(Reader reader, Class<T> expectedClass) throws IOException {
+        return expectedClass.cast(readJSON(reader, (Type) expectedClass));
+    }
+
+    /**
+     * Decodes a JSON text read incrementally from a reader,
+     * the whole text is never stored in memory.
+     * The reader is not closed.
+     *
+     * @param reader a reader providing a JSON text
+     * @param expectedType the type of the decoded object
+     * @return the decoded object
+     * @throws IOException if an I/O error occurs
+     */
+    public Object readJSON(Reader reader, Type expectedType) throws IOException {
+        Objects.requireNonNull(reader);
+        Objects.requireNonNull(expectedType);
+        var visitor = acquireVisitor(expectedType);
+        try {
+            ToyJSONParser.parse(reader, visitor);
+            return visitor.result;
+        } finally {
+            releaseVisitor(visitor);
+        }
+    }
+
+    public <T> T readJSON(InputStream input, Class<T> expectedClass) throws IOException {
+        return expectedClass.cast(readJSON(input, (Type) expectedClass));
+    }
+
+    /**
+     * Decodes a JSON text encoded in UTF-8 read incrementally from an input stream,
+     * the whole text is never stored in memory.
+     * The input stream is not closed.
+     *
+     * @param input an input stream providing a JSON text
+     * @param expectedType the type of the decoded object
+     * @return the decoded object
+     * @throws IOException if an I/O error occurs
+     */
+    public Object readJSON(InputStream input, Type expectedType) throws IOException {
+        Objects.requireNonNull(input);
+        Objects.requireNonNull(expectedType);
+        var visitor = acquireVisitor(expectedType);
+        try {
+            ToyJSONParser.parse(input, visitor);
+            return visitor.result;
+        } finally {
+            releaseVisitor(visitor);
+        }
+    }
+
+    public <T> T parseUTF8(byte[] bytes, Class<T> expectedClass) {
+        return expectedClass.cast(parseUTF8(bytes, (Type) expectedClass));
+    }
+
+    /**
+     * Decodes a JSON text encoded in UTF-8 without decoding the bytes to a String first.
+     *
+     * @param bytes a JSON text encoded in UTF-8
+     * @param expectedType the type of the decoded object
+     * @return the decoded object
+     */
+    public Object parseUTF8(byte[] bytes, Type expectedType) {
+        Objects.requireNonNull(bytes);
+        Objects.requireNonNull(expectedType);
+        var visitor = acquireVisitor(expectedType);
+        try {
+            ToyJSONParser.parse(bytes, visitor);
+            return visitor.result;
+        } finally {
+            releaseVisitor(visitor);
+        }
+    }
+
+    public <T> T parseUTF8(ByteBuffer buffer, Class<T> expectedClass) {
+        return expectedClass.cast(parseUTF8(buffer, (Type) expectedClass));
+    }
+
+    /**
+     * Decodes a JSON text encoded in UTF-8 without decoding the bytes to a String first.
+     * The bytes between the position and the limit of the buffer are decoded,
+     * the position of the buffer is not modified.
+     *
+     * @param buffer a JSON text encoded in UTF-8
+     * @param expectedType the type of the decoded object
+     * @return the decoded object
+     */
+    public Object parseUTF8(ByteBuffer buffer, Type expectedType) {
+        Objects.requireNonNull(buffer);
+        Objects.requireNonNull(expectedType);
+        var visitor = acquireVisitor(expectedType);
+        try {
+            ToyJSONParser.parse(buffer, visitor);
+            return visitor.result;
+        } finally {
+            releaseVisitor(visitor);
+        }
+    }
+
+    public <T> T parseInto(String text, T target) {
+        return parseInto(text, target.getClass(), target);
+    }
+
+    public <T> T parseInto(String text, TypeReference<T> typeReference, T target) {
+        return parseInto(text, giveMeTheTypeRef(typeReference), target);
+    }
+
+    /**
+     * Decodes a JSON text into an existing instance instead of creating a new one,
+     * so the same instances can be recycled from one text to the next.
+     *
+     * The target is a bean or an {@link ArrayList} and its object builder is the one
+     * of {@link ObjectBuilder#bean(Class)} or {@link ObjectBuilder#list(Type)},
+     * the {@link JSONCodec codec} of a bean is not used because it always creates a new instance.
+     * The properties of a bean that are not in the text are reset to their default value and
+     * the elements of a list that are not in the text are removed.
+     * The nested beans and lists already referenced by a property or at the same index of a list
+     * are recycled the same way, the nested beans and lists that are created are mutable
+     * so they are recycled by the next call, the other values are created by the object builders.
+     * The properties of a created bean that are not in the text keep their initial value, like with parseJSON().
+     *
+     * @param text a JSON text
+     * @param expectedType the type of the target
+     * @param target the instance to populate
+     * @return the target
+     * @param <T> the type of the target
+     * @throws IllegalArgumentException if the target can not be recycled
+     */
+    public <T> T parseInto(String text, Type expectedType, T target) {
+        Objects.requireNonNull(text);
+        Objects.requireNonNull(expectedType);
+        Objects.requireNonNull(target);
+        var visitor = acquireVisitor(expectedType);
+        visitor.target = target;
+        try {
+            ToyJSONParser.parse(text, visitor);
+            return target;
+        } finally {
+            releaseVisitor(visitor);
+        }
+    }
+
+    public <T> T parseInto(byte[] bytes, T target) {
+        return parseInto(bytes, target.getClass(), target);
+    }
 
-        var stack = new ArrayDeque<Context<?>>(); // anonymous class below can capture this variable (all local variables by the way)
-        var visitor = new ToyJSONParser.JSONVisitor() {
-            private BeanData beanData;
-            private Object result;
+    public <T> T parseInto(byte[] bytes, TypeReference<T> typeReference, T target) {
+        return parseInto(bytes, giveMeTheTypeRef(typeReference), target);
+    }
 
-            @Override
-            public void value(String key, Object value) {
-                var currentContext = stack.peek();
-//                var setter = Objects.requireNonNull(currentContext).beanData.findProperty(key).getWriteMethod();
-//                Utils.invokeMethod(currentContext.result, setter, value);
-                assert currentContext != null;
-                currentContext.populate(key, value);
+    /**
+     * Decodes a JSON text encoded in UTF-8 into an existing instance.
+     *
+     * @param bytes a JSON text encoded in UTF-8
+     * @param expectedType the type of the target
+     * @param target the instance to populate
+     * @return the target
+     * @param <T> the type of the target
+     * @throws IllegalArgumentException if the target can not be recycled
+     *
+     * @see #parseInto(String, Type, Object)
+     */
+    public <T> T parseInto(byte[] bytes, Type expectedType, T target) {
+        Objects.requireNonNull(bytes);
+        Objects.requireNonNull(expectedType);
+        Objects.requireNonNull(target);
+        var visitor = acquireVisitor(expectedType);
+        visitor.target = target;
+        try {
+            ToyJSONParser.parse(bytes, visitor);
+            return target;
+        } finally {
+            releaseVisitor(visitor);
+        }
+    }
+
+    /**
+     * A non-blocking decoder of a JSON text encoded in UTF-8 received by fragments,
+     * by example the fragments read by a selector loop.
+     * The fragments are parsed when they are {@link #feed(ByteBuffer) fed} without being stored,
+     * the decoded object is available when the end of the input is {@link #endOfInput() signaled}.
+     *
+     * A push decoder is not thread safe.
+     *
+     * @param <T> the type of the decoded object
+     * @see #pushDecoder(Class)
+     */
+    public final class PushDecoder<T> {
+        private final Function<Object, ? extends T> caster;
+        private final ReaderVisitor visitor;
+        private final ToyJSONParser.PushParser parser;
+
+        private PushDecoder(Type expectedType, Function<Object, ? extends T> caster) {
+            this.caster = caster;
+            this.visitor = new ReaderVisitor(expectedType);
+            this.parser = new ToyJSONParser.PushParser(visitor);
+        }
+
+        /**
+         * Parses the bytes between the position and the limit of a buffer,
+         * the position of the buffer is set to its limit.
+         *
+         * @param fragment a fragment of a JSON text encoded in UTF-8
+         * @throws IllegalStateException if the text is not valid
+         */
+        public void feed(ByteBuffer fragment) {
+            Objects.requireNonNull(fragment);
+            parser.feed(fragment);
+        }
+
+        /**
+         * Signals that all the fragments have been fed and returns the decoded object.
+         *
+         * @return the decoded object
+         * @throws IllegalStateException if the text is not complete
+         */
+        public T endOfInput() {
+            parser.endOfInput();
+            return caster.apply(visitor.result);
+        }
+    }
+
+    /**
+     * Creates a non-blocking decoder of a JSON text received by fragments.
+     *
+     * @param expectedClass the class of the decoded object
+     * @param <T> the type of the decoded object
+     * @return a new decoder
+     */
+    public <T> PushDecoder<T> pushDecoder(Class<T> expectedClass) {
+        Objects.requireNonNull(expectedClass);
+        return new PushDecoder<>(expectedClass, expectedClass::cast);
+    }
+
+    /**
+     * Creates a non-blocking decoder of a JSON text received by fragments.
+     *
+     * @param expectedType the type of the decoded object
+     * @return a new decoder
+     */
+    public PushDecoder<Object> pushDecoder(Type expectedType) {
+        Objects.requireNonNull(expectedType);
+        return new PushDecoder<>(expectedType, Function.identity());
+    }
+
+    /**
+     * Decodes a JSON text containing a huge top-level array using several threads.
+     * The boundaries of the elements are first found by a pass on the text that does not decode
+     * the elements, then the elements are decoded by chunks on a {@link ForkJoinPool},
+     * the common pool or the pool of the current thread if it's a fork/join worker.
+     *
+     * @param text a JSON text containing an array
+     * @param typeReference a reference to the type of the list
+     * @return an unmodifiable list of the decoded elements in the order of the text
+     * @param <T> the type of the elements
+     */
+    public <T> List<T> parallelParseJSON(String text, TypeReference<List<T>> typeReference) {
+        Objects.requireNonNull(text);
+        var listType = giveMeTheTypeRef(typeReference);
+        var input = text.toCharArray();
+        var separators = StructuralIndex.separators(input);
+        return parallelParse(separators, (from, to) -> {
+            var visitor = acquireVisitor(listType);
+            try {
+                ToyJSONParser.parseElements(input, separators, from, to, visitor);
+                return (List<?>) visitor.result;
+            } finally {
+                releaseVisitor(visitor);
             }
+        });
+    }
 
-            @Override
-            public void startObject(String key) {
-                var currentContext = stack.peek();
-                var type = currentContext == null ?
-                        expectedType : currentContext.objectBuilder.typeProvider.apply(key);
-                var objectBuilder = findObjectBuilder(type);
-                stack.push(Context.createContext(objectBuilder));
+    /**
+     * Decodes a JSON text encoded in UTF-8 containing a huge top-level array using several threads.
+     * The bytes are never decoded to a String first.
+     *
+     * @param bytes a JSON text encoded in UTF-8 containing an array
+     * @param typeReference a reference to the type of the list
+     * @return an unmodifiable list of the decoded elements in the order of the text
+     * @param <T> the type of the elements
+     *
+     * @see #parallelParseJSON(String, TypeReference)
+     */
+    public <T> List<T> parallelParseUTF8(byte[] bytes, TypeReference<List<T>> typeReference) {
+        Objects.requireNonNull(bytes);
+        var listType = giveMeTheTypeRef(typeReference);
+        var separators = StructuralIndex.separators(bytes);
+        return parallelParse(separators, (from, to) -> {
+            var visitor = acquireVisitor(listType);
+            try {
+                ToyJSONParser.parseElements(bytes, separators, from, to, visitor);
+                return (List<?>) visitor.result;
+            } finally {
+                releaseVisitor(visitor);
             }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ElementsParser {
+        List<?> parse(int from, int to);
+    }
+
+    // do not fork to decode less than that number of characters/bytes
+    private static final int PARALLEL_THRESHOLD = 64 * 1_024;
+
+    private static final class ParseElementsTask extends RecursiveAction {
+        private final int[] separators;
+        private final ElementsParser parser;
+        private final Object[] elements;
+        private final int from;
+        private final int to;
+
+        private ParseElementsTask(int[] separators, ElementsParser parser, Object[] elements, int from, int to) {
+            this.separators = separators;
+            this.parser = parser;
+            this.elements = elements;
+            this.from = from;
+            this.to = to;
+        }
 
-            @Override
-            public void endObject(String key) {
-                var previoustContext = stack.pop();
-                var result = previoustContext.finish();
-                if (stack.isEmpty())
-                    this.result = result;
-                else {
-                    var currentContext = stack.peek();
-                    currentContext.populate(key, result);
+        @Override
+        protected void compute() {
+            if (to - from <= 1 || separators[to] - separators[from] <= PARALLEL_THRESHOLD) {
+                var list = parser.parse(from, to);
+                if (list.size() != to - from) {
+                    throw new IllegalStateException("the list should contain " + (to - from) + " elements but contains " + list.size());
+                }
+                for (var i = 0; i < list.size(); i++) {
+                    elements[from + i] = list.get(i);
                 }
+                return;
+            }
+            var middle = (from + to) >>> 1;
+            invokeAll(new ParseElementsTask(separators, parser, elements, from, middle),
+                      new ParseElementsTask(separators, parser, elements, middle, to));
+        }
+    }
+
+    private static <T> List<T> parallelParse(int[] separators, ElementsParser parser) {
+        var elements = new Object[separators.length - 1];
+        if (elements.length != 0) {
+            var task = new ParseElementsTask(separators, parser, elements, 0, elements.length);
+            if (ForkJoinTask.inForkJoinPool()) {
+                task.invoke();
+            } else {
+                ForkJoinPool.commonPool().invoke(task);
             }
+        }
+        @SuppressWarnings("unchecked")
+        var list = (List<T>) Collections.unmodifiableList(Arrays.asList(elements));
+        return list;
+    }
+
+    public <T> Stream<T> stream(Reader reader, Class<T> expectedClass) {
+        return stream(reader, (Type) expectedClass).map(expectedClass::cast);
+    }
+
+    /**
+     * Returns a lazy stream of the objects decoded from a JSON Lines text,
+     * each non blank line is a JSON text decoded as an object of the expected type.
+     * The lines are read when the stream is consumed, closing the stream closes the reader.
+     *
+     * @param reader a reader providing a JSON Lines text
+     * @param expectedType the type of the decoded objects
+     * @return a stream of the decoded objects
+     */
+    public Stream<Object> stream(Reader reader, Type expectedType) {
+        Objects.requireNonNull(reader);
+        Objects.requireNonNull(expectedType);
+        var bufferedReader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        return bufferedReader.lines()
+                .filter(line -> !line.isBlank())
+                .map(line -> parseJSON(line, expectedType))
+                .onClose(() -> {
+                    try {
+                        bufferedReader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    public <T> Stream<T> stream(Path path, Class<T> expectedClass) throws IOException {
+        return stream(path, (Type) expectedClass).map(expectedClass::cast);
+    }
 
-            @Override
-            public void startArray(String key) {
-                startObject(key);
+    // a file is mapped in regions of at most that size
+    private static final int MAX_REGION_SIZE = 1 << 30;
+
+    /**
+     * Returns a lazy stream of the objects decoded from a file containing a JSON Lines text encoded in UTF-8,
+     * each non blank line is a JSON text decoded as an object of the expected type.
+     * The file is mapped in memory and the stream can be split on line boundaries,
+     * so a parallel stream decodes the lines on several cores.
+     *
+     * @param path the path of the file
+     * @param expectedType the type of the decoded objects
+     * @return a stream of the decoded objects
+     * @throws IOException if an I/O error occurs while mapping the file
+     */
+    public Stream<Object> stream(Path path, Type expectedType) throws IOException {
+        Objects.requireNonNull(path);
+        Objects.requireNonNull(expectedType);
+        var regions = new ArrayList<ByteBuffer>();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+            var position = 0L;
+            while (position < size) {
+                var region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_REGION_SIZE, size - position));
+                if (position + region.limit() < size) {
+                    // cut the region after its last line
+                    var index = region.limit() - 1;
+                    while (index >= 0 && region.get(index) != '\n') {
+                        index--;
+                    }
+                    if (index < 0) {
+                        throw new IOException("line too long at byte offset " + position + " in " + path);
+                    }
+                    region.limit(index + 1);
+                }
+                regions.add(region);
+                position += region.limit();
             }
+        }
+        return regions.stream()
+                .map(region -> StreamSupport.stream(
+                        new JSONLinesSpliterator<>(region, buffer -> parseUTF8(buffer, expectedType)), false))
+                .reduce(Stream::concat)
+                .orElseGet(Stream::empty);
+    }
 
-            @Override
-            public void endArray(String key) {
-                endObject(key);
+    // the stack of a pooled visitor is not kept if it is bigger than that
+    private static final int MAX_POOLED_DEPTH = 64;
+
+    private final class ReaderVisitor implements ToyJSONParser.JSONVisitor {
+        private Type expectedType;
+        private Object target;  // the instance recycled by parseInto() or null
+        private Context[] stack = new Context[8];
+        private int depth;
+        private Object result;
+
+        private boolean ignoreUnknownKeys;
+
+        private ReaderVisitor(Type expectedType) {
+            reset(expectedType);
+        }
+
+        private void reset(Type expectedType) {
+            this.expectedType = expectedType;
+            this.ignoreUnknownKeys = JSONReader.this.ignoreUnknownKeys;
+        }
+
+        // a pooled visitor should not retain the decoded objects
+        private void clear() {
+            expectedType = null;
+            target = null;
+            result = null;
+            for (var i = 0; i < depth; i++) {
+                stack[i].clear();
+            }
+            depth = 0;
+            if (stack.length > MAX_POOLED_DEPTH) {
+                stack = new Context[8];
             }
-        };
-        ToyJSONParser.parse(text, visitor);
-        return visitor.result;
+        }
+
+        private Context peek() {
+            return depth == 0 ? null : stack[depth - 1];
+        }
+
+        @Override
+        public boolean skipKey(String key) {
+            if (!ignoreUnknownKeys) {
+                return false;
+            }
+            var currentContext = peek();
+            assert currentContext != null;
+            return !currentContext.objectBuilder.keyFilter.test(key);
+        }
+
+        @Override
+        public KeyPlan keyPlan() {
+            var currentContext = peek();
+            assert currentContext != null;
+            return currentContext.keyPlan;
+        }
+
+        @Override
+        public void value(String key, Object value) {
+            var currentContext = peek();
+//            var setter = Objects.requireNonNull(currentContext).beanData.findProperty(key).getWriteMethod();
+//            Utils.invokeMethod(currentContext.result, setter, value);
+            assert currentContext != null;
+            currentContext.populate(key, value);
+        }
+
+        @Override
+        public void valueInt(String key, int value) {
+            var currentContext = peek();
+            assert currentContext != null;
+            currentContext.populateInt(key, value);
+        }
+
+        @Override
+        public void valueLong(String key, long value) {
+            var currentContext = peek();
+            assert currentContext != null;
+            currentContext.populateLong(key, value);
+        }
+
+        @Override
+        public void valueDouble(String key, double value) {
+            var currentContext = peek();
+            assert currentContext != null;
+            currentContext.populateDouble(key, value);
+        }
+
+        @Override
+        public void valueBoolean(String key, boolean value) {
+            var currentContext = peek();
+            assert currentContext != null;
+            currentContext.populateBoolean(key, value);
+        }
+
+        @Override
+        public void startObject(String key) {
+            var currentContext = peek();
+            var type = currentContext == null ?
+                    expectedType : currentContext.objectBuilder.typeProvider.apply(key);
+            var objectBuilder = target != null ? findRecyclableObjectBuilder(type) : findObjectBuilder(type);
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth << 1);
+            }
+            var context = stack[depth];
+            if (context == null) {
+                context = stack[depth] = new Context();
+            }
+            if (target != null) {
+                if (currentContext == null) {
+                    if (!context.recycle(objectBuilder, target)) {
+                        throw new IllegalArgumentException("can not parse into an instance of " + target.getClass().getName());
+                    }
+                    depth++;
+                    return;
+                }
+                // the beans and the lists created inside a recycled instance are recyclable by the next parse
+                if (currentContext.recycled &&
+                        (context.recycle(objectBuilder, currentContext.recycledValue(key)) ||
+                         context.recycleNew(objectBuilder))) {
+                    depth++;
+                    return;
+                }
+            }
+            context.init(objectBuilder);
+            depth++;
+        }
+
+        @Override
+        public void endObject(String key) {
+            var previoustContext = stack[--depth];
+            var result = previoustContext.finish();
+            if (depth == 0)
+                this.result = result;
+            else {
+                var currentContext = stack[depth - 1];
+                currentContext.populate(key, result);
+            }
+        }
+
+        @Override
+        public void startArray(String key) {
+            startObject(key);
+        }
+
+        @Override
+        public void endArray(String key) {
+            endObject(key);
+        }
     }
 }
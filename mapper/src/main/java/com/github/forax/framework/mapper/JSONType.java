@@ -0,0 +1,17 @@
+package com.github.forax.framework.mapper;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.CLASS;
+
+/**
+ * Requests the generation at compile time of a {@link JSONCodec} for the annotated bean or record
+ * by the annotation processor of the module {@code mapper-processor}.
+ * A codec is also generated for a type that has a member annotated with {@link JSONProperty}.
+ */
+@Retention(CLASS)
+@Target(TYPE)
+public @interface JSONType {
+}
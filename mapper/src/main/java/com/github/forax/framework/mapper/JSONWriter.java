@@ -1,55 +1,531 @@
 package com.github.forax.framework.mapper;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static java.lang.invoke.MethodType.methodType;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 public final class JSONWriter {
   public String toJSON(Object o) {
-    return switch (o){
-      case String s -> '"' + s + '"';
-      case null -> "null";
-      case Boolean bool ->  bool.toString();
-      case Integer integer -> integer.toString();
-      case Double d -> d.toString();
-      default -> toJSONBean(o);
-      // default -> throw new IllegalArgumentException("Unknown object :(" + o);
-    };
+    var builder = new StringBuilder();
+    try {
+      toJSON(o, builder);
+    } catch (IOException e) {
+      throw new AssertionError(e);   // a StringBuilder never throws an IOException
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Writes the JSON text of an object into an {@link OutputStream} encoded in UTF-8.
+   * The keys of the objects are encoded only once per class and the text is written
+   * by blocks using a pooled buffer.
+   * The output stream is flushed but not closed.
+   *
+   * @param o the object to write
+   * @param output the output stream
+   * @throws IOException if an I/O error occurs
+   */
+  public void toJSON(Object o, OutputStream output) throws IOException {
+    Objects.requireNonNull(output);
+    var buffer = ByteOutput.acquire(output);
+    try {
+      toJSON(o, buffer);
+      buffer.finish();
+      buffer.flush();
+    } finally {
+      buffer.release();
+    }
+    output.flush();
+  }
+
+  /**
+   * Returns the JSON text of an object encoded in UTF-8.
+   * The text is written into a pooled buffer, so the only allocation is the returned array.
+   *
+   * @param o the object to write
+   * @return the JSON text of the object encoded in UTF-8.
+   */
+  public byte[] toJSONBytes(Object o) {
+    var buffer = ByteOutput.acquire(null);
+    try {
+      toJSON(o, buffer);
+      buffer.finish();
+      return buffer.toByteArray();
+    } catch (IOException e) {
+      throw new AssertionError(e);   // a ByteOutput without sink never throws an IOException
+    } finally {
+      buffer.release();
+    }
+  }
+
+  /**
+   * Writes the JSON text of an object directly into an {@link Appendable}
+   * without building intermediary strings.
+   *
+   * @param o the object to write
+   * @param out the appendable
+   * @throws IOException if an I/O error occurs
+   */
+  public void toJSON(Object o, Appendable out) throws IOException {
+    Objects.requireNonNull(out);
+    switch (o) {
+      case String s -> appendString(out, s);
+      case null -> out.append("null");
+      case Boolean bool -> out.append(bool.toString());
+      case Integer integer -> appendLong(out, integer);
+      case Long l -> appendLong(out, l);
+      case Double d -> appendDouble(out, d);
+      case Float f -> appendFloat(out, f);
+      case Short s -> appendLong(out, s);
+      case Byte b -> appendLong(out, b);
+      case Character c -> appendChar(out, c);
+      case Collection<?> collection -> toJSONCollection(collection, out);
+      case Map<?, ?> map -> toJSONMap(map, out);
+      case Object[] array -> toJSONArray(array, out);
+      case int[] array -> toJSONArray(array, out);
+      case long[] array -> toJSONArray(array, out);
+      case double[] array -> toJSONArray(array, out);
+      case float[] array -> toJSONArray(array, out);
+      case boolean[] array -> toJSONArray(array, out);
+      case short[] array -> toJSONArray(array, out);
+      case byte[] array -> toJSONArray(array, out);
+      case char[] array -> toJSONArray(array, out);
+      default -> toJSONBean(o, out);
+    }
+  }
+
+  /**
+   * Appends a string as a JSON string, with the quotes, the backslashes and the control characters escaped.
+   * If the output is a {@link ByteOutput}, the string is checked 8 bytes at a time, otherwise
+   * the runs of characters that do not need to be escaped are appended as is.
+   */
+  private static void appendString(Appendable out, String s) throws IOException {
+    if (out instanceof ByteOutput output) {
+      output.write('"');
+      output.writeEscaped(s);
+      output.write('"');
+      return;
+    }
+    out.append('"');
+    var start = 0;
+    for (var i = 0; i < s.length(); i++) {
+      var c = s.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\') {
+        continue;
+      }
+      out.append(s, start, i);
+      appendEscape(out, c);
+      start = i + 1;
+    }
+    out.append(s, start, s.length()).append('"');
+  }
+
+  // c is a quote, a backslash or a control character
+  private static void appendEscape(Appendable out, char c) throws IOException {
+    switch (c) {
+      case '"' -> out.append("\\\"");
+      case '\\' -> out.append("\\\\");
+      case '\b' -> out.append("\\b");
+      case '\f' -> out.append("\\f");
+      case '\n' -> out.append("\\n");
+      case '\r' -> out.append("\\r");
+      case '\t' -> out.append("\\t");
+      default -> out.append("\\u00").append(HEX_DIGITS.charAt(c >> 4)).append(HEX_DIGITS.charAt(c & 0xF));
+    }
+  }
+
+  // appends a character as a JSON string of one character without creating a string
+  private static void appendChar(Appendable out, char c) throws IOException {
+    out.append('"');
+    if (c >= 0x20 && c != '"' && c != '\\') {
+      out.append(c);
+      if (out instanceof ByteOutput output) {
+        output.finish();  // an unpaired surrogate is encoded as '?' like in a String
+      }
+    } else {
+      appendEscape(out, c);
+    }
+    out.append('"');
+  }
+
+  private static final String HEX_DIGITS = "0123456789abcdef";
+
+  // appends an integral value without creating a string if possible
+  private static void appendLong(Appendable out, long value) throws IOException {
+    switch (out) {
+      case ByteOutput output -> output.writeLong(value);
+      case StringBuilder builder -> builder.append(value);
+      default -> out.append(Long.toString(value));
+    }
+  }
+
+  // appends a double with the format of Double.toString() without creating a string if possible,
+  // StringBuilder.append(double) does not create a string since Java 19
+  private static void appendDouble(Appendable out, double value) throws IOException {
+    switch (out) {
+      case ByteOutput output -> output.writeDouble(value);
+      case StringBuilder builder -> builder.append(value);
+      default -> out.append(Double.toString(value));
+    }
+  }
+
+  private static void appendFloat(Appendable out, float value) throws IOException {
+    switch (out) {
+      case ByteOutput output -> output.writeFloat(value);
+      case StringBuilder builder -> builder.append(value);
+      default -> out.append(Float.toString(value));
+    }
+  }
+
+  private void toJSONCollection(Collection<?> collection, Appendable out) throws IOException {
+    out.append('[');
+    var separator = "";
+    for (var element : collection) {
+      out.append(separator);
+      toJSON(element, out);
+      separator = ", ";
+    }
+    out.append(']');
+  }
+
+  // the keys are written using String.valueOf()
+  private void toJSONMap(Map<?, ?> map, Appendable out) throws IOException {
+    out.append('{');
+    var separator = "";
+    for (var entry : map.entrySet()) {
+      out.append(separator);
+      appendString(out, String.valueOf(entry.getKey()));
+      out.append(": ");
+      toJSON(entry.getValue(), out);
+      separator = ", ";
+    }
+    out.append('}');
+  }
+
+  private void toJSONArray(Object[] array, Appendable out) throws IOException {
+    out.append('[');
+    for (var i = 0; i < array.length; i++) {
+      if (i != 0) {
+        out.append(", ");
+      }
+      toJSON(array[i], out);
+    }
+    out.append(']');
+  }
+
+  // the arrays of primitive values are written without boxing the values
+  private static void toJSONArray(int[] array, Appendable out) throws IOException {
+    out.append('[');
+    for (var i = 0; i < array.length; i++) {
+      if (i != 0) {
+        out.append(", ");
+      }
+      appendLong(out, array[i]);
+    }
+    out.append(']');
+  }
+
+  private static void toJSONArray(long[] array, Appendable out) throws IOException {
+    out.append('[');
+    for (var i = 0; i < array.length; i++) {
+      if (i != 0) {
+        out.append(", ");
+      }
+      appendLong(out, array[i]);
+    }
+    out.append(']');
+  }
+
+  private static void toJSONArray(double[] array, Appendable out) throws IOException {
+    out.append('[');
+    for (var i = 0; i < array.length; i++) {
+      if (i != 0) {
+        out.append(", ");
+      }
+      appendDouble(out, array[i]);
+    }
+    out.append(']');
+  }
+
+  private static void toJSONArray(float[] array, Appendable out) throws IOException {
+    out.append('[');
+    for (var i = 0; i < array.length; i++) {
+      if (i != 0) {
+        out.append(", ");
+      }
+      appendFloat(out, array[i]);
+    }
+    out.append(']');
+  }
+
+  private static void toJSONArray(boolean[] array, Appendable out) throws IOException {
+    out.append('[');
+    for (var i = 0; i < array.length; i++) {
+      if (i != 0) {
+        out.append(", ");
+      }
+      out.append(array[i] ? "true" : "false");
+    }
+    out.append(']');
+  }
+
+  private static void toJSONArray(short[] array, Appendable out) throws IOException {
+    out.append('[');
+    for (var i = 0; i < array.length; i++) {
+      if (i != 0) {
+        out.append(", ");
+      }
+      appendLong(out, array[i]);
+    }
+    out.append(']');
+  }
+
+  private static void toJSONArray(byte[] array, Appendable out) throws IOException {
+    out.append('[');
+    for (var i = 0; i < array.length; i++) {
+      if (i != 0) {
+        out.append(", ");
+      }
+      appendLong(out, array[i]);
+    }
+    out.append(']');
+  }
 
+  // a char[] is written as an array of strings of one character, like a Character[]
+  private static void toJSONArray(char[] array, Appendable out) throws IOException {
+    out.append('[');
+    for (var i = 0; i < array.length; i++) {
+      if (i != 0) {
+        out.append(", ");
+      }
+      appendChar(out, array[i]);
+    }
+    out.append(']');
   }
 
   @FunctionalInterface
-  private interface Generator {
-    String generate(JSONWriter writer, Object bean);
+  interface Generator {
+    void generate(JSONWriter writer, Object bean, Appendable out) throws IOException;
+  }
+
+  // also used by BinaryWriter, so both formats use the same keys
+  record Property(String key, Method getter) {}
+
+  static List<Property> properties(Class<?> type) {
+    if (type.isRecord()) {
+      return recordProperties(type);
+    }
+    var beanInfo = Utils.beanInfo(type);
+    return Arrays
+        .stream(beanInfo.getPropertyDescriptors())
+        .filter(prop -> !prop.getName().equals("class"))
+        .map(prop -> {
+          var readMethod = prop.getReadMethod();
+          var annotation = readMethod.getAnnotation(JSONProperty.class);
+          var propertyName = annotation == null
+                  ? prop.getName()
+                  : annotation.value();
+          return new Property(propertyName, readMethod);
+        })
+        .toList();
   }
 
-  private static final ClassValue<List<Generator>> CACHE = new ClassValue<>() {
+  // the components of a record in the order of the declaration
+  private static List<Property> recordProperties(Class<?> type) {
+    return Arrays
+        .stream(type.getRecordComponents())
+        .map(component -> {
+          var annotation = component.getAnnotation(JSONProperty.class);
+          var propertyName = annotation == null
+                  ? component.getName()
+                  : annotation.value();
+          return new Property(propertyName, component.getAccessor());
+        })
+        .toList();
+  }
+
+  private static final ClassValue<Generator> CACHE = new ClassValue<>() {
       @Override
-      protected List<Generator> computeValue(Class<?> type) {
-        var beanInfo = Utils.beanInfo(type);
-        return Arrays
-                .stream(beanInfo.getPropertyDescriptors())
-                .filter(prop -> !prop.getName().equals("class"))
-                .<Generator>map(prop -> {
-                  var readMethod = prop.getReadMethod();
-                  var annotation = readMethod.getAnnotation(JSONProperty.class);
-                  var keyPrefix = "\"";
-                  var keySuffix = "\": ";
-                  var propertyName = annotation == null
-                          ? prop.getName()
-                          : annotation.value();
-                  var key = keyPrefix + propertyName + keySuffix;
-                  return (writer, o) -> key + writer.toJSON(Utils.invokeMethod(o, readMethod));
-                })
-                .toList();
+      protected Generator computeValue(Class<?> type) {
+        var codec = JSONCodecs.find(type).orElse(null);
+        if (codec != null) {
+          return codecGenerator(codec);
+        }
+        var properties = properties(type);
+        try {
+          return hiddenClassGenerator(properties);
+        } catch (IllegalAccessException | LinkageError | UnsupportedOperationException | SecurityException e) {
+          // defining a class is not permitted
+          return reflectiveGenerator(properties);
+        }
       }
   };
 
-  private String toJSONBean(Object o) {
-    return CACHE
-            .get((o.getClass()))
-            .stream()
-            .map(generator -> generator.generate(this, o))
-            .collect(Collectors.joining(", ", "{", "}" ));
+  @SuppressWarnings("unchecked")
+  private static Generator codecGenerator(JSONCodec<?> codec) {
+    var generator = (JSONCodec<Object>) codec;
+    return generator::write;
+  }
+
+  // the prefix of each property, the opening curly brace or the separator, the quoted name and the colon
+  private static String prefix(int index, Property property) {
+    var builder = new StringBuilder(index == 0 ? "{" : ", ");
+    try {
+      appendString(builder, property.key);
+    } catch (IOException e) {
+      throw new AssertionError(e);   // a StringBuilder never throws an IOException
+    }
+    return builder.append(": ").toString();
+  }
+
+  // the suffix of an object, an object with no property is written "{}"
+  private static String suffix(List<Property> properties) {
+    return properties.isEmpty() ? "{}" : "}";
+  }
+
+  private static Generator reflectiveGenerator(List<Property> properties) {
+    var prefixes = new String[properties.size()];
+    var encodedPrefixes = new byte[properties.size()][];
+    @SuppressWarnings("unchecked")
+    var accessors = (Function<Object, Object>[]) new Function<?, ?>[properties.size()];
+    for (var i = 0; i < properties.size(); i++) {
+      var property = properties.get(i);
+      prefixes[i] = prefix(i, property);
+      encodedPrefixes[i] = prefixes[i].getBytes(UTF_8);
+      accessors[i] = Utils.accessor(property.getter);
+    }
+    var suffix = suffix(properties);
+    var encodedSuffix = suffix.getBytes(UTF_8);
+    return (writer, bean, out) -> {
+      for (var i = 0; i < prefixes.length; i++) {
+        append(out, prefixes[i], encodedPrefixes[i]);
+        writer.toJSON(accessors[i].apply(bean), out);
+      }
+      append(out, suffix, encodedSuffix);
+    };
+  }
+
+  private static final MethodHandle APPEND, TO_JSON, WRITE_LONG, WRITE_DOUBLE, WRITE_FLOAT;
+  static {
+    var lookup = MethodHandles.lookup();
+    try {
+      APPEND = lookup.findStatic(JSONWriter.class, "append", methodType(void.class, Appendable.class, String.class, byte[].class));
+      TO_JSON = lookup.findVirtual(JSONWriter.class, "toJSON", methodType(void.class, Object.class, Appendable.class));
+      WRITE_LONG = lookup.findStatic(JSONWriter.class, "writeLong", methodType(void.class, JSONWriter.class, long.class, Appendable.class));
+      WRITE_DOUBLE = lookup.findStatic(JSONWriter.class, "writeDouble", methodType(void.class, JSONWriter.class, double.class, Appendable.class));
+      WRITE_FLOAT = lookup.findStatic(JSONWriter.class, "writeFloat", methodType(void.class, JSONWriter.class, float.class, Appendable.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  // appends a constant text, the text is copied already encoded if the output is a ByteOutput
+  private static void append(Appendable out, String text, byte[] encodedText) throws IOException {
+    if (out instanceof ByteOutput output) {
+      output.write(encodedText);
+      return;
+    }
+    out.append(text);
+  }
+
+  // the writers of the primitive values, they have the same shape as toJSON to avoid boxing the values
+  // returned by the getters
+
+  private static void writeLong(JSONWriter writer, long value, Appendable out) throws IOException {
+    appendLong(out, value);
+  }
+
+  private static void writeDouble(JSONWriter writer, double value, Appendable out) throws IOException {
+    appendDouble(out, value);
+  }
+
+  private static void writeFloat(JSONWriter writer, float value, Appendable out) throws IOException {
+    appendFloat(out, value);
+  }
+
+  // a method handle of type (JSONWriter, Object, Appendable)void that writes the value returned by the getter
+  private static MethodHandle writeValue(Method getter) {
+    var target = Utils.unreflect(getter);
+    var type = getter.getReturnType();
+    MethodHandle writer;
+    if (type == int.class || type == long.class || type == short.class || type == byte.class) {
+      writer = WRITE_LONG;
+    } else if (type == double.class) {
+      writer = WRITE_DOUBLE;
+    } else if (type == float.class) {
+      writer = WRITE_FLOAT;
+    } else {
+      writer = TO_JSON;
+    }
+    var valueType = writer.type().parameterType(1);
+    return MethodHandles.filterArguments(writer, 1, target.asType(methodType(valueType, Object.class)));
+  }
+
+  // a method handle of type (JSONWriter, Object, Appendable)void that appends a constant text
+  private static MethodHandle appendText(String text) {
+    var append = MethodHandles.insertArguments(APPEND, 1, text, text.getBytes(UTF_8));
+    return MethodHandles.dropArguments(append, 0, JSONWriter.class, Object.class);
+  }
+
+  private static byte[] templateBytes;  // lazily initialized, racy but the value is always the same
+
+  private static byte[] templateBytes() throws IOException {
+    var bytes = templateBytes;
+    if (bytes != null) {
+      return bytes;
+    }
+    try (var input = JSONWriter.class.getResourceAsStream("GeneratorTemplate.class")) {
+      if (input == null) {
+        throw new IOException("GeneratorTemplate.class not found");
+      }
+      return templateBytes = input.readAllBytes();
+    }
+  }
+
+  /**
+   * Generates a hidden class from {@link GeneratorTemplate} with a method handle that writes
+   * all the properties of a bean as class data.
+   * Each property is written by appending the constant prefix and then calling the getter,
+   * the prefixes are encoded in UTF-8 once, when the method handle is created.
+   * The numeric values returned by a getter are written without being boxed.
+   */
+  private static Generator hiddenClassGenerator(List<Property> properties) throws IllegalAccessException {
+    var generator = appendText(suffix(properties));
+    for (var i = properties.size(); --i >= 0;) {
+      var property = properties.get(i);
+      var writeValue = writeValue(property.getter);
+      generator = MethodHandles.foldArguments(generator, MethodHandles.foldArguments(writeValue, appendText(prefix(i, property))));
+    }
+
+    byte[] bytes;
+    try {
+      bytes = templateBytes();
+    } catch (IOException e) {
+      throw new UnsupportedOperationException(e);
+    }
+    var lookup = MethodHandles.lookup().defineHiddenClassWithClassData(bytes, generator, true);
+    try {
+      return (Generator) lookup.findConstructor(lookup.lookupClass(), methodType(void.class)).invoke();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new UndeclaredThrowableException(e);
+    }
+  }
+
+  private void toJSONBean(Object o, Appendable out) throws IOException {
+    CACHE.get(o.getClass()).generate(this, o, out);
   }
 }
@@ -0,0 +1,140 @@
+package com.github.forax.framework.mapper;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * The keys of the objects of a type in the order they are usually written,
+ * used by {@link ToyJSONParser} to recognize a key without creating a String.
+ *
+ * The parser speculates that the keys of an object appear in the order of the plan, so the raw characters
+ * (or the raw bytes encoded in UTF-8) of a key are first compared to the key that follows the previous one,
+ * if they do not match, the key is searched in a hash table of the raw keys.
+ * When a key is found, the parser uses the String of the plan, so its hash code is already computed
+ * and it is the same instance as the key of the map of the object builder.
+ *
+ * A plan is immutable and can be shared between threads.
+ *
+ * @see ToyJSONParser.JSONVisitor#keyPlan()
+ */
+final class KeyPlan {
+  private final String[] keys;
+  private final char[][] chars;
+  private final byte[][] bytes;
+  // open addressing tables of the hash of the raw keys, an entry is the index of the key + 1 or 0 if empty
+  private final int[] charTable;
+  private final int[] byteTable;
+
+  /**
+   * Creates a plan from the keys in the order they are usually written.
+   *
+   * @param keys the keys, without duplicates.
+   */
+  KeyPlan(List<String> keys) {
+    this.keys = keys.toArray(String[]::new);
+    var length = this.keys.length;
+    chars = new char[length][];
+    bytes = new byte[length][];
+    var tableSize = Integer.highestOneBit(Math.max(1, length) * 2) << 1;
+    charTable = new int[tableSize];
+    byteTable = new int[tableSize];
+    for (var i = 0; i < length; i++) {
+      var key = this.keys[i];
+      chars[i] = key.toCharArray();
+      bytes[i] = key.getBytes(UTF_8);
+      insert(charTable, hash(chars[i], 0, chars[i].length), i);
+      insert(byteTable, hash(bytes[i], 0, bytes[i].length), i);
+    }
+  }
+
+  private static void insert(int[] table, int hash, int index) {
+    var mask = table.length - 1;
+    var slot = hash & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = index + 1;
+  }
+
+  private static int hash(char[] buffer, int start, int end) {
+    var hash = 0;
+    for (var i = start; i < end; i++) {
+      hash = hash * 31 + buffer[i];
+    }
+    return hash;
+  }
+
+  private static int hash(byte[] buffer, int start, int end) {
+    var hash = 0;
+    for (var i = start; i < end; i++) {
+      hash = hash * 31 + buffer[i];
+    }
+    return hash;
+  }
+
+  /**
+   * Returns the key at an index.
+   *
+   * @param index an index returned by one of the find methods.
+   * @return the key at an index.
+   */
+  String key(int index) {
+    return keys[index];
+  }
+
+  /**
+   * Finds the index of a key from its raw characters.
+   *
+   * @param buffer the characters
+   * @param start the start of the key in the buffer
+   * @param end the end of the key in the buffer
+   * @param expected the index of the expected key, may be out of the bounds of the plan
+   * @return the index of the key or -1 if the key is not part of the plan.
+   */
+  int find(char[] buffer, int start, int end, int expected) {
+    if (expected < keys.length && Arrays.equals(chars[expected], 0, chars[expected].length, buffer, start, end)) {
+      return expected;
+    }
+    var table = charTable;
+    var mask = table.length - 1;
+    for (var slot = hash(buffer, start, end) & mask;; slot = (slot + 1) & mask) {
+      var entry = table[slot];
+      if (entry == 0) {
+        return -1;
+      }
+      var key = chars[entry - 1];
+      if (Arrays.equals(key, 0, key.length, buffer, start, end)) {
+        return entry - 1;
+      }
+    }
+  }
+
+  /**
+   * Finds the index of a key from its raw bytes encoded in UTF-8.
+   *
+   * @param buffer the bytes
+   * @param start the start of the key in the buffer
+   * @param end the end of the key in the buffer
+   * @param expected the index of the expected key, may be out of the bounds of the plan
+   * @return the index of the key or -1 if the key is not part of the plan.
+   */
+  int find(byte[] buffer, int start, int end, int expected) {
+    if (expected < keys.length && Arrays.equals(bytes[expected], 0, bytes[expected].length, buffer, start, end)) {
+      return expected;
+    }
+    var table = byteTable;
+    var mask = table.length - 1;
+    for (var slot = hash(buffer, start, end) & mask;; slot = (slot + 1) & mask) {
+      var entry = table[slot];
+      if (entry == 0) {
+        return -1;
+      }
+      var key = bytes[entry - 1];
+      if (Arrays.equals(key, 0, key.length, buffer, start, end)) {
+        return entry - 1;
+      }
+    }
+  }
+}
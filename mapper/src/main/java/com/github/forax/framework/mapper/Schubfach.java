@@ -0,0 +1,453 @@
+package com.github.forax.framework.mapper;
+
+import java.math.BigInteger;
+
+import static java.lang.Math.multiplyHigh;
+
+/**
+ * Formats a double or a float into an array of bytes without allocating,
+ * using the Schubfach algorithm of Raffaello Giulietti
+ * ("The Schubfach way to render doubles", 2021).
+ *
+ * The result is the shortest decimal that rounds to the same value,
+ * with exactly the same format as {@link Double#toString(double)} and {@link Float#toString(float)}
+ * (which use the same algorithm since Java 19).
+ *
+ * The table of the powers of ten is computed once with {@link BigInteger} when the class is initialized.
+ */
+final class Schubfach {
+  private Schubfach() {
+    throw new AssertionError();
+  }
+
+  /**
+   * The maximum number of bytes written by {@link #writeDouble(double, byte[], int)}
+   * and {@link #writeFloat(float, byte[], int)}, i.e. the length of "-2.2250738585072014E-308".
+   */
+  static final int MAX_LENGTH = 24;
+
+  private static final long MASK_63 = (1L << 63) - 1;
+  private static final long MASK_32 = (1L << 32) - 1;
+  private static final int MASK_28 = (1 << 28) - 1;
+
+  // range of the exponents of the table of the powers of ten
+  private static final int K_MIN = -324;
+  private static final int K_MAX = 292;
+
+  // g1 and g0 of the powers of ten 10^-k for k in [K_MIN, K_MAX]
+  private static final long[] G = new long[(K_MAX - K_MIN + 1) << 1];
+
+  static {
+    // 10^-k = beta 2^r with 2^125 <= beta < 2^126, g = floor(beta) + 1, g1 = g >> 63, g0 = g mod 2^63
+    for (var k = K_MIN; k <= K_MAX; k++) {
+      var e = -k;
+      var shift = 125 - flog2pow10(e);
+      BigInteger beta;
+      if (e >= 0) {
+        var pow10 = BigInteger.TEN.pow(e);
+        beta = shift >= 0 ? pow10.shiftLeft(shift) : pow10.shiftRight(-shift);
+      } else {
+        beta = BigInteger.ONE.shiftLeft(shift).divide(BigInteger.TEN.pow(-e));
+      }
+      var g = beta.add(BigInteger.ONE);
+      var index = (k - K_MIN) << 1;
+      G[index] = g.shiftRight(63).longValue();
+      G[index + 1] = g.longValue() & MASK_63;
+    }
+  }
+
+  private static final long[] POW10 = new long[18];
+
+  static {
+    var pow10 = 1L;
+    for (var i = 0; i < POW10.length; i++) {
+      POW10[i] = pow10;
+      pow10 *= 10;
+    }
+  }
+
+  // floor(q log10(2))
+  private static int flog10pow2(int q) {
+    return (int) (q * 661_971_961_083L >> 41);
+  }
+
+  // floor(log10(3/4 2^q))
+  private static int flog10threeQuartersPow2(int q) {
+    return (int) (q * 661_971_961_083L + -274_743_187_321L >> 41);
+  }
+
+  // floor(e log2(10))
+  private static int flog2pow10(int e) {
+    return (int) (e * 913_124_641_741L >> 38);
+  }
+
+  private static long g1(int k) {
+    return G[(k - K_MIN) << 1];
+  }
+
+  private static long g0(int k) {
+    return G[((k - K_MIN) << 1) + 1];
+  }
+
+  private static final byte[] NAN = {'N', 'a', 'N'};
+  private static final byte[] INFINITY = {'I', 'n', 'f', 'i', 'n', 'i', 't', 'y'};
+
+  private static int writeSpecial(byte[] special, byte[] bytes, int index) {
+    System.arraycopy(special, 0, bytes, index, special.length);
+    return index + special.length;
+  }
+
+  /**
+   * Writes a double with the same format as {@link Double#toString(double)}.
+   *
+   * @param v a double
+   * @param bytes the array of bytes, it must have room for {@link #MAX_LENGTH} bytes
+   * @param index the index of the first byte to write
+   * @return the index after the last byte written.
+   */
+  static int writeDouble(double v, byte[] bytes, int index) {
+    var bits = Double.doubleToRawLongBits(v);
+    var t = bits & ((1L << 52) - 1);
+    var bq = (int) (bits >>> 52) & 0x7FF;
+    if (bq == 0x7FF) {
+      if (t != 0) {
+        return writeSpecial(NAN, bytes, index);
+      }
+      if (bits < 0) {
+        bytes[index++] = '-';
+      }
+      return writeSpecial(INFINITY, bytes, index);
+    }
+    if (bits < 0) {
+      bytes[index++] = '-';
+    }
+    if (bq != 0) {
+      // normal value, mq = -q
+      var mq = 1074 + 1 - bq;
+      var c = (1L << 52) | t;
+      if (0 < mq & mq < 53) {
+        // an integer
+        var f = c >> mq;
+        if (f << mq == c) {
+          return doubleChars(f, 0, bytes, index);
+        }
+      }
+      return doubleDecimal(-mq, c, 0, bytes, index);
+    }
+    if (t != 0) {
+      // subnormal value
+      return t < 3
+          ? doubleDecimal(-1074, 10 * t, -1, bytes, index)
+          : doubleDecimal(-1074, t, 0, bytes, index);
+    }
+    bytes[index] = '0';
+    bytes[index + 1] = '.';
+    bytes[index + 2] = '0';
+    return index + 3;
+  }
+
+  private static int doubleDecimal(int q, long c, int dk, byte[] bytes, int index) {
+    var out = (int) c & 0x1;
+    var cb = c << 2;
+    var cbr = cb + 2;
+    long cbl;
+    int k;
+    if (c != (1L << 52) | q == -1074) {
+      cbl = cb - 2;
+      k = flog10pow2(q);
+    } else {
+      cbl = cb - 1;
+      k = flog10threeQuartersPow2(q);
+    }
+    var h = q + flog2pow10(-k) + 2;
+    var g1 = g1(k);
+    var g0 = g0(k);
+    var vb = rop(g1, g0, cb << h);
+    var vbl = rop(g1, g0, cbl << h);
+    var vbr = rop(g1, g0, cbr << h);
+    var s = vb >> 2;
+    if (s >= 100) {
+      // s' = floor(s / 10) 10, t' = s' + 10
+      var sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+      var tp10 = sp10 + 10;
+      var upin = vbl + out <= sp10 << 2;
+      var wpin = (tp10 << 2) + out <= vbr;
+      if (upin != wpin) {
+        return doubleChars(upin ? sp10 : tp10, k, bytes, index);
+      }
+    }
+    var t = s + 1;
+    var uin = vbl + out <= s << 2;
+    var win = (t << 2) + out <= vbr;
+    if (uin != win) {
+      return doubleChars(uin ? s : t, k + dk, bytes, index);
+    }
+    var cmp = vb - (s + t << 1);
+    return doubleChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, bytes, index);
+  }
+
+  // round to odd of the product of g (126 bits) and cp
+  private static long rop(long g1, long g0, long cp) {
+    var x1 = multiplyHigh(g0, cp);
+    var y0 = g1 * cp;
+    var y1 = multiplyHigh(g1, cp);
+    var z = (y0 >>> 1) + x1;
+    var vbp = y1 + (z >>> 63);
+    return vbp | (z & MASK_63) + MASK_63 >>> 63;
+  }
+
+  // writes f 10^e
+  private static int doubleChars(long f, int e, byte[] bytes, int index) {
+    // 10^(len-1) <= f < 10^len
+    var len = flog10pow2(Long.SIZE - Long.numberOfLeadingZeros(f));
+    if (f >= POW10[len]) {
+      len++;
+    }
+    // 10^16 <= f < 10^17, f 10^e = 0.f 10^(e + len)
+    f *= POW10[17 - len];
+    e += len;
+    // h is the most significant digit, m the next 8 digits and l the last 8 digits
+    var hm = multiplyHigh(f, 193_428_131_138_340_668L) >>> 20;
+    var l = (int) (f - 100_000_000L * hm);
+    var h = (int) (hm * 1_441_151_881L >>> 57);
+    var m = (int) (hm - 100_000_000 * h);
+    if (0 < e && e <= 7) {
+      // plain format without leading zeroes
+      bytes[index++] = (byte) ('0' + h);
+      var y = y(m);
+      var i = 1;
+      for (; i < e; i++) {
+        var t = 10 * y;
+        bytes[index++] = (byte) ('0' + (t >>> 28));
+        y = t & MASK_28;
+      }
+      bytes[index++] = '.';
+      for (; i <= 8; i++) {
+        var t = 10 * y;
+        bytes[index++] = (byte) ('0' + (t >>> 28));
+        y = t & MASK_28;
+      }
+      return lowDigits(l, bytes, index);
+    }
+    if (-3 < e && e <= 0) {
+      // plain format with leading zeroes
+      bytes[index++] = '0';
+      bytes[index++] = '.';
+      for (; e < 0; e++) {
+        bytes[index++] = '0';
+      }
+      bytes[index++] = (byte) ('0' + h);
+      index = write8Digits(m, bytes, index);
+      return lowDigits(l, bytes, index);
+    }
+    // scientific notation
+    bytes[index++] = (byte) ('0' + h);
+    bytes[index++] = '.';
+    index = write8Digits(m, bytes, index);
+    index = lowDigits(l, bytes, index);
+    return exponent(e - 1, bytes, index);
+  }
+
+  private static int lowDigits(int l, byte[] bytes, int index) {
+    if (l != 0) {
+      index = write8Digits(l, bytes, index);
+    }
+    return removeTrailingZeroes(bytes, index);
+  }
+
+  // left-to-right digits extraction of a number with 8 digits
+  private static int write8Digits(int m, byte[] bytes, int index) {
+    var y = y(m);
+    for (var i = 0; i < 8; i++) {
+      var t = 10 * y;
+      bytes[index++] = (byte) ('0' + (t >>> 28));
+      y = t & MASK_28;
+    }
+    return index;
+  }
+
+  private static int removeTrailingZeroes(byte[] bytes, int index) {
+    while (bytes[index - 1] == '0') {
+      index--;
+    }
+    // but do not remove the zero directly to the right of the '.'
+    if (bytes[index - 1] == '.') {
+      index++;
+    }
+    return index;
+  }
+
+  // floor((a + 1) 2^28 / 10^8) - 1
+  private static int y(int a) {
+    return (int) (multiplyHigh((long) (a + 1) << 28, 193_428_131_138_340_668L) >>> 20) - 1;
+  }
+
+  private static int exponent(int e, byte[] bytes, int index) {
+    bytes[index++] = 'E';
+    if (e < 0) {
+      bytes[index++] = '-';
+      e = -e;
+    }
+    if (e < 10) {
+      bytes[index++] = (byte) ('0' + e);
+      return index;
+    }
+    int d;
+    if (e >= 100) {
+      // floor(e / 100)
+      d = e * 1_311 >>> 17;
+      bytes[index++] = (byte) ('0' + d);
+      e -= 100 * d;
+    }
+    // floor(e / 10)
+    d = e * 103 >>> 10;
+    bytes[index++] = (byte) ('0' + d);
+    bytes[index++] = (byte) ('0' + e - 10 * d);
+    return index;
+  }
+
+  /**
+   * Writes a float with the same format as {@link Float#toString(float)}.
+   *
+   * @param v a float
+   * @param bytes the array of bytes, it must have room for {@link #MAX_LENGTH} bytes
+   * @param index the index of the first byte to write
+   * @return the index after the last byte written.
+   */
+  static int writeFloat(float v, byte[] bytes, int index) {
+    var bits = Float.floatToRawIntBits(v);
+    var t = bits & ((1 << 23) - 1);
+    var bq = (bits >>> 23) & 0xFF;
+    if (bq == 0xFF) {
+      if (t != 0) {
+        return writeSpecial(NAN, bytes, index);
+      }
+      if (bits < 0) {
+        bytes[index++] = '-';
+      }
+      return writeSpecial(INFINITY, bytes, index);
+    }
+    if (bits < 0) {
+      bytes[index++] = '-';
+    }
+    if (bq != 0) {
+      // normal value, mq = -q
+      var mq = 149 + 1 - bq;
+      var c = (1 << 23) | t;
+      if (0 < mq & mq < 24) {
+        // an integer
+        var f = c >> mq;
+        if (f << mq == c) {
+          return floatChars(f, 0, bytes, index);
+        }
+      }
+      return floatDecimal(-mq, c, 0, bytes, index);
+    }
+    if (t != 0) {
+      // subnormal value
+      return t < 8
+          ? floatDecimal(-149, 10 * t, -1, bytes, index)
+          : floatDecimal(-149, t, 0, bytes, index);
+    }
+    bytes[index] = '0';
+    bytes[index + 1] = '.';
+    bytes[index + 2] = '0';
+    return index + 3;
+  }
+
+  private static int floatDecimal(int q, int c, int dk, byte[] bytes, int index) {
+    var out = c & 0x1;
+    var cb = (long) c << 2;
+    var cbr = cb + 2;
+    long cbl;
+    int k;
+    if (c != (1 << 23) | q == -149) {
+      cbl = cb - 2;
+      k = flog10pow2(q);
+    } else {
+      cbl = cb - 1;
+      k = flog10threeQuartersPow2(q);
+    }
+    var h = q + flog2pow10(-k) + 33;
+    var g = g1(k) + 1;
+    var vb = rop(g, cb << h);
+    var vbl = rop(g, cbl << h);
+    var vbr = rop(g, cbr << h);
+    var s = vb >> 2;
+    if (s >= 100) {
+      // s' = floor(s / 10) 10, t' = s' + 10
+      var sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+      var tp10 = sp10 + 10;
+      var upin = vbl + out <= sp10 << 2;
+      var wpin = (tp10 << 2) + out <= vbr;
+      if (upin != wpin) {
+        return floatChars(upin ? sp10 : tp10, k, bytes, index);
+      }
+    }
+    var t = s + 1;
+    var uin = vbl + out <= s << 2;
+    var win = (t << 2) + out <= vbr;
+    if (uin != win) {
+      return floatChars(uin ? s : t, k + dk, bytes, index);
+    }
+    var cmp = vb - (s + t << 1);
+    return floatChars(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, bytes, index);
+  }
+
+  // round to odd of the product of g (63 bits) and cp
+  private static int rop(long g, long cp) {
+    var x1 = multiplyHigh(g, cp);
+    var vbp = x1 >>> 31;
+    return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+  }
+
+  // writes f 10^e
+  private static int floatChars(int f, int e, byte[] bytes, int index) {
+    // 10^(len-1) <= f < 10^len
+    var len = flog10pow2(Integer.SIZE - Integer.numberOfLeadingZeros(f));
+    if (f >= POW10[len]) {
+      len++;
+    }
+    // 10^8 <= f < 10^9, f 10^e = 0.f 10^(e + len)
+    f *= (int) POW10[9 - len];
+    e += len;
+    // h is the most significant digit and l the last 8 digits
+    var h = (int) (f * 1_441_151_881L >>> 57);
+    var l = f - 100_000_000 * h;
+    if (0 < e && e <= 7) {
+      // plain format without leading zeroes
+      bytes[index++] = (byte) ('0' + h);
+      var y = y(l);
+      var i = 1;
+      for (; i < e; i++) {
+        var t = 10 * y;
+        bytes[index++] = (byte) ('0' + (t >>> 28));
+        y = t & MASK_28;
+      }
+      bytes[index++] = '.';
+      for (; i <= 8; i++) {
+        var t = 10 * y;
+        bytes[index++] = (byte) ('0' + (t >>> 28));
+        y = t & MASK_28;
+      }
+      return removeTrailingZeroes(bytes, index);
+    }
+    if (-3 < e && e <= 0) {
+      // plain format with leading zeroes
+      bytes[index++] = '0';
+      bytes[index++] = '.';
+      for (; e < 0; e++) {
+        bytes[index++] = '0';
+      }
+      bytes[index++] = (byte) ('0' + h);
+      index = write8Digits(l, bytes, index);
+      return removeTrailingZeroes(bytes, index);
+    }
+    // scientific notation
+    bytes[index++] = (byte) ('0' + h);
+    bytes[index++] = '.';
+    index = write8Digits(l, bytes, index);
+    index = removeTrailingZeroes(bytes, index);
+    return exponent(e - 1, bytes, index);
+  }
+}
@@ -0,0 +1,47 @@
+package com.github.forax.framework.mapper;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A pool of reusable instances, one per slot.
+ *
+ * The pool is not thread local, so it works with virtual threads, instead it is an array of slots
+ * and each thread uses the slot corresponding to its identifier.
+ * An instance is taken from the slot by {@link #acquire()} and is confined to the current thread
+ * until it is given back by {@link #release(Object)}.
+ * A concurrent or a reentrant user that finds the slot empty should create a new instance,
+ * and a release never replaces the instance already in the slot.
+ *
+ * @param <T> the type of the pooled instances
+ */
+final class SlotPool<T> {
+  private static final int SLOT_COUNT =
+      Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+
+  private final AtomicReferenceArray<T> slots = new AtomicReferenceArray<>(SLOT_COUNT);
+
+  private int slot() {
+    var id = Thread.currentThread().threadId();
+    var hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;  // spread the consecutive identifiers
+    return (hash ^ (hash >>> 16)) & (SLOT_COUNT - 1);
+  }
+
+  /**
+   * Takes the instance of the slot of the current thread.
+   *
+   * @return the instance of the slot of the current thread or null if the slot is empty.
+   */
+  T acquire() {
+    return slots.getAndSet(slot(), null);
+  }
+
+  /**
+   * Gives an instance back to the slot of the current thread if the slot is empty,
+   * the instance must not be used after this call.
+   *
+   * @param instance the instance to give back.
+   */
+  void release(T instance) {
+    slots.compareAndSet(slot(), null, instance);
+  }
+}
@@ -0,0 +1,269 @@
+package com.github.forax.framework.mapper;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+
+/**
+ * Finds the boundaries of the elements of a top-level JSON array without decoding them.
+ *
+ * The index of a text is the array of the positions of the separators of the elements
+ * of the top-level array, the position of the opening '[', the positions of the commas
+ * in between the elements and the position of the closing ']'.
+ * So there are {@code separators.length - 1} elements and the element {@code i} is between
+ * {@code separators[i] + 1} and {@code separators[i + 1]}.
+ * The index of an empty array only contains the position of the opening '['.
+ *
+ * The text is only checked for the structure of the top-level array,
+ * the elements themselves are validated when they are decoded.
+ */
+final class StructuralIndex {
+  private StructuralIndex() {
+    throw new AssertionError();
+  }
+
+  private static final String VECTOR_STRUCTURAL_INDEX = "com.github.forax.framework.mapper.VectorStructuralIndex";
+
+  // the methods separators(char[]) and separators(byte[]) of VectorStructuralIndex or null
+  private static final MethodHandle VECTOR_CHARS_SEPARATORS;
+  private static final MethodHandle VECTOR_BYTES_SEPARATORS;
+
+  static {
+    MethodHandle charsSeparators = null, bytesSeparators = null;
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent() && !Boolean.getBoolean("forax.mapper.scalarIndex")) {
+      var lookup = MethodHandles.lookup();
+      try {
+        var vectorStructuralIndex = Class.forName(VECTOR_STRUCTURAL_INDEX, true, StructuralIndex.class.getClassLoader());
+        charsSeparators = lookup.findStatic(vectorStructuralIndex, "separators", MethodType.methodType(int[].class, char[].class));
+        bytesSeparators = lookup.findStatic(vectorStructuralIndex, "separators", MethodType.methodType(int[].class, byte[].class));
+      } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException | LinkageError e) {
+        // use the scalar version
+        charsSeparators = bytesSeparators = null;
+      }
+    }
+    VECTOR_CHARS_SEPARATORS = charsSeparators;
+    VECTOR_BYTES_SEPARATORS = bytesSeparators;
+  }
+
+  /**
+   * True if the index is computed by {@code VectorStructuralIndex} of the module {@code mapper-vector},
+   * i.e. if the jar of {@code mapper-vector} is on the class path and the module {@code jdk.incubator.vector}
+   * is available, by example using {@code --add-modules jdk.incubator.vector}.
+   * The scalar version can be forced using the system property {@code forax.mapper.scalarIndex}.
+   *
+   * The core of the mapper is compiled without the incubator module, so {@code VectorStructuralIndex}
+   * is found by name.
+   */
+  static final boolean VECTORIZED = VECTOR_CHARS_SEPARATORS != null;
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  static boolean isBlank(int c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+  }
+
+  /**
+   * Returns the positions of the separators of the elements of the top-level array.
+   * The text is scanned by {@code VectorStructuralIndex} if {@link #VECTORIZED} is true.
+   *
+   * @param input a JSON text
+   * @return the positions of the separators of the elements of the top-level array.
+   * @throws IllegalStateException if the text is not a JSON array.
+   */
+  static int[] separators(char[] input) {
+    if (VECTORIZED) {
+      try {
+        return (int[]) VECTOR_CHARS_SEPARATORS.invokeExact(input);
+      } catch (Throwable e) {
+        throw Utils.rethrow(e);
+      }
+    }
+    return scalarSeparators(input);
+  }
+
+  /**
+   * Returns the position of the opening '[' of the top-level array.
+   *
+   * @param input a JSON text
+   * @return the position of the opening '[' of the top-level array.
+   * @throws IllegalStateException if the text does not start with a '['.
+   */
+  static int start(char[] input) {
+    var position = 0;
+    while (position < input.length && isBlank(input[position])) {
+      position++;
+    }
+    if (position == input.length || input[position] != '[') {
+      throw new IllegalStateException("expect LEFT_BRACKET at " + position);
+    }
+    return position;
+  }
+
+  static int[] scalarSeparators(char[] input) {
+    var position = start(input);
+    var separators = new int[INITIAL_CAPACITY];
+    separators[0] = position;
+    var count = 1;
+    var depth = 0;
+    var empty = true;
+    for (position++; position < input.length; position++) {
+      var c = input[position];
+      switch (c) {
+        case '"' -> {
+          // skip the string
+          for (position++; position < input.length && input[position] != '"'; position++) {
+            if (input[position] == '\\') {
+              position++;
+            }
+          }
+          empty = false;
+        }
+        case '{', '[' -> {
+          depth++;
+          empty = false;
+        }
+        case '}', ']' -> {
+          if (depth == 0) {
+            if (c == '}') {
+              throw new IllegalStateException("expect RIGHT_BRACKET at " + position);
+            }
+            if (empty) {
+              if (count != 1) {
+                throw new IllegalStateException("expect a value at " + position);
+              }
+              return new int[] { separators[0] };  // empty array
+            }
+            if (count == separators.length) {
+              separators = Arrays.copyOf(separators, count << 1);
+            }
+            separators[count++] = position;
+            return Arrays.copyOf(separators, count);
+          }
+          depth--;
+        }
+        case ',' -> {
+          if (depth == 0) {
+            if (empty) {
+              throw new IllegalStateException("expect a value at " + position);
+            }
+            if (count == separators.length) {
+              separators = Arrays.copyOf(separators, count << 1);
+            }
+            separators[count++] = position;
+            empty = true;
+          }
+        }
+        default -> {
+          if (!isBlank(c)) {
+            empty = false;
+          }
+        }
+      }
+    }
+    throw new IllegalStateException("expect RIGHT_BRACKET at " + position);
+  }
+
+  /**
+   * Returns the positions of the separators of the elements of the top-level array.
+   * The bytes of a character encoded in UTF-8 on several bytes are never ASCII,
+   * so the bytes can be scanned without being decoded.
+   * The text is scanned by {@code VectorStructuralIndex} if {@link #VECTORIZED} is true.
+   *
+   * @param input a JSON text encoded in UTF-8
+   * @return the positions of the separators of the elements of the top-level array.
+   * @throws IllegalStateException if the text is not a JSON array.
+   */
+  static int[] separators(byte[] input) {
+    if (VECTORIZED) {
+      try {
+        return (int[]) VECTOR_BYTES_SEPARATORS.invokeExact(input);
+      } catch (Throwable e) {
+        throw Utils.rethrow(e);
+      }
+    }
+    return scalarSeparators(input);
+  }
+
+  /**
+   * Returns the position of the opening '[' of the top-level array.
+   *
+   * @param input a JSON text encoded in UTF-8
+   * @return the position of the opening '[' of the top-level array.
+   * @throws IllegalStateException if the text does not start with a '['.
+   */
+  static int start(byte[] input) {
+    var position = 0;
+    while (position < input.length && isBlank(input[position])) {
+      position++;
+    }
+    if (position == input.length || input[position] != '[') {
+      throw new IllegalStateException("expect LEFT_BRACKET at " + position);
+    }
+    return position;
+  }
+
+  static int[] scalarSeparators(byte[] input) {
+    var position = start(input);
+    var separators = new int[INITIAL_CAPACITY];
+    separators[0] = position;
+    var count = 1;
+    var depth = 0;
+    var empty = true;
+    for (position++; position < input.length; position++) {
+      var c = input[position];
+      switch (c) {
+        case '"' -> {
+          // skip the string
+          for (position++; position < input.length && input[position] != '"'; position++) {
+            if (input[position] == '\\') {
+              position++;
+            }
+          }
+          empty = false;
+        }
+        case '{', '[' -> {
+          depth++;
+          empty = false;
+        }
+        case '}', ']' -> {
+          if (depth == 0) {
+            if (c == '}') {
+              throw new IllegalStateException("expect RIGHT_BRACKET at " + position);
+            }
+            if (empty) {
+              if (count != 1) {
+                throw new IllegalStateException("expect a value at " + position);
+              }
+              return new int[] { separators[0] };  // empty array
+            }
+            if (count == separators.length) {
+              separators = Arrays.copyOf(separators, count << 1);
+            }
+            separators[count++] = position;
+            return Arrays.copyOf(separators, count);
+          }
+          depth--;
+        }
+        case ',' -> {
+          if (depth == 0) {
+            if (empty) {
+              throw new IllegalStateException("expect a value at " + position);
+            }
+            if (count == separators.length) {
+              separators = Arrays.copyOf(separators, count << 1);
+            }
+            separators[count++] = position;
+            empty = true;
+          }
+        }
+        default -> {
+          if (!isBlank(c)) {
+            empty = false;
+          }
+        }
+      }
+    }
+    throw new IllegalStateException("expect RIGHT_BRACKET at " + position);
+  }
+}
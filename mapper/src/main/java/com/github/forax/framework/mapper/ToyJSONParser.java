@@ -1,18 +1,22 @@
 package com.github.forax.framework.mapper;
 
 import static java.lang.Double.parseDouble;
-import static java.lang.Integer.parseInt;
-import static java.util.regex.Pattern.compile;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.joining;
-import static java.util.stream.IntStream.rangeClosed;
 import static com.github.forax.framework.mapper.ToyJSONParser.Kind.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.function.IntConsumer;
 
 /**
- * A Toy JSON parser that do not recognize correctly, unicode characters, escaped strings
+ * A Toy JSON parser that do not recognize correctly, unicode characters
  * and i'm sure many more features.
  *
  * @see #parse(String, JSONVisitor)
@@ -23,60 +27,792 @@ class ToyJSONParser {
   }
 
   enum Kind {
-    NULL("(null)"),
-    TRUE("(true)"),
-    FALSE("(false)"),
-    DOUBLE("([0-9]*\\.[0-9]*)"),
-    INTEGER("([0-9]+)"),
-    STRING("\"([^\\\"]*)\""),
-    LEFT_CURLY("(\\{)"),
-    RIGHT_CURLY("(\\})"),
-    LEFT_BRACKET("(\\[)"),
-    RIGHT_BRACKET("(\\])"),
-    COLON("(\\:)"),
-    COMMA("(\\,)"),
-    BLANK("([ \t]+)")
-    ;
+    NULL,
+    TRUE,
+    FALSE,
+    DOUBLE,
+    INTEGER,
+    STRING,
+    LEFT_CURLY,
+    RIGHT_CURLY,
+    LEFT_BRACKET,
+    RIGHT_BRACKET,
+    COLON,
+    COMMA
+  }
 
-    private final String regex;
+  /**
+   * A lexer that dispatches on the current character instead of using a regex,
+   * the current token is stored in the fields of the lexer so no object is allocated per token.
+   * The text of a {@link Kind#STRING} or a {@link Kind#DOUBLE} is only materialized on demand.
+   *
+   * There are two implementations, {@link CharLexer} that reads characters and {@link ByteLexer}
+   * that reads the bytes of a text encoded in UTF-8 without decoding them.
+   */
+  private static abstract sealed class Lexer permits CharLexer, ByteLexer {
+    static final int BUFFER_SIZE = 8_192;
 
-    Kind(String regex) {
-      this.regex = regex;
-    }
+    int offset;  // offset of the first character of the buffer in the whole text
 
-    private static final Kind[] VALUES = values();
-  }
+    Kind kind;
+    int start;   // start of the text of the current token
+    int end;     // end of the text of the current token
+    boolean escaped;  // true if the current STRING contains an escape sequence
+    long longValue;   // value of the current INTEGER
+
+    // decimal value of the current DOUBLE, (-1)^negative * significand * 10^exponent
+    boolean negative;
+    long significand;      // unsigned, the first 19 significant digits
+    int significantDigits;
+    int exponent;
+    boolean truncated;     // true if some non-zero digits are not in the significand
+    int exponentPart;      // value of the digits after 'e' or 'E'
+    boolean negativeExponentPart;
 
-  private record Token(Kind kind, String text, int location) {
-    private boolean is(Kind kind) {
+    final boolean is(Kind kind) {
       return this.kind == kind;
     }
 
-    private String expect(Kind kind) {
+    final void expect(Kind kind) {
       if (this.kind != kind) {
         throw error(kind);
       }
-      return text;
     }
 
-    public IllegalStateException error(Kind... expectedKinds) {
-      return new IllegalStateException("expect " + Arrays.stream(expectedKinds).map(Kind::name).collect(joining(", ")) + " but recognized " + kind + " at " + location);
+    final IllegalStateException error(Kind... expectedKinds) {
+      return new IllegalStateException("expect " + Arrays.stream(expectedKinds).map(Kind::name).collect(joining(", ")) + " but recognized " + kind + " at " + (offset + start));
+    }
+
+    final IllegalStateException error(String message) {
+      return new IllegalStateException(message + " at " + (offset + start));
+    }
+
+    abstract Kind next();
+
+    abstract String text();
+
+    /**
+     * Finds the current {@link Kind#STRING} in a plan by comparing its raw characters,
+     * a STRING with an escape sequence is never found.
+     *
+     * @param plan the plan of the keys of the current object
+     * @param expected the index of the expected key
+     * @return the index of the key in the plan or -1.
+     */
+    abstract int keyIndex(KeyPlan plan, int expected);
+
+    /**
+     * Returns the text of the current number, only used if the fast path fails.
+     */
+    abstract String numberText();
+
+    /**
+     * Returns the value of the current {@link Kind#DOUBLE} from the digits recorded by the lexer.
+     * If there are too many digits or the rounding is ambiguous, the text of the number is parsed instead.
+     */
+    final double doubleValue() {
+      var value = EiselLemire.toDouble(negative, significand, exponent);
+      if (truncated && !Double.isNaN(value)) {
+        // the digits after the significand can only move the value up to the next significand
+        var upper = EiselLemire.toDouble(negative, significand + 1, exponent);
+        if (upper != value) {
+          value = Double.NaN;
+        }
+      }
+      return Double.isNaN(value) ? parseDouble(numberText()) : value;
+    }
+
+    // states of the automaton that recognizes a number,
+    // the negative states need a digit, NUMBER_END means the character is not part of the number
+    static final int NUMBER_START = -1;
+    static final int NUMBER_SIGN = -2;
+    static final int NUMBER_DOT = -3;
+    static final int NUMBER_E = -4;
+    static final int NUMBER_EXPONENT_SIGN = -5;
+    static final int NUMBER_END = 0;
+    static final int NUMBER_ZERO = 1;
+    static final int NUMBER_INTEGER = 2;
+    static final int NUMBER_FRACTION = 3;
+    static final int NUMBER_EXPONENT = 4;
+
+    final void startNumber() {
+      negative = false;
+      significand = 0;
+      significantDigits = 0;
+      exponent = 0;
+      truncated = false;
+      exponentPart = 0;
+      negativeExponentPart = false;
+    }
+
+    /**
+     * Recognizes the grammar of a JSON number
+     * {@code -? (0 | [1-9][0-9]*) (.[0-9]+)? ([eE][+-]?[0-9]+)?}
+     * one character at a time, the digits are accumulated in the significand on the fly.
+     *
+     * @param state the current state.
+     * @param c the current character.
+     * @return the next state or {@link #NUMBER_END} if the character is not part of the number.
+     */
+    final int numberState(int state, int c) {
+      var isDigit = c >= '0' && c <= '9';
+      switch (state) {
+        case NUMBER_START, NUMBER_SIGN -> {
+          if (state == NUMBER_START && c == '-') {
+            negative = true;
+            return NUMBER_SIGN;
+          }
+          if (c == '0') {
+            return NUMBER_ZERO;
+          }
+          if (isDigit) {
+            digit(c - '0', false);
+            return NUMBER_INTEGER;
+          }
+          return NUMBER_END;
+        }
+        case NUMBER_ZERO, NUMBER_INTEGER -> {
+          if (isDigit) {
+            if (state == NUMBER_ZERO) {
+              throw error("leading zero");
+            }
+            digit(c - '0', false);
+            return NUMBER_INTEGER;
+          }
+          return switch (c) {
+            case '.' -> NUMBER_DOT;
+            case 'e', 'E' -> NUMBER_E;
+            default -> NUMBER_END;
+          };
+        }
+        case NUMBER_DOT, NUMBER_FRACTION -> {
+          if (isDigit) {
+            digit(c - '0', true);
+            return NUMBER_FRACTION;
+          }
+          return state == NUMBER_FRACTION && (c == 'e' || c == 'E') ? NUMBER_E : NUMBER_END;
+        }
+        case NUMBER_E, NUMBER_EXPONENT_SIGN, NUMBER_EXPONENT -> {
+          if (isDigit) {
+            // the exponent is clamped, a bigger exponent is always a zero or an infinity
+            exponentPart = Math.min(exponentPart * 10 + c - '0', 100_000);
+            return NUMBER_EXPONENT;
+          }
+          if (state == NUMBER_E && (c == '-' || c == '+')) {
+            negativeExponentPart = c == '-';
+            return NUMBER_EXPONENT_SIGN;
+          }
+          return NUMBER_END;
+        }
+        default -> throw new AssertionError();
+      }
+    }
+
+    private void digit(int digit, boolean fraction) {
+      if (significantDigits < 19) {
+        if (significand != 0 || digit != 0) {
+          significand = significand * 10 + digit;
+          significantDigits++;
+        }
+        if (fraction) {
+          exponent--;
+        }
+        return;
+      }
+      truncated |= digit != 0;
+      if (!fraction) {
+        exponent++;
+      }
+    }
+
+    /**
+     * Ends the current number, the token is an {@link Kind#INTEGER} if it has no fraction,
+     * no exponent and fits in a long, otherwise it's a {@link Kind#DOUBLE}.
+     *
+     * @param state the last state before {@link #NUMBER_END}.
+     * @return the kind of the token.
+     */
+    final Kind endNumber(int state) {
+      if (state < 0) {
+        throw error("invalid number");
+      }
+      if ((state == NUMBER_ZERO || state == NUMBER_INTEGER) && exponent == 0) {
+        var value = significand;
+        if (value >= 0) {
+          longValue = negative ? -value : value;
+          return INTEGER;
+        }
+        if (negative && value == Long.MIN_VALUE) {
+          longValue = value;
+          return INTEGER;
+        }
+      }
+      exponent += negativeExponentPart ? -exponentPart : exponentPart;
+      return DOUBLE;
+    }
+
+    /**
+     * Skips the value starting with the current token without creating any token.
+     * If the current token is a '{' or a '[', the characters are skipped up to the matching
+     * '}' or ']' by counting the depth, the strings are skipped without being decoded,
+     * the values inside are not validated.
+     * The current token is then the last token of the value.
+     */
+    final void skipValue() {
+      if (kind == LEFT_CURLY || kind == LEFT_BRACKET) {
+        skipNested();
+      }
     }
+
+    abstract void skipNested();
+
+    /**
+     * Returns the position after the current token in the whole text.
+     */
+    abstract int after();
   }
 
-  private record Lexer(Matcher matcher) {
-    private Token next() {
+  /**
+   * A lexer on characters.
+   * The characters are read from a buffer, if the lexer has a reader, the buffer is refilled
+   * when all its characters have been consumed, only the text of the current token is kept.
+   */
+  private static final class CharLexer extends Lexer {
+    private final Reader reader;   // or null if all the characters are in the buffer
+    private char[] buffer;
+    private int position;
+    private int limit;
+
+    private CharLexer(char[] buffer) {
+      this(buffer, 0, buffer.length);
+    }
+
+    private CharLexer(char[] buffer, int position, int limit) {
+      this.reader = null;
+      this.buffer = buffer;
+      this.position = position;
+      this.limit = limit;
+    }
+
+    private CharLexer(Reader reader) {
+      this.reader = reader;
+      this.buffer = new char[BUFFER_SIZE];
+    }
+
+    /**
+     * Refills the buffer keeping the characters of the current token,
+     * the buffer grows if the current token is bigger than the buffer.
+     *
+     * @return false if there is no more characters.
+     */
+    private boolean fill() {
+      if (reader == null) {
+        return false;
+      }
+      if (start != 0) {
+        System.arraycopy(buffer, start, buffer, 0, limit - start);
+        offset += start;
+        position -= start;
+        limit -= start;
+        start = 0;
+      }
+      if (limit == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length << 1);
+      }
+      int read;
+      try {
+        read = reader.read(buffer, limit, buffer.length - limit);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      if (read == -1) {
+        return false;
+      }
+      limit += read;
+      return true;
+    }
+
+    @Override
+    Kind next() {
+      char c;
+      for(;;) {
+        if (position == limit) {
+          start = position;
+          if (!fill()) {
+            throw new IllegalStateException("no token recognized");
+          }
+        }
+        c = buffer[position];
+        if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+          break;
+        }
+        position++;
+      }
+      start = position++;
+      return kind = switch (c) {
+        case '{' -> LEFT_CURLY;
+        case '}' -> RIGHT_CURLY;
+        case '[' -> LEFT_BRACKET;
+        case ']' -> RIGHT_BRACKET;
+        case ':' -> COLON;
+        case ',' -> COMMA;
+        case '"' -> string();
+        case 'n' -> literal("null", NULL);
+        case 't' -> literal("true", TRUE);
+        case 'f' -> literal("false", FALSE);
+        case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> number();
+        default -> throw error("no token recognized");
+      };
+    }
+
+    private Kind literal(String literal, Kind kind) {
+      for(var i = 1; i < literal.length(); i++) {
+        if ((position == limit && !fill()) || buffer[position] != literal.charAt(i)) {
+          throw error("no token recognized");
+        }
+        position++;
+      }
+      return kind;
+    }
+
+    private Kind string() {
+      var buffer = this.buffer;
+      var position = this.position;
+      var limit = this.limit;
+      var escaped = false;
+      for(;; position++) {
+        while (position >= limit) {  // after an escape, position can be after the limit
+          this.position = position;
+          if (!fill()) {
+            throw error("unterminated string");
+          }
+          buffer = this.buffer;
+          position = this.position;
+          limit = this.limit;
+        }
+        var c = buffer[position];
+        if (c == '"') {
+          break;
+        }
+        if (c == '\\') {
+          escaped = true;
+          position++;
+        }
+      }
+      this.start++;  // skip the leading quote
+      this.end = position;
+      this.escaped = escaped;
+      this.position = position + 1;
+      return STRING;
+    }
+
+    @Override
+    int after() {
+      return offset + position;
+    }
+
+    @Override
+    void skipNested() {
+      var depth = 1;
+      var inString = false;
+      var escape = false;
       for(;;) {
-        if (!matcher.find()) {
-          throw new IllegalStateException("no token recognized");
+        if (position == limit) {
+          start = position;  // nothing to keep
+          if (!fill()) {
+            throw error("unterminated " + (kind == LEFT_CURLY ? "object" : "array"));
+          }
+        }
+        var c = buffer[position++];
+        if (inString) {
+          if (escape) {
+            escape = false;
+          } else if (c == '\\') {
+            escape = true;
+          } else if (c == '"') {
+            inString = false;
+          }
+          continue;
         }
-        var index = rangeClosed(1, matcher.groupCount()).filter(i -> matcher.group(i) != null).findFirst().orElseThrow();
-        var kind = Kind.VALUES[index - 1];
-        if (kind != Kind.BLANK) {
-          return new Token(kind, matcher.group(index), matcher.start(index));
+        switch (c) {
+          case '"' -> inString = true;
+          case '{', '[' -> depth++;
+          case '}', ']' -> {
+            if (--depth == 0) {
+              start = position - 1;
+              end = position;
+              kind = c == '}' ? RIGHT_CURLY : RIGHT_BRACKET;
+              return;
+            }
+          }
+          default -> {}
         }
       }
     }
+
+    private Kind number() {
+      startNumber();
+      var buffer = this.buffer;
+      var position = start;
+      var limit = this.limit;
+      var state = NUMBER_START;
+      for(;; position++) {
+        if (position == limit) {
+          this.position = position;
+          if (!fill()) {
+            break;
+          }
+          buffer = this.buffer;
+          position = this.position;
+          limit = this.limit;
+        }
+        var next = numberState(state, buffer[position]);
+        if (next == NUMBER_END) {
+          break;
+        }
+        state = next;
+      }
+      this.end = this.position = position;
+      return endNumber(state);
+    }
+
+    @Override
+    String text() {
+      if (!escaped) {
+        return new String(buffer, start, end - start);
+      }
+      var builder = new StringBuilder(end - start);
+      for(var i = start; i < end; i++) {
+        var c = buffer[i];
+        if (c != '\\') {
+          builder.append(c);
+          continue;
+        }
+        c = buffer[++i];
+        if (c == 'u') {
+          if (i + 4 >= end) {
+            throw new IllegalStateException("invalid unicode escape at " + (offset + i));
+          }
+          builder.append((char) Integer.parseInt(new String(buffer, i + 1, 4), 16));
+          i += 4;
+          continue;
+        }
+        builder.append(unescape(c, offset + i));
+      }
+      return builder.toString();
+    }
+
+    @Override
+    int keyIndex(KeyPlan plan, int expected) {
+      return escaped ? -1 : plan.find(buffer, start, end, expected);
+    }
+
+    @Override
+    String numberText() {
+      return new String(buffer, start, end - start);
+    }
+  }
+
+  /**
+   * A lexer on the bytes of a text encoded in UTF-8.
+   * All the characters of the JSON syntax are ASCII so the bytes are never decoded,
+   * apart for the text of a STRING when it's required by the visitor.
+   *
+   * Like the {@link CharLexer}, the buffer is refilled using an {@link Refiller} if there is one.
+   */
+  private static final class ByteLexer extends Lexer {
+    @FunctionalInterface
+    private interface Refiller {
+      int read(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    private final Refiller refiller;   // or null if all the bytes are in the buffer
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean ascii;  // true if the current STRING only contains ASCII characters
+
+    private ByteLexer(byte[] buffer, int position, int limit) {
+      this.refiller = null;
+      this.buffer = buffer;
+      this.position = position;
+      this.limit = limit;
+      this.offset = -position;
+    }
+
+    private ByteLexer(Refiller refiller) {
+      this.refiller = refiller;
+      this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Lexes a token already in memory, used by {@link PushParser}.
+     *
+     * @param buffer the bytes of the token
+     * @param limit the end of the token
+     * @param offset the offset of the token in the whole text
+     */
+    void reset(byte[] buffer, int limit, int offset) {
+      this.buffer = buffer;
+      this.position = 0;
+      this.limit = limit;
+      this.offset = offset;
+    }
+
+    boolean isAtEnd() {
+      return position == limit;
+    }
+
+    private static ByteLexer of(ByteBuffer input) {
+      if (input.hasArray()) {
+        return new ByteLexer(input.array(), input.arrayOffset() + input.position(), input.arrayOffset() + input.limit());
+      }
+      var source = input.duplicate();
+      return new ByteLexer((buffer, offset, length) -> {
+        if (!source.hasRemaining()) {
+          return -1;
+        }
+        var read = Math.min(length, source.remaining());
+        source.get(buffer, offset, read);
+        return read;
+      });
+    }
+
+    /**
+     * Refills the buffer keeping the bytes of the current token,
+     * the buffer grows if the current token is bigger than the buffer.
+     *
+     * @return false if there is no more bytes.
+     */
+    private boolean fill() {
+      if (refiller == null) {
+        return false;
+      }
+      if (start != 0) {
+        System.arraycopy(buffer, start, buffer, 0, limit - start);
+        offset += start;
+        position -= start;
+        limit -= start;
+        start = 0;
+      }
+      if (limit == buffer.length) {
+        buffer = Arrays.copyOf(buffer, buffer.length << 1);
+      }
+      int read;
+      do {
+        try {
+          read = refiller.read(buffer, limit, buffer.length - limit);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      } while (read == 0);
+      if (read == -1) {
+        return false;
+      }
+      limit += read;
+      return true;
+    }
+
+    @Override
+    Kind next() {
+      byte c;
+      for(;;) {
+        if (position == limit) {
+          start = position;
+          if (!fill()) {
+            throw new IllegalStateException("no token recognized");
+          }
+        }
+        c = buffer[position];
+        if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+          break;
+        }
+        position++;
+      }
+      start = position++;
+      return kind = switch (c) {
+        case '{' -> LEFT_CURLY;
+        case '}' -> RIGHT_CURLY;
+        case '[' -> LEFT_BRACKET;
+        case ']' -> RIGHT_BRACKET;
+        case ':' -> COLON;
+        case ',' -> COMMA;
+        case '"' -> string();
+        case 'n' -> literal("null", NULL);
+        case 't' -> literal("true", TRUE);
+        case 'f' -> literal("false", FALSE);
+        case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> number();
+        default -> throw error("no token recognized");
+      };
+    }
+
+    private Kind literal(String literal, Kind kind) {
+      for(var i = 1; i < literal.length(); i++) {
+        if ((position == limit && !fill()) || buffer[position] != literal.charAt(i)) {
+          throw error("no token recognized");
+        }
+        position++;
+      }
+      return kind;
+    }
+
+    private Kind string() {
+      var buffer = this.buffer;
+      var position = this.position;
+      var limit = this.limit;
+      var escaped = false;
+      var ascii = true;
+      for(;; position++) {
+        while (position >= limit) {  // after an escape, position can be after the limit
+          this.position = position;
+          if (!fill()) {
+            throw error("unterminated string");
+          }
+          buffer = this.buffer;
+          position = this.position;
+          limit = this.limit;
+        }
+        var c = buffer[position];
+        if (c == '"') {
+          break;
+        }
+        if (c == '\\') {
+          escaped = true;
+          position++;
+        }
+        ascii &= c >= 0;
+      }
+      this.start++;  // skip the leading quote
+      this.end = position;
+      this.escaped = escaped;
+      this.ascii = ascii;
+      this.position = position + 1;
+      return STRING;
+    }
+
+    @Override
+    int after() {
+      return offset + position;
+    }
+
+    @Override
+    void skipNested() {
+      var depth = 1;
+      var inString = false;
+      var escape = false;
+      for(;;) {
+        if (position == limit) {
+          start = position;  // nothing to keep
+          if (!fill()) {
+            throw error("unterminated " + (kind == LEFT_CURLY ? "object" : "array"));
+          }
+        }
+        var c = buffer[position++];
+        if (inString) {
+          if (escape) {
+            escape = false;
+          } else if (c == '\\') {
+            escape = true;
+          } else if (c == '"') {
+            inString = false;
+          }
+          continue;
+        }
+        switch (c) {
+          case '"' -> inString = true;
+          case '{', '[' -> depth++;
+          case '}', ']' -> {
+            if (--depth == 0) {
+              start = position - 1;
+              end = position;
+              kind = c == '}' ? RIGHT_CURLY : RIGHT_BRACKET;
+              return;
+            }
+          }
+          default -> {}
+        }
+      }
+    }
+
+    private Kind number() {
+      startNumber();
+      var buffer = this.buffer;
+      var position = start;
+      var limit = this.limit;
+      var state = NUMBER_START;
+      for(;; position++) {
+        if (position == limit) {
+          this.position = position;
+          if (!fill()) {
+            break;
+          }
+          buffer = this.buffer;
+          position = this.position;
+          limit = this.limit;
+        }
+        var next = numberState(state, buffer[position]);
+        if (next == NUMBER_END) {
+          break;
+        }
+        state = next;
+      }
+      this.end = this.position = position;
+      return endNumber(state);
+    }
+
+    private String decode(int from, int to) {
+      // ISO_8859_1 is a plain copy, it's only valid if all the bytes are ASCII
+      return new String(buffer, from, to - from, ascii ? ISO_8859_1 : UTF_8);
+    }
+
+    @Override
+    String text() {
+      if (!escaped) {
+        return decode(start, end);
+      }
+      var builder = new StringBuilder(end - start);
+      var from = start;
+      for(var i = start; i < end; i++) {
+        if (buffer[i] != '\\') {
+          continue;
+        }
+        builder.append(decode(from, i));
+        var c = (char) buffer[++i];
+        if (c == 'u') {
+          if (i + 4 >= end) {
+            throw new IllegalStateException("invalid unicode escape at " + (offset + i));
+          }
+          builder.append((char) Integer.parseInt(new String(buffer, i + 1, 4, ISO_8859_1), 16));
+          i += 4;
+        } else {
+          builder.append(unescape(c, offset + i));
+        }
+        from = i + 1;
+      }
+      return builder.append(decode(from, end)).toString();
+    }
+
+    @Override
+    int keyIndex(KeyPlan plan, int expected) {
+      return escaped ? -1 : plan.find(buffer, start, end, expected);
+    }
+
+    @Override
+    String numberText() {
+      return new String(buffer, start, end - start, ISO_8859_1);
+    }
+  }
+
+  private static char unescape(char c, int location) {
+    return switch (c) {
+      case '"', '\\', '/' -> c;
+      case 'b' -> '\b';
+      case 'f' -> '\f';
+      case 'n' -> '\n';
+      case 'r' -> '\r';
+      case 't' -> '\t';
+      default -> throw new IllegalStateException("invalid escape sequence at " + location);
+    };
   }
 
   /**
@@ -92,6 +828,75 @@ class ToyJSONParser {
      */
     void value(String key, Object value);
 
+    /**
+     * Called during the parsing or the content of an object or an array for an integer value
+     * that fits in an int. By default, calls {@link #value(String, Object)} with the boxed value.
+     *
+     * @param key the key of the value if inside an object, {@code null} otherwise.
+     * @param value the value
+     */
+    default void valueInt(String key, int value) {
+      value(key, value);
+    }
+
+    /**
+     * Called during the parsing or the content of an object or an array for an integer value
+     * that does not fit in an int. By default, calls {@link #value(String, Object)} with the boxed value.
+     *
+     * @param key the key of the value if inside an object, {@code null} otherwise.
+     * @param value the value
+     */
+    default void valueLong(String key, long value) {
+      value(key, value);
+    }
+
+    /**
+     * Called during the parsing or the content of an object or an array for a decimal value.
+     * By default, calls {@link #value(String, Object)} with the boxed value.
+     *
+     * @param key the key of the value if inside an object, {@code null} otherwise.
+     * @param value the value
+     */
+    default void valueDouble(String key, double value) {
+      value(key, value);
+    }
+
+    /**
+     * Called during the parsing or the content of an object or an array for {@code true} or {@code false}.
+     * By default, calls {@link #value(String, Object)} with the boxed value.
+     *
+     * @param key the key of the value if inside an object, {@code null} otherwise.
+     * @param value the value
+     */
+    default void valueBoolean(String key, boolean value) {
+      value(key, value);
+    }
+
+    /**
+     * Called during the parsing of the content of an object before the value of a key is parsed.
+     * If this method returns true, the value is skipped without calling any other method of the visitor,
+     * an object or an array is skipped by counting the brackets without creating any token.
+     * By default, returns false.
+     *
+     * @param key the key of the value
+     * @return true if the value should be skipped.
+     */
+    default boolean skipKey(String key) {
+      return false;
+    }
+
+    /**
+     * Called at the start of the content of an object, after {@link #startObject(String)}, to get the keys
+     * the object is expected to contain. If a key of the object is in the plan, the parser passes
+     * the String of the plan to the visitor instead of creating a new one.
+     * By default, returns null, i.e. no plan.
+     *
+     * @return the plan of the keys of the current object or null.
+     */
+    default KeyPlan keyPlan() {
+      return null;
+    }
+
     /**
      * Called during the parsing at the beginning of an object.
      * @param key the key of the value if inside an object, {@code null} otherwise.
@@ -125,26 +930,650 @@ class ToyJSONParser {
     void endArray(String key);
   }
 
-  private static final Pattern PATTERN = compile(Arrays.stream(Kind.VALUES).map(k -> k.regex).collect(joining("|")));
+  // the characters of a String are copied in a buffer taken from a pool, a parse takes the buffer
+  // of the slot of the current thread and gives it back at the end, like ByteOutput,
+  // a concurrent or a reentrant parse that finds the slot empty uses a new buffer
+  private static final int MAX_POOLED_CHARS = 64 * 1_024;
+  private static final SlotPool<char[]> CHARS_POOL = new SlotPool<>();
 
   /**
    * Parse a JSON text and calls the visitor methods when an array, an object or a value is parsed.
+   * The characters of the text are copied in a pooled buffer, so parsing a text that is not too big
+   * does not allocate a copy of the text.
    *
    * @param input a JSON text
    * @param visitor the visitor to call when parsing the JSON text
    */
   public static void parse(String input, JSONVisitor visitor) {
-    var lexer = new Lexer(PATTERN.matcher(input));
+    var length = input.length();
+    var buffer = length <= MAX_POOLED_CHARS ? CHARS_POOL.acquire() : null;
+    if (buffer == null || buffer.length < length) {
+      buffer = new char[length <= MAX_POOLED_CHARS ? Math.max(length, Lexer.BUFFER_SIZE) : length];
+    }
+    input.getChars(0, length, buffer, 0);
+    var lexer = new CharLexer(buffer, 0, length);
     try {
       parse(lexer, visitor);
     } catch(IllegalStateException e) {
       throw new IllegalStateException(e.getMessage() + "\n while parsing " + input, e);
+    } finally {
+      if (buffer.length <= MAX_POOLED_CHARS) {
+        CHARS_POOL.release(buffer);
+      }
+    }
+  }
+
+  /**
+   * Parse a JSON text read from a reader and calls the visitor methods when an array, an object or a value is parsed.
+   * The characters are read incrementally, so only the text of the current token is kept in memory.
+   *
+   * @param reader a reader providing a JSON text
+   * @param visitor the visitor to call when parsing the JSON text
+   * @throws IOException if an I/O error occurs
+   */
+  public static void parse(Reader reader, JSONVisitor visitor) throws IOException {
+    var lexer = new CharLexer(reader);
+    try {
+      parse(lexer, visitor);
+    } catch(UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Parse a JSON text encoded in UTF-8 and calls the visitor methods when an array, an object or a value is parsed.
+   * The bytes are not decoded, only the text of the keys and the strings are.
+   *
+   * @param input a JSON text encoded in UTF-8
+   * @param visitor the visitor to call when parsing the JSON text
+   */
+  public static void parse(byte[] input, JSONVisitor visitor) {
+    parse(new ByteLexer(input, 0, input.length), visitor);
+  }
+
+  /**
+   * Parse a JSON text encoded in UTF-8 and calls the visitor methods when an array, an object or a value is parsed.
+   * The bytes between the position and the limit of the buffer are parsed,
+   * the position of the buffer is not modified.
+   *
+   * @param input a JSON text encoded in UTF-8
+   * @param visitor the visitor to call when parsing the JSON text
+   */
+  public static void parse(ByteBuffer input, JSONVisitor visitor) {
+    parse(ByteLexer.of(input), visitor);
+  }
+
+  /**
+   * Parse a JSON text encoded in UTF-8 read from an input stream and calls the visitor methods
+   * when an array, an object or a value is parsed.
+   * The bytes are read incrementally, so only the text of the current token is kept in memory.
+   *
+   * @param input an input stream providing a JSON text encoded in UTF-8
+   * @param visitor the visitor to call when parsing the JSON text
+   * @throws IOException if an I/O error occurs
+   */
+  public static void parse(InputStream input, JSONVisitor visitor) throws IOException {
+    var lexer = new ByteLexer(input::read);
+    try {
+      parse(lexer, visitor);
+    } catch(UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Parse the elements {@code from} to {@code to} (exclusive) of a top-level JSON array
+   * as if they were the elements of an array.
+   * The boundaries of the elements are specified by the separators computed by {@link StructuralIndex}.
+   *
+   * @param input a JSON text
+   * @param separators the separators of the elements of the top-level array
+   * @param from the index of the first element
+   * @param to the index of the last element (exclusive)
+   * @param visitor the visitor to call when parsing the elements
+   */
+  static void parseElements(char[] input, int[] separators, int from, int to, JSONVisitor visitor) {
+    parseElements(new CharLexer(input, separators[from], separators[to] + 1), to - from, visitor);
+  }
+
+  /**
+   * Parse the elements {@code from} to {@code to} (exclusive) of a top-level JSON array encoded in UTF-8
+   * as if they were the elements of an array.
+   * The boundaries of the elements are specified by the separators computed by {@link StructuralIndex}.
+   *
+   * @param input a JSON text encoded in UTF-8
+   * @param separators the separators of the elements of the top-level array
+   * @param from the index of the first element
+   * @param to the index of the last element (exclusive)
+   * @param visitor the visitor to call when parsing the elements
+   */
+  static void parseElements(byte[] input, int[] separators, int from, int to, JSONVisitor visitor) {
+    var lexer = new ByteLexer(input, separators[from], separators[to] + 1);
+    lexer.offset = 0;  // report the positions relative to the whole text
+    parseElements(lexer, to - from, visitor);
+  }
+
+  private static void parseElements(Lexer lexer, int count, JSONVisitor visitor) {
+    visitor.startArray(null);
+    lexer.next();  // the separator before the first element
+    for (var i = 0; i < count; i++) {
+      lexer.next();
+      parseValue(null, lexer, visitor);
+      lexer.next();
+      if (!lexer.is(COMMA) && !lexer.is(RIGHT_BRACKET)) {
+        throw lexer.error(COMMA, RIGHT_BRACKET);
+      }
+    }
+    visitor.endArray(null);
+  }
+
+  /**
+   * A non-blocking parser of a JSON text encoded in UTF-8 that receives the text by fragments,
+   * the methods of the visitor are called as soon as a token is complete.
+   *
+   * Unlike {@link #parse(ByteBuffer, JSONVisitor)}, the parser is not recursive, the nesting of the objects
+   * and the arrays is stored in arrays, so it can stop at the end of any fragment and resume when
+   * the next fragment is {@link #feed(ByteBuffer) fed}.
+   * Only the bytes of the current string or number are copied, then they are decoded by a {@link ByteLexer}
+   * so the strings, the numbers and the {@link KeyPlan key plans} are handled like by the other parsers.
+   *
+   * The values of the keys skipped by the visitor are still validated but no method of the visitor is called.
+   * A push parser is not thread safe.
+   */
+  static final class PushParser {
+    // states of the grammar
+    private static final int START = 0;
+    private static final int VALUE = 1;
+    private static final int FIRST_VALUE_OR_END = 2;   // after '['
+    private static final int FIRST_KEY_OR_END = 3;     // after '{'
+    private static final int KEY = 4;
+    private static final int AFTER_KEY = 5;
+    private static final int AFTER_VALUE = 6;
+    private static final int DONE = 7;
+
+    // states of the current token
+    private static final int NO_TOKEN = 0;
+    private static final int IN_STRING = 1;
+    private static final int IN_ESCAPE = 2;   // in a string after a backslash
+    private static final int IN_SCALAR = 3;   // in a number or a literal
+
+    private final JSONVisitor visitor;
+    private final ByteLexer lexer = new ByteLexer(new byte[0], 0, 0);
+
+    private byte[] token = new byte[64];
+    private int tokenLength;
+    private int tokenState = NO_TOKEN;
+    private int tokenOffset;
+    private int offset;     // offset of the current byte in the whole text
+    private byte[] chunk;   // used to copy the bytes of a direct buffer
+
+    private int state = START;
+    private int depth;      // number of opened objects and arrays
+    private boolean[] objects = new boolean[16];   // true for an object, false for an array
+    private String[] containerKeys = new String[16];
+    private KeyPlan[] plans = new KeyPlan[16];
+    private int[] expectedKeys = new int[16];
+    private String key;     // key of the next value or null in an array
+    private int skipDepth = -1;   // depth of the key skipped by the visitor or -1
+
+    PushParser(JSONVisitor visitor) {
+      this.visitor = Objects.requireNonNull(visitor);
+    }
+
+    private IllegalStateException error(String message) {
+      return new IllegalStateException(message + " at " + offset);
+    }
+
+    /**
+     * Parses the bytes between the position and the limit of a buffer,
+     * the position of the buffer is set to its limit.
+     *
+     * @param input a fragment of a JSON text encoded in UTF-8
+     * @throws IllegalStateException if the text is not valid
+     */
+    void feed(ByteBuffer input) {
+      if (input.hasArray()) {
+        feed(input.array(), input.arrayOffset() + input.position(), input.arrayOffset() + input.limit());
+        input.position(input.limit());
+        return;
+      }
+      if (chunk == null) {
+        chunk = new byte[Lexer.BUFFER_SIZE];
+      }
+      while (input.hasRemaining()) {
+        var length = Math.min(chunk.length, input.remaining());
+        input.get(chunk, 0, length);
+        feed(chunk, 0, length);
+      }
+    }
+
+    /**
+     * Signals that all the fragments have been fed.
+     *
+     * @throws IllegalStateException if the text is not complete
+     */
+    void endOfInput() {
+      switch (tokenState) {
+        case IN_SCALAR -> {
+          tokenState = NO_TOKEN;
+          token();
+        }
+        case IN_STRING, IN_ESCAPE -> throw error("unterminated string");
+        default -> {}
+      }
+      if (state != DONE) {
+        throw error("unexpected end of input");
+      }
+    }
+
+    private void feed(byte[] bytes, int from, int to) {
+      var i = from;
+      while (i < to) {
+        switch (tokenState) {
+          case IN_STRING, IN_ESCAPE -> {
+            var escape = tokenState == IN_ESCAPE;
+            var j = i;
+            for (; j < to; j++) {
+              var b = bytes[j];
+              if (escape) {
+                escape = false;
+              } else if (b == '\\') {
+                escape = true;
+              } else if (b == '"') {
+                break;
+              }
+            }
+            if (j == to) {
+              append(bytes, i, to);
+              tokenState = escape ? IN_ESCAPE : IN_STRING;
+              offset += to - i;
+              i = to;
+              continue;
+            }
+            append(bytes, i, j + 1);  // with the closing quote
+            offset += j + 1 - i;
+            i = j + 1;
+            tokenState = NO_TOKEN;
+            token();
+          }
+          case IN_SCALAR -> {
+            var j = i;
+            while (j < to && !isDelimiter(bytes[j])) {
+              j++;
+            }
+            append(bytes, i, j);
+            offset += j - i;
+            i = j;
+            if (j < to) {
+              tokenState = NO_TOKEN;
+              token();
+            }
+          }
+          default -> {
+            var b = bytes[i];
+            switch (b) {
+              case ' ', '\t', '\n', '\r' -> {}
+              case '{' -> open(true);
+              case '[' -> open(false);
+              case '}' -> close(true);
+              case ']' -> close(false);
+              case ',' -> comma();
+              case ':' -> colon();
+              default -> {
+                tokenOffset = offset;
+                tokenLength = 0;
+                tokenState = b == '"' ? IN_STRING : IN_SCALAR;
+                append(bytes, i, i + 1);
+              }
+            }
+            offset++;
+            i++;
+          }
+        }
+      }
+    }
+
+    private static boolean isDelimiter(byte b) {
+      return switch (b) {
+        case ' ', '\t', '\n', '\r', ',', ':', '{', '}', '[', ']', '"' -> true;
+        default -> false;
+      };
+    }
+
+    private void append(byte[] bytes, int from, int to) {
+      var length = to - from;
+      if (tokenLength + length > token.length) {
+        token = Arrays.copyOf(token, Math.max(token.length << 1, tokenLength + length));
+      }
+      System.arraycopy(bytes, from, token, tokenLength, length);
+      tokenLength += length;
+    }
+
+    private boolean skipping() {
+      return skipDepth != -1;
+    }
+
+    // a string or a scalar is complete
+    private void token() {
+      lexer.reset(token, tokenLength, tokenOffset);
+      var kind = lexer.next();
+      if (!lexer.isAtEnd()) {
+        throw new IllegalStateException("no token recognized at " + tokenOffset);
+      }
+      switch (state) {
+        case FIRST_KEY_OR_END, KEY -> key(kind);
+        case VALUE, FIRST_VALUE_OR_END -> {
+          if (!skipping()) {
+            value(kind);
+          }
+          afterValue();
+        }
+        default -> throw lexer.error(expectedKinds());
+      }
+    }
+
+    private Kind[] expectedKinds() {
+      return switch (state) {
+        case START -> new Kind[] { LEFT_CURLY, LEFT_BRACKET };
+        case AFTER_KEY -> new Kind[] { COLON };
+        case AFTER_VALUE -> new Kind[] { COMMA, objects[depth - 1] ? RIGHT_CURLY : RIGHT_BRACKET };
+        case FIRST_KEY_OR_END -> new Kind[] { STRING, RIGHT_CURLY };
+        case KEY -> new Kind[] { STRING };
+        case FIRST_VALUE_OR_END -> new Kind[] { NULL, FALSE, TRUE, INTEGER, DOUBLE, STRING, LEFT_CURLY, LEFT_BRACKET, RIGHT_BRACKET };
+        case VALUE -> new Kind[] { NULL, FALSE, TRUE, INTEGER, DOUBLE, STRING, LEFT_CURLY, LEFT_BRACKET };
+        default -> new Kind[0];
+      };
+    }
+
+    private IllegalStateException unexpected(String token) {
+      if (state == DONE) {
+        return error("unexpected " + token + " after the end of the text");
+      }
+      return error("expect " + Arrays.stream(expectedKinds()).map(Kind::name).collect(joining(", ")) + " but recognized " + token);
+    }
+
+    private void key(Kind kind) {
+      if (kind != STRING) {
+        throw lexer.error(STRING);
+      }
+      state = AFTER_KEY;
+      if (skipping()) {
+        return;
+      }
+      var plan = plans[depth - 1];
+      var index = plan == null ? -1 : lexer.keyIndex(plan, expectedKeys[depth - 1]);
+      if (index != -1) {
+        key = plan.key(index);
+        expectedKeys[depth - 1] = index + 1;
+      } else {
+        key = lexer.text();
+      }
+      if (visitor.skipKey(key)) {
+        skipDepth = depth;
+      }
+    }
+
+    private void value(Kind kind) {
+      switch (kind) {
+        case NULL -> visitor.value(key, null);
+        case FALSE -> visitor.valueBoolean(key, false);
+        case TRUE -> visitor.valueBoolean(key, true);
+        case INTEGER -> {
+          var value = lexer.longValue;
+          if (value == (int) value) {
+            visitor.valueInt(key, (int) value);
+          } else {
+            visitor.valueLong(key, value);
+          }
+        }
+        case DOUBLE -> visitor.valueDouble(key, lexer.doubleValue());
+        case STRING -> visitor.value(key, lexer.text());
+        default -> throw new AssertionError();
+      }
+    }
+
+    private void afterValue() {
+      if (depth == skipDepth) {
+        skipDepth = -1;
+      }
+      state = depth == 0 ? DONE : AFTER_VALUE;
+    }
+
+    private void open(boolean object) {
+      if (state != START && state != VALUE && state != FIRST_VALUE_OR_END) {
+        throw unexpected(object ? "LEFT_CURLY" : "LEFT_BRACKET");
+      }
+      if (depth == objects.length) {
+        objects = Arrays.copyOf(objects, depth << 1);
+        containerKeys = Arrays.copyOf(containerKeys, depth << 1);
+        plans = Arrays.copyOf(plans, depth << 1);
+        expectedKeys = Arrays.copyOf(expectedKeys, depth << 1);
+      }
+      var skipping = skipping();
+      if (!skipping) {
+        if (object) {
+          visitor.startObject(key);
+        } else {
+          visitor.startArray(key);
+        }
+      }
+      objects[depth] = object;
+      containerKeys[depth] = key;
+      plans[depth] = object && !skipping ? visitor.keyPlan() : null;
+      expectedKeys[depth] = 0;
+      depth++;
+      key = null;
+      state = object ? FIRST_KEY_OR_END : FIRST_VALUE_OR_END;
+    }
+
+    private void close(boolean object) {
+      if (depth == 0 || objects[depth - 1] != object ||
+          (state != AFTER_VALUE && state != (object ? FIRST_KEY_OR_END : FIRST_VALUE_OR_END))) {
+        throw unexpected(object ? "RIGHT_CURLY" : "RIGHT_BRACKET");
+      }
+      depth--;
+      var containerKey = containerKeys[depth];
+      containerKeys[depth] = null;
+      plans[depth] = null;
+      if (!skipping()) {
+        if (object) {
+          visitor.endObject(containerKey);
+        } else {
+          visitor.endArray(containerKey);
+        }
+      }
+      afterValue();
+    }
+
+    private void comma() {
+      if (state != AFTER_VALUE) {
+        throw unexpected("COMMA");
+      }
+      if (objects[depth - 1]) {
+        state = KEY;
+      } else {
+        key = null;
+        state = VALUE;
+      }
+    }
+
+    private void colon() {
+      if (state != AFTER_KEY) {
+        throw unexpected("COLON");
+      }
+      state = VALUE;
+    }
+  }
+
+  /**
+   * A cursor on a JSON text that decodes a value on demand,
+   * a value is identified by the position of its first token in the text.
+   * This is the low level part of {@link JSONDocument}.
+   */
+  static final class Cursor {
+    @FunctionalInterface
+    interface MemberConsumer {
+      void accept(String key, int position);
+    }
+
+    private final char[] chars;  // or null
+    private final byte[] bytes;  // or null
+
+    private Cursor(char[] chars, byte[] bytes) {
+      this.chars = chars;
+      this.bytes = bytes;
+    }
+
+    static Cursor of(String text) {
+      return new Cursor(text.toCharArray(), null);
+    }
+
+    static Cursor ofUTF8(byte[] bytes) {
+      return new Cursor(null, bytes);
+    }
+
+    private Lexer lexer(int position) {
+      Lexer lexer;
+      if (chars != null) {
+        lexer = new CharLexer(chars, position, chars.length);
+      } else {
+        lexer = new ByteLexer(bytes, position, bytes.length);
+        lexer.offset = 0;  // report the positions relative to the whole text
+      }
+      lexer.next();
+      return lexer;
+    }
+
+    /**
+     * Returns the kind of the first token of a value.
+     *
+     * @param position the position of the value
+     * @return the kind of the first token of the value.
+     * @throws IllegalStateException if the token can not start a value.
+     */
+    Kind kind(int position) {
+      var lexer = lexer(position);
+      return switch (lexer.kind) {
+        case NULL, TRUE, FALSE, INTEGER, DOUBLE, STRING, LEFT_CURLY, LEFT_BRACKET -> lexer.kind;
+        default -> throw lexer.error(NULL, FALSE, TRUE, INTEGER, DOUBLE, STRING, LEFT_CURLY, LEFT_BRACKET);
+      };
+    }
+
+    /**
+     * Returns the position of the first value of the text.
+     *
+     * @return the position of the first value of the text.
+     */
+    int first() {
+      var lexer = lexer(0);
+      return lexer.offset + lexer.start;
+    }
+
+    /**
+     * Calls the consumer with the key and the position of the value of each member of an object,
+     * the values are skipped without being decoded.
+     *
+     * @param position the position of the object
+     * @param consumer the consumer called for each member
+     */
+    void members(int position, MemberConsumer consumer) {
+      var lexer = lexer(position);
+      lexer.expect(LEFT_CURLY);
+      lexer.next();
+      if (lexer.is(RIGHT_CURLY)) {
+        return;
+      }
+      for(;;) {
+        lexer.expect(STRING);
+        var key = lexer.text();
+        lexer.next();
+        lexer.expect(COLON);
+        lexer.next();
+        consumer.accept(key, lexer.offset + lexer.start - (lexer.is(STRING) ? 1 : 0));
+        lexer.skipValue();
+        lexer.next();
+        if (lexer.is(RIGHT_CURLY)) {
+          return;
+        }
+        lexer.expect(COMMA);
+        lexer.next();
+      }
+    }
+
+    /**
+     * Calls the consumer with the position of each element of an array,
+     * the elements are skipped without being decoded.
+     *
+     * @param position the position of the array
+     * @param consumer the consumer called for each element
+     */
+    void elements(int position, IntConsumer consumer) {
+      var lexer = lexer(position);
+      lexer.expect(LEFT_BRACKET);
+      lexer.next();
+      if (lexer.is(RIGHT_BRACKET)) {
+        return;
+      }
+      for(;;) {
+        consumer.accept(lexer.offset + lexer.start - (lexer.is(STRING) ? 1 : 0));
+        lexer.skipValue();
+        lexer.next();
+        if (lexer.is(RIGHT_BRACKET)) {
+          return;
+        }
+        lexer.expect(COMMA);
+        lexer.next();
+      }
+    }
+
+    long longValue(int position) {
+      var lexer = lexer(position);
+      lexer.expect(INTEGER);
+      return lexer.longValue;
+    }
+
+    double doubleValue(int position) {
+      var lexer = lexer(position);
+      return switch (lexer.kind) {
+        case INTEGER -> lexer.longValue;
+        case DOUBLE -> lexer.doubleValue();
+        default -> throw lexer.error(INTEGER, DOUBLE);
+      };
+    }
+
+    boolean booleanValue(int position) {
+      var lexer = lexer(position);
+      return switch (lexer.kind) {
+        case TRUE -> true;
+        case FALSE -> false;
+        default -> throw lexer.error(TRUE, FALSE);
+      };
+    }
+
+    String stringValue(int position) {
+      var lexer = lexer(position);
+      lexer.expect(STRING);
+      return lexer.text();
+    }
+
+    /**
+     * Returns the text of the value at a position.
+     *
+     * @param position the position of the value
+     * @return the text of the value.
+     */
+    String text(int position) {
+      var lexer = lexer(position);
+      lexer.skipValue();
+      var end = lexer.after();
+      return chars != null ?
+          new String(chars, position, end - position) :
+          new String(bytes, position, end - position, UTF_8);
     }
   }
 
   private static void parse(Lexer lexer, JSONVisitor visitor) {
-    var token = lexer.next();
-    switch(token.kind) {
+    switch(lexer.next()) {
       case LEFT_CURLY -> {
         visitor.startObject(null);
         parseObject(null, lexer, visitor);
@@ -153,18 +1582,25 @@ class ToyJSONParser {
         visitor.startArray(null);
         parseArray(null, lexer, visitor);
       }
-      default -> throw token.error(LEFT_CURLY, LEFT_BRACKET);
+      default -> throw lexer.error(LEFT_CURLY, LEFT_BRACKET);
     }
   }
 
-  private static void parseValue(String currentKey, Token token, Lexer lexer, JSONVisitor visitor) {
-    switch (token.kind) {
+  private static void parseValue(String currentKey, Lexer lexer, JSONVisitor visitor) {
+    switch (lexer.kind) {
       case NULL -> visitor.value(currentKey, null);
-      case FALSE -> visitor.value(currentKey, false);
-      case TRUE -> visitor.value(currentKey, true);
-      case INTEGER -> visitor.value(currentKey, parseInt(token.text));
-      case DOUBLE -> visitor.value(currentKey, parseDouble(token.text));
-      case STRING -> visitor.value(currentKey, token.text);
+      case FALSE -> visitor.valueBoolean(currentKey, false);
+      case TRUE -> visitor.valueBoolean(currentKey, true);
+      case INTEGER -> {
+        var value = lexer.longValue;
+        if (value == (int) value) {
+          visitor.valueInt(currentKey, (int) value);
+        } else {
+          visitor.valueLong(currentKey, value);
+        }
+      }
+      case DOUBLE -> visitor.valueDouble(currentKey, lexer.doubleValue());
+      case STRING -> visitor.value(currentKey, lexer.text());
       case LEFT_CURLY -> {
         visitor.startObject(currentKey);
         parseObject(currentKey, lexer, visitor);
@@ -173,46 +1609,61 @@ class ToyJSONParser {
         visitor.startArray(currentKey);
         parseArray(currentKey, lexer, visitor);
       }
-      default -> throw token.error(NULL, FALSE, TRUE, INTEGER, DOUBLE, STRING, LEFT_BRACKET, RIGHT_CURLY);
+      default -> throw lexer.error(NULL, FALSE, TRUE, INTEGER, DOUBLE, STRING, LEFT_BRACKET, RIGHT_CURLY);
     }
   }
 
   private static void parseObject(String currentKey, Lexer lexer, JSONVisitor visitor) {
-    var token = lexer.next();
-    if (token.is(RIGHT_CURLY)) {
+    lexer.next();
+    if (lexer.is(RIGHT_CURLY)) {
       visitor.endObject(currentKey);
       return;
     }
+    var plan = visitor.keyPlan();
+    var expected = 0;  // the keys are usually in the order of the plan
     for(;;) {
-      var key = token.expect(STRING);
-      lexer.next().expect(COLON);
-      token = lexer.next();
-      parseValue(key, token, lexer, visitor);
-      token = lexer.next();
-      if (token.is(RIGHT_CURLY)) {
+      lexer.expect(STRING);
+      String key;
+      var index = plan == null ? -1 : lexer.keyIndex(plan, expected);
+      if (index != -1) {
+        key = plan.key(index);
+        expected = index + 1;
+      } else {
+        key = lexer.text();
+      }
+      lexer.next();
+      lexer.expect(COLON);
+      lexer.next();
+      if (visitor.skipKey(key)) {
+        lexer.skipValue();
+      } else {
+        parseValue(key, lexer, visitor);
+      }
+      lexer.next();
+      if (lexer.is(RIGHT_CURLY)) {
         visitor.endObject(currentKey);
         return;
       }
-      token.expect(COMMA);
-      token = lexer.next();
+      lexer.expect(COMMA);
+      lexer.next();
     }
   }
 
   private static void parseArray(String currentKey, Lexer lexer, JSONVisitor visitor) {
-    var token = lexer.next();
-    if (token.is(RIGHT_BRACKET)) {
+    lexer.next();
+    if (lexer.is(RIGHT_BRACKET)) {
       visitor.endArray(currentKey);
       return;
     }
     for(;;) {
-      parseValue(null, token, lexer, visitor);
-      token = lexer.next();
-      if (token.is(RIGHT_BRACKET)) {
+      parseValue(null, lexer, visitor);
+      lexer.next();
+      if (lexer.is(RIGHT_BRACKET)) {
         visitor.endArray(currentKey);
         return;
       }
-      token.expect(COMMA);
-      token = lexer.next();
+      lexer.expect(COMMA);
+      lexer.next();
     }
   }
 }
\ No newline at end of file
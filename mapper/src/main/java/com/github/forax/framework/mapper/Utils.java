@@ -3,6 +3,10 @@ package com.github.forax.framework.mapper;
 import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.InvocationTargetException;
@@ -15,7 +19,12 @@ import java.lang.reflect.WildcardType;
 import java.util.AbstractList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
 import java.util.RandomAccess;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.lang.invoke.MethodType.methodType;
 
 final class Utils {
   private Utils() {
@@ -42,8 +51,52 @@ final class Utils {
     }
   }
 
+  /**
+   * Returns a function that calls the getter directly, the function is spun by the
+   * {@link LambdaMetafactory} so unlike {@link #invokeMethod(Object, Method, Object...)},
+   * there is no argument array, no access check and no exception wrapping per call.
+   *
+   * @param getter a getter with no parameter
+   * @return a function that takes an instance and returns the value of the getter
+   */
+  @SuppressWarnings("unchecked")
+  public static Function<Object, Object> accessor(Method getter) {
+    var lookup = MethodHandles.lookup();
+    try {
+      var target = lookup.unreflect(getter);
+      var callSite = LambdaMetafactory.metafactory(lookup, "apply",
+          methodType(Function.class),
+          methodType(Object.class, Object.class),
+          target,
+          methodType(Object.class, getter.getDeclaringClass()));
+      return (Function<Object, Object>) (Function<?, ?>) callSite.getTarget().invokeExact();
+    } catch (IllegalAccessException e) {
+      throw (IllegalAccessError) new IllegalAccessError().initCause(e);
+    } catch (LambdaConversionException e) {
+      throw new AssertionError(e);
+    } catch (Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  public static MethodHandle unreflect(Method method) {
+    try {
+      return MethodHandles.lookup().unreflect(method);
+    } catch (IllegalAccessException e) {
+      throw (IllegalAccessError) new IllegalAccessError().initCause(e);
+    }
+  }
+
+  public static MethodHandle unreflectConstructor(Constructor<?> constructor) {
+    try {
+      return MethodHandles.lookup().unreflectConstructor(constructor);
+    } catch (IllegalAccessException e) {
+      throw (IllegalAccessError) new IllegalAccessError().initCause(e);
+    }
+  }
+
   @SuppressWarnings("unchecked")   // very wrong but works
-  private static <T extends Throwable> AssertionError rethrow(Throwable cause) throws T {
+  public static <T extends Throwable> AssertionError rethrow(Throwable cause) throws T {
     throw (T) cause;
   }
 
@@ -87,4 +140,56 @@ final class Utils {
       default -> throw new AssertionError("unknown type " + type.getTypeName());
     };
   }
-}
\ No newline at end of file
+
+  /**
+   * Creates a parameterized type without using reflection,
+   * the type is equal to the type returned by the reflection API (same equals and hashCode).
+   *
+   * @param rawType the raw type
+   * @param typeArguments the type arguments
+   * @return a new parameterized type.
+   */
+  public static ParameterizedType parameterizedType(Class<?> rawType, Type... typeArguments) {
+    Objects.requireNonNull(rawType);
+    if (rawType.getTypeParameters().length != typeArguments.length) {
+      throw new IllegalArgumentException("wrong number of type arguments for " + rawType.getName());
+    }
+    return new ParameterizedTypeImpl(rawType, typeArguments.clone());
+  }
+
+  private record ParameterizedTypeImpl(Class<?> rawType, Type[] typeArguments) implements ParameterizedType {
+    @Override
+    public Type[] getActualTypeArguments() {
+      return typeArguments.clone();
+    }
+
+    @Override
+    public Type getRawType() {
+      return rawType;
+    }
+
+    @Override
+    public Type getOwnerType() {
+      return rawType.getDeclaringClass();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof ParameterizedType type &&
+          rawType.equals(type.getRawType()) &&
+          Objects.equals(getOwnerType(), type.getOwnerType()) &&
+          Arrays.equals(typeArguments, type.getActualTypeArguments());
+    }
+
+    @Override
+    public int hashCode() {
+      // same hash code as the implementation of the JDK
+      return Arrays.hashCode(typeArguments) ^ Objects.hashCode(getOwnerType()) ^ rawType.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return rawType.getName() + Arrays.stream(typeArguments).map(Type::getTypeName).collect(Collectors.joining(", ", "<", ">"));
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.github.forax.framework.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.ParameterizedType;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BinaryReaderTest {
+  private static JSONReader jsonReader() {
+    var reader = new JSONReader();
+    reader.addTypeMatcher(type -> Optional.of(type)
+        .flatMap(t -> t instanceof ParameterizedType parameterizedType ? Optional.of(parameterizedType) : Optional.empty())
+        .filter(t -> t.getRawType() == List.class)
+        .map(t -> JSONReader.ObjectBuilder.list(t.getActualTypeArguments()[0])));
+    reader.addTypeMatcher(type -> Optional.of(Utils.erase(type)).filter(Class::isRecord).map(JSONReader.ObjectBuilder::record));
+    return reader;
+  }
+
+  public record Point(int x, int y) {}
+
+  public record Shape(String name, List<Point> points, long id, double area, float ratio, boolean closed, String comment) {}
+
+  public static final class Person {
+    private String name;
+    private int age;
+
+    public String getName() {
+      return name;
+    }
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public int getAge() {
+      return age;
+    }
+    public void setAge(int age) {
+      this.age = age;
+    }
+  }
+
+  @Test
+  public void roundTripRecord() {
+    var shape = new Shape("tri\"angle\" é 😀", List.of(new Point(0, 0), new Point(-3, 4), new Point(Integer.MAX_VALUE, Integer.MIN_VALUE)),
+        Long.MIN_VALUE, 12.5, 0.25f, true, null);
+    var bytes = new BinaryWriter().toBinary(shape);
+    assertEquals(shape, new BinaryReader(jsonReader()).fromBinary(bytes, Shape.class));
+  }
+
+  @Test
+  public void roundTripBean() {
+    var person = new Person();
+    person.setName("Ana");
+    person.setAge(31);
+    var bytes = new BinaryWriter().toBinary(person);
+    var result = new BinaryReader(jsonReader()).fromBinary(bytes, Person.class);
+    assertAll(
+        () -> assertEquals("Ana", result.getName()),
+        () -> assertEquals(31, result.getAge())
+    );
+  }
+
+  @Test
+  public void roundTripTypeReference() {
+    var points = List.of(new Point(1, 2), new Point(3, 4));
+    var bytes = new BinaryWriter().toBinary(points);
+    assertEquals(points, new BinaryReader(jsonReader()).fromBinary(bytes, new JSONReader.TypeReference<List<Point>>() {}));
+  }
+
+  @Test
+  public void ignoreUnknownKeysSkipsTheValues() {
+    var bytes = new BinaryWriter().toBinary(Map.of(
+        "x", 1, "unknown", List.of(Map.of("a", "b"), 3L, 4.5, false), "y", 2));
+    var reader = jsonReader();
+    reader.setIgnoreUnknownKeys(true);
+    assertEquals(new Point(1, 2), new BinaryReader(reader).fromBinary(bytes, Point.class));
+  }
+
+  @Test
+  public void readTheSmallestCBORWidths() {
+    // {"x": 1, "y": -300} with the preferred serialization of CBOR
+    var bytes = HexFormat.of().parseHex("a2617801617939012b");
+    assertEquals(new Point(1, -300), new BinaryReader(jsonReader()).fromBinary(bytes, Point.class));
+  }
+
+  @Test
+  public void invalid() {
+    var reader = new BinaryReader(jsonReader());
+    assertAll(
+        () -> assertThrows(IllegalStateException.class, () -> reader.fromBinary(new byte[0], Point.class)),
+        () -> assertThrows(IllegalStateException.class, () -> reader.fromBinary(HexFormat.of().parseHex("01"), Point.class)),
+        () -> assertThrows(IllegalStateException.class, () -> reader.fromBinary(HexFormat.of().parseHex("a26178"), Point.class)),
+        () -> assertThrows(IllegalStateException.class, () -> reader.fromBinary(HexFormat.of().parseHex("a1017801"), Point.class)),
+        () -> assertThrows(IllegalStateException.class, () -> reader.fromBinary(HexFormat.of().parseHex("bf"), Point.class)),
+        () -> assertThrows(IllegalStateException.class, () -> reader.fromBinary(HexFormat.of().parseHex("a0f6"), Point.class)),
+        () -> assertThrows(NullPointerException.class, () -> new BinaryReader(null))
+    );
+  }
+}
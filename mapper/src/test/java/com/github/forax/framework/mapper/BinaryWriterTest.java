@@ -0,0 +1,104 @@
+package com.github.forax.framework.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BinaryWriterTest {
+  private static String hex(Object o) {
+    return HexFormat.of().formatHex(new BinaryWriter().toBinary(o));
+  }
+
+  @Test
+  public void primitives() {
+    assertAll(
+        () -> assertEquals("f6", hex(null)),
+        () -> assertEquals("f5", hex(true)),
+        () -> assertEquals("f4", hex(false)),
+        () -> assertEquals("1a0000002a", hex(42)),
+        () -> assertEquals("3a00000000", hex(-1)),
+        () -> assertEquals("3a7fffffff", hex(Integer.MIN_VALUE)),
+        () -> assertEquals("1a00000007", hex((short) 7)),
+        () -> assertEquals("3a00000002", hex((byte) -3)),
+        () -> assertEquals("1b00000002540be400", hex(10_000_000_000L)),
+        () -> assertEquals("3b7fffffffffffffff", hex(Long.MIN_VALUE)),
+        () -> assertEquals("fb3ff8000000000000", hex(1.5)),
+        () -> assertEquals("fa3fc00000", hex(1.5f))
+    );
+  }
+
+  @Test
+  public void strings() {
+    assertAll(
+        () -> assertEquals("7a00000000", hex("")),
+        () -> assertEquals("7a00000003666f6f", hex("foo")),
+        // no escape
+        () -> assertEquals("7a00000003610a22", hex("a\n\"")),
+        () -> assertEquals("7a00000003c3a92b", hex("é+")),
+        () -> assertEquals("7a00000004f09f9880", hex("😀")),
+        () -> assertEquals("7a000000013f", hex("\ud83d")),
+        () -> assertEquals("7a0000000178", hex('x')),
+        () -> assertEquals("7a00000003e282ac", hex('€')),
+        () -> assertEquals("7a000000013f", hex('\ud83d'))
+    );
+  }
+
+  @Test
+  public void unpairedSurrogateDoesNotMergeWithTheNextString() {
+    assertEquals("9a000000027a000000013f7a000000013f", hex(List.of("\ud83d", "\ude00")));
+  }
+
+  @Test
+  public void collectionsAndMaps() {
+    var map = new LinkedHashMap<Object, Object>();
+    map.put("a", 1);
+    map.put(2, null);
+    assertAll(
+        () -> assertEquals("9a00000002f5f4", hex(List.of(true, false))),
+        () -> assertEquals("9a00000002f5f4", hex(new boolean[] { true, false })),
+        () -> assertEquals("9a000000011a00000001", hex(new int[] { 1 })),
+        () -> assertEquals("9a000000011b0000000000000001", hex(new long[] { 1 })),
+        () -> assertEquals("9a00000001fb3ff0000000000000", hex(new double[] { 1 })),
+        () -> assertEquals("9a00000001fa3f800000", hex(new float[] { 1 })),
+        () -> assertEquals("9a00000001f6", hex(new Object[] { null })),
+        () -> assertEquals("ba000000027a00000001611a000000017a0000000132f6", hex(map)),
+        () -> assertEquals("9a000000021a000000013a00007fff", hex(new short[] { 1, Short.MIN_VALUE })),
+        () -> assertEquals("9a000000021a0000007f3a0000007f", hex(new byte[] { 127, Byte.MIN_VALUE })),
+        () -> assertEquals("9a000000027a00000001617a00000002c3a9", hex(new char[] { 'a', 'é' }))
+    );
+  }
+
+  public record Point(int x, @JSONProperty("y-axis") int y) {}
+
+  public static final class Person {
+    public String getName() {
+      return "Bob";
+    }
+  }
+
+  @Test
+  public void recordsAndBeansUseTheKeysOfJSONWriter() {
+    assertAll(
+        () -> assertEquals("ba00000002"
+            + "7a0000000178" + "1a00000001"
+            + "7a00000006792d61786973" + "1a00000002", hex(new Point(1, 2))),
+        () -> assertEquals("ba00000001" + "7a000000046e616d65" + "7a00000003426f62", hex(new Person()))
+    );
+  }
+
+  @Test
+  public void toBinaryOutputStream() throws IOException {
+    var list = List.of("x".repeat(20_000), 3, new Point(4, 5));
+    var output = new ByteArrayOutputStream();
+    new BinaryWriter().toBinary(list, output);
+    assertArrayEquals(new BinaryWriter().toBinary(list), output.toByteArray());
+  }
+}
@@ -0,0 +1,131 @@
+package com.github.forax.framework.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+public class ByteOutputTest {
+  private static byte[] encode(CharSequence text) throws IOException {
+    var output = new ByteOutput();
+    output.append(text);
+    output.finish();
+    return output.toByteArray();
+  }
+
+  @Test
+  public void appendUTF8() throws IOException {
+    var texts = new String[] {
+        "", "hello", "Zoé", "€10", "😀 smile", "a\ud83d", "\ude00b", "\ud83d😀"
+    };
+    assertAll(Arrays.stream(texts).map(text -> () ->
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), encode(text), text)));
+  }
+
+  @Test
+  public void appendSurrogatePairOneCharAtATime() throws IOException {
+    var output = new ByteOutput();
+    output.append('\ud83d').append('\ude00').append('!');
+    output.finish();
+    assertArrayEquals("😀!".getBytes(StandardCharsets.UTF_8), output.toByteArray());
+  }
+
+  @Test
+  public void appendLargeText() throws IOException {
+    var text = "é€abc".repeat(10_000);
+    assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), encode(text));
+  }
+
+  @Test
+  public void writeLong() throws IOException {
+    var values = new long[] { 0, 7, -7, 10, 99, 100, 123_456_789, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE };
+    var output = new ByteOutput();
+    var expected = new StringBuilder();
+    for (var value : values) {
+      output.writeLong(value);
+      output.write(',');
+      expected.append(value).append(',');
+    }
+    assertEquals(expected.toString(), new String(output.toByteArray(), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void writeRandomLongs() throws IOException {
+    var random = new SplittableRandom(0);
+    var output = new ByteOutput();
+    var expected = new StringBuilder();
+    for (var i = 0; i < 10_000; i++) {
+      var value = random.nextLong() >> random.nextInt(64);
+      output.writeLong(value);
+      output.write(' ');
+      expected.append(value).append(' ');
+    }
+    assertEquals(expected.toString(), new String(output.toByteArray(), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void writeDoublesAndFloats() throws IOException {
+    var output = new ByteOutput();
+    output.writeDouble(0.1);
+    output.write(' ');
+    output.writeDouble(-1e-7);
+    output.write(' ');
+    output.writeFloat(3.4028235e38f);
+    output.write(' ');
+    output.writeFloat(1f);
+    assertEquals("0.1 -1.0E-7 3.4028235E38 1.0", new String(output.toByteArray(), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void sinkIsWrittenWhenTheBufferIsFull() throws IOException {
+    var sink = new ByteArrayOutputStream();
+    var output = ByteOutput.acquire(sink);
+    try {
+      var text = "0123456789".repeat(5_000);
+      output.append(text);
+      output.write("end".getBytes(StandardCharsets.UTF_8));
+      output.flush();
+      assertAll(
+          () -> assertEquals(text + "end", sink.toString(StandardCharsets.UTF_8)),
+          () -> assertEquals(0, output.size())
+      );
+    } finally {
+      output.release();
+    }
+  }
+
+  @Test
+  public void acquireAfterReleaseReturnsAnEmptyBuffer() throws IOException {
+    var output = ByteOutput.acquire(null);
+    output.append("foo");
+    output.release();
+    var output2 = ByteOutput.acquire(null);
+    try {
+      output2.append("bar");
+      assertEquals("bar", new String(output2.toByteArray(), StandardCharsets.UTF_8));
+    } finally {
+      output2.release();
+    }
+  }
+
+  @Test
+  public void aBigBufferIsNotPooled() throws IOException {
+    var output = ByteOutput.acquire(null);
+    output.append("a".repeat(100_000));
+    output.release();
+    var output2 = ByteOutput.acquire(null);
+    try {
+      assertNotSame(output, output2);
+    } finally {
+      output2.release();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package com.github.forax.framework.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JSONDocumentTest {
+  private static final String TEXT = """
+      {
+        "user": { "id": 12345678901, "name": "Bob \\"the\\" builder", "admin": false, "score": 4.5 },
+        "tags": [ "a", { "b": [1, 2] }, 3, null ],
+        "count": 3
+      }
+      """;
+
+  @Test
+  public void getNested() {
+    var document = JSONDocument.parse(TEXT);
+    var user = document.get("user");
+    assertAll(
+        () -> assertTrue(document.isObject()),
+        () -> assertEquals(12345678901L, user.getLong("id")),
+        () -> assertEquals("Bob \"the\" builder", user.getString("name")),
+        () -> assertFalse(user.getBoolean("admin")),
+        () -> assertEquals(4.5, user.getDouble("score")),
+        () -> assertEquals(3, document.getInt("count")),
+        () -> assertEquals(3.0, document.getDouble("count"))
+    );
+  }
+
+  @Test
+  public void getArray() {
+    var tags = JSONDocument.parse(TEXT).get("tags");
+    assertAll(
+        () -> assertTrue(tags.isArray()),
+        () -> assertEquals(4, tags.size()),
+        () -> assertEquals("a", tags.get(0).asString()),
+        () -> assertEquals(2, tags.get(1).get("b").get(1).asInt()),
+        () -> assertEquals(3L, tags.get(2).asLong()),
+        () -> assertTrue(tags.get(3).isNull()),
+        () -> assertThrows(IndexOutOfBoundsException.class, () -> tags.get(4))
+    );
+  }
+
+  @Test
+  public void keys() {
+    var document = JSONDocument.parse(TEXT);
+    assertAll(
+        () -> assertEquals(List.of("user", "tags", "count"), List.copyOf(document.keys())),
+        () -> assertEquals(3, document.size()),
+        () -> assertTrue(document.has("tags")),
+        () -> assertFalse(document.has("foo"))
+    );
+  }
+
+  @Test
+  public void manyKeys() {
+    var text = "{" + String.join(", ", java.util.stream.IntStream.range(0, 100).mapToObj(i -> "\"k" + i + "\": " + i).toList()) + "}";
+    var document = JSONDocument.parse(text);
+    assertAll(
+        () -> assertEquals(100, document.size()),
+        () -> assertEquals(42, document.getInt("k42")),
+        () -> assertFalse(document.has("k100"))
+    );
+  }
+
+  @Test
+  public void parseUTF8() {
+    var document = JSONDocument.parseUTF8("""
+        { "skip": { "é": "日本" }, "name": "été 😀", "id": 7 }
+        """.getBytes(StandardCharsets.UTF_8));
+    assertAll(
+        () -> assertEquals("été 😀", document.getString("name")),
+        () -> assertEquals(7, document.getInt("id")),
+        () -> assertEquals("日本", document.get("skip").getString("é"))
+    );
+  }
+
+  @Test
+  public void untouchedValuesAreNotDecoded() {
+    // the value of "skip" is not valid JSON but it is never decoded
+    var document = JSONDocument.parse("""
+        { "skip": { "a": [tru, , 01x, {] } }, "id": 1 }
+        """);
+    assertEquals(1, document.getInt("id"));
+  }
+
+  @Test
+  public void lastDuplicateKeyWins() {
+    assertEquals(2, JSONDocument.parse("{ \"a\": 1, \"a\": 2 }").getInt("a"));
+  }
+
+  @Test
+  public void asText() {
+    var document = JSONDocument.parse(TEXT);
+    assertAll(
+        () -> assertEquals("[1, 2]", document.get("tags").get(1).get("b").toString()),
+        () -> assertEquals("\"Bob \\\"the\\\" builder\"", document.get("user").get("name").toString()),
+        () -> assertEquals("12345678901", document.get("user").get("id").toString()),
+        () -> assertEquals("null", document.get("tags").get(3).toString())
+    );
+  }
+
+  @Test
+  public void invalid() {
+    var document = JSONDocument.parse(TEXT);
+    assertAll(
+        () -> assertThrows(IllegalStateException.class, () -> document.get("foo")),
+        () -> assertThrows(IllegalStateException.class, () -> document.get(0)),
+        () -> assertThrows(IllegalStateException.class, () -> document.getString("count")),
+        () -> assertThrows(IllegalStateException.class, () -> document.get("user").getLong("score")),
+        () -> assertThrows(IllegalStateException.class, () -> document.get("user").getInt("id")),
+        () -> assertThrows(IllegalStateException.class, () -> document.get("user").get("id").keys()),
+        () -> assertThrows(IllegalStateException.class, () -> JSONDocument.parse(": 1")),
+        () -> assertThrows(IllegalStateException.class, () -> JSONDocument.parse("{ \"a\": { \"b\": 1 }").size())
+    );
+  }
+}
@@ -3,15 +3,39 @@ package com.github.forax.framework.mapper;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class JSONReaderTest {
 
+    // a reader that decodes the records and the lists, shared by the nested tests
+    static JSONReader recordAndListReader() {
+        var reader = new JSONReader();
+        reader.addTypeMatcher(type -> Optional.of(type)
+                .flatMap(t -> t instanceof ParameterizedType parameterizedType ? Optional.of(parameterizedType) : Optional.empty())
+                .filter(t -> t.getRawType() == List.class)
+                .map(t -> JSONReader.ObjectBuilder.list(t.getActualTypeArguments()[0])));
+        reader.addTypeMatcher(type -> Optional.of(Utils.erase(type)).filter(Class::isRecord).map(JSONReader.ObjectBuilder::record));
+        return reader;
+    }
+
     @Nested
     public class Q1 {
 
@@ -590,4 +614,1024 @@ public class JSONReaderTest {
 
     }  // end of Q7
 
-}
\ No newline at end of file
+
+    @Nested
+    public class Streaming {
+
+        @SuppressWarnings("unused")
+        public static class Person {
+            private String name;
+            private int age;
+
+            public void setName(String name) {
+                this.name = name;
+            }
+
+            public void setAge(int age) {
+                this.age = age;
+            }
+        }
+
+        @Test
+        public void readJSONReader() throws IOException {
+            var reader = new JSONReader();
+            var person = reader.readJSON(new StringReader("""
+                    {
+                      "name": "Bob",
+                      "age": 23
+                    }
+                    """), Person.class);
+            assertAll(
+                    () -> assertEquals("Bob", person.name),
+                    () -> assertEquals(23, person.age)
+            );
+        }
+
+        @Test
+        public void readJSONInputStream() throws IOException {
+            var reader = new JSONReader();
+            var name = "\u00c9lodie".repeat(5_000);
+            var input = new ByteArrayInputStream("""
+                    { "name": "%s", "age": 31 }
+                    """.formatted(name).getBytes(StandardCharsets.UTF_8));
+            var person = reader.readJSON(input, Person.class);
+            assertAll(
+                    () -> assertEquals(name, person.name),
+                    () -> assertEquals(31, person.age)
+            );
+        }
+
+        @Test
+        public void readJSONPreconditions() {
+            var reader = new JSONReader();
+            assertAll(
+                    () -> assertThrows(NullPointerException.class, () -> reader.readJSON((Reader) null, Person.class)),
+                    () -> assertThrows(NullPointerException.class, () -> reader.readJSON((InputStream) null, Person.class)),
+                    () -> assertThrows(NullPointerException.class, () -> reader.readJSON(new StringReader("{}"), (Type) null))
+            );
+        }
+
+    }  // end of Streaming
+
+
+    @Nested
+    public class UTF8 {
+
+        public record Person(String name, int age) {
+        }
+
+        @Test
+        public void parseUTF8Bytes() {
+            var reader = recordAndListReader();
+            var person = reader.parseUTF8("""
+                    { "name": "\u00c9lodie", "age": 31 }
+                    """.getBytes(StandardCharsets.UTF_8), Person.class);
+            assertEquals(new Person("\u00c9lodie", 31), person);
+        }
+
+        @Test
+        public void parseUTF8ByteBuffer() {
+            var reader = recordAndListReader();
+            var bytes = """
+                    { "name": "\u65e5\u672c", "age": 7 }
+                    """.getBytes(StandardCharsets.UTF_8);
+            var buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+            var person = reader.parseUTF8(buffer, Person.class);
+            assertEquals(new Person("\u65e5\u672c", 7), person);
+        }
+
+        @Test
+        public void parseUTF8Preconditions() {
+            var reader = new JSONReader();
+            assertAll(
+                    () -> assertThrows(NullPointerException.class, () -> reader.parseUTF8((byte[]) null, Person.class)),
+                    () -> assertThrows(NullPointerException.class, () -> reader.parseUTF8((ByteBuffer) null, Person.class)),
+                    () -> assertThrows(NullPointerException.class, () -> reader.parseUTF8(new byte[0], (Type) null))
+            );
+        }
+
+    }  // end of UTF8
+
+
+    @Nested
+    public class ObjectBuilderCache {
+
+        public record Point(int x, int y) {
+        }
+
+        @Test
+        public void typeMatcherCalledOncePerType() {
+            var reader = new JSONReader();
+            var counter = new int[1];
+            reader.addTypeMatcher(type -> Optional.of(type)
+                    .flatMap(t -> t instanceof ParameterizedType parameterizedType ? Optional.of(parameterizedType) : Optional.empty())
+                    .filter(t -> t.getRawType() == List.class)
+                    .map(t -> JSONReader.ObjectBuilder.list(t.getActualTypeArguments()[0])));
+            reader.addTypeMatcher(type -> {
+                counter[0]++;
+                return Optional.of(Utils.erase(type)).filter(Class::isRecord).map(JSONReader.ObjectBuilder::record);
+            });
+            var points = reader.parseJSON("""
+                    [ { "x": 1, "y": 2 }, { "x": 3, "y": 4 }, { "x": 5, "y": 6 } ]
+                    """, new JSONReader.TypeReference<List<Point>>() {});
+            assertAll(
+                    () -> assertEquals(List.of(new Point(1, 2), new Point(3, 4), new Point(5, 6)), points),
+                    () -> assertEquals(2, counter[0])  // List<Point> and Point
+            );
+        }
+
+        @Test
+        public void addTypeMatcherInvalidatesTheCache() {
+            var reader = new JSONReader();
+            reader.addTypeMatcher(type -> Optional.of(Utils.erase(type)).filter(Class::isRecord).map(JSONReader.ObjectBuilder::record));
+            assertEquals(new Point(1, 2), reader.parseJSON("""
+                    { "x": 1, "y": 2 }
+                    """, Point.class));
+            reader.addTypeMatcher(type -> Optional.of(new JSONReader.ObjectBuilder<>(
+                    key -> int.class,
+                    () -> new int[2],
+                    (array, key, value) -> array[key.equals("x") ? 0 : 1] = (int) value,
+                    array -> new Point(array[1], array[0])
+            )));
+            assertEquals(new Point(2, 1), reader.parseJSON("""
+                    { "x": 1, "y": 2 }
+                    """, Point.class));
+        }
+
+    }  // end of ObjectBuilderCache
+
+
+    @Nested
+    public class PrimitiveValues {
+
+        @SuppressWarnings("unused")
+        public static class Measure {
+            private int count;
+            private long total;
+            private double average;
+            private boolean valid;
+            private Integer boxed;
+
+            public void setCount(int count) {
+                this.count = count;
+            }
+
+            public void setTotal(long total) {
+                this.total = total;
+            }
+
+            public void setAverage(double average) {
+                this.average = average;
+            }
+
+            public void setValid(boolean valid) {
+                this.valid = valid;
+            }
+
+            public void setBoxed(Integer boxed) {
+                this.boxed = boxed;
+            }
+        }
+
+        public record Sample(String name, int count, long total, double average, boolean valid, Long boxed) {
+        }
+
+        @Test
+        public void parseBeanWithPrimitiveSetters() {
+            var reader = new JSONReader();
+            var measure = reader.parseJSON("""
+                    { "count": 3, "total": 12345678901, "average": 2.5, "valid": true, "boxed": 7 }
+                    """, Measure.class);
+            assertAll(
+                    () -> assertEquals(3, measure.count),
+                    () -> assertEquals(12345678901L, measure.total),
+                    () -> assertEquals(2.5, measure.average),
+                    () -> assertTrue(measure.valid),
+                    () -> assertEquals(7, measure.boxed)
+            );
+        }
+
+        @Test
+        public void parseBeanWidensIntegers() {
+            var reader = new JSONReader();
+            var measure = reader.parseJSON("""
+                    { "total": 12, "average": 3 }
+                    """, Measure.class);
+            assertAll(
+                    () -> assertEquals(12L, measure.total),
+                    () -> assertEquals(3.0, measure.average)
+            );
+        }
+
+        @Test
+        public void parseRecordWithPrimitiveComponents() {
+            var reader = new JSONReader();
+            reader.addTypeMatcher(type -> Optional.of(Utils.erase(type)).filter(Class::isRecord).map(JSONReader.ObjectBuilder::record));
+            var sample = reader.parseJSON("""
+                    { "name": "foo", "count": 3, "total": 9223372036854775807, "average": 1.25, "valid": true, "boxed": 12345678901 }
+                    """, Sample.class);
+            assertEquals(new Sample("foo", 3, Long.MAX_VALUE, 1.25, true, 12345678901L), sample);
+        }
+
+        @Test
+        public void parseRecordWithMissingPrimitiveComponents() {
+            var reader = new JSONReader();
+            reader.addTypeMatcher(type -> Optional.of(Utils.erase(type)).filter(Class::isRecord).map(JSONReader.ObjectBuilder::record));
+            var sample = reader.parseJSON("""
+                    { "name": "foo", "average": 4 }
+                    """, Sample.class);
+            assertEquals(new Sample("foo", 0, 0L, 4.0, false, null), sample);
+        }
+    }
+
+    @Nested
+    public class JSONLines {
+
+        public record Event(int id, String name) {
+        }
+
+        @Test
+        public void streamReader() {
+            var reader = recordAndListReader();
+            var text = """
+                    { "id": 1, "name": "foo" }
+
+                    { "id": 2, "name": "bar" }
+                    """;
+            try (var stream = reader.stream(new StringReader(text), Event.class)) {
+                assertEquals(List.of(new Event(1, "foo"), new Event(2, "bar")), stream.toList());
+            }
+        }
+
+        @Test
+        public void streamReaderIsLazy() {
+            var reader = recordAndListReader();
+            var text = """
+                    { "id": 1, "name": "foo" }
+                    { "id": 2, oops
+                    """;
+            try (var stream = reader.stream(new StringReader(text), Event.class)) {
+                assertEquals(new Event(1, "foo"), stream.findFirst().orElseThrow());
+            }
+        }
+
+        @Test
+        public void streamPath(@TempDir Path directory) throws IOException {
+            var reader = recordAndListReader();
+            var path = directory.resolve("events.jsonl");
+            var expected = IntStream.range(0, 20_000).mapToObj(i -> new Event(i, "event \u00e9 " + i)).toList();
+            Files.writeString(path, expected.stream()
+                    .map(event -> "{ \"id\": " + event.id() + ", \"name\": \"" + event.name() + "\" }\r\n")
+                    .collect(Collectors.joining()));
+            try (var stream = reader.stream(path, Event.class)) {
+                assertEquals(expected, stream.toList());
+            }
+            try (var stream = reader.stream(path, Event.class)) {
+                assertEquals(expected, stream.parallel().toList());
+            }
+        }
+
+        @Test
+        public void streamPathWithoutTrailingNewLine(@TempDir Path directory) throws IOException {
+            var reader = recordAndListReader();
+            var path = directory.resolve("events.jsonl");
+            Files.writeString(path, "{ \"id\": 1, \"name\": \"foo\" }\n\n{ \"id\": 2, \"name\": \"bar\" }");
+            try (var stream = reader.stream(path, Event.class)) {
+                assertEquals(List.of(new Event(1, "foo"), new Event(2, "bar")), stream.toList());
+            }
+        }
+
+        @Test
+        public void streamPathEmpty(@TempDir Path directory) throws IOException {
+            var path = Files.createFile(directory.resolve("empty.jsonl"));
+            try (var stream = recordAndListReader().stream(path, Event.class)) {
+                assertEquals(0, stream.count());
+            }
+        }
+
+        @Test
+        public void streamPathInvalid(@TempDir Path directory) throws IOException {
+            var path = directory.resolve("events.jsonl");
+            Files.writeString(path, "{ \"id\": 1, \"name\": \"foo\" }\n{ \"id\": 2, oops }\n");
+            try (var stream = recordAndListReader().stream(path, Event.class)) {
+                assertThrows(IllegalStateException.class, stream::toList);
+            }
+        }
+    }
+
+    @Nested
+    public class Parallel {
+
+        public record Item(int id, String label, List<String> tags) {
+        }
+
+        private static String itemsText(int count) {
+            return IntStream.range(0, count)
+                    .mapToObj(i -> "{ \"id\": " + i + ", \"label\": \"[a, \\\"b\\\"] {" + i + "} \u00e9\", \"tags\": [\"x\", \"y\"] }")
+                    .collect(Collectors.joining(",\n", "[\n", "\n]\n"));
+        }
+
+        @Test
+        public void parallelParseJSON() {
+            var reader = recordAndListReader();
+            var text = itemsText(50_000);
+            var expected = reader.parseJSON(text, new JSONReader.TypeReference<List<Item>>() {});
+            var items = reader.parallelParseJSON(text, new JSONReader.TypeReference<List<Item>>() {});
+            assertAll(
+                    () -> assertEquals(50_000, items.size()),
+                    () -> assertEquals(new Item(42, "[a, \"b\"] {42} \u00e9", List.of("x", "y")), items.get(42)),
+                    () -> assertEquals(expected, items)
+            );
+        }
+
+        @Test
+        public void parallelParseUTF8() {
+            var reader = recordAndListReader();
+            var text = itemsText(50_000);
+            var expected = reader.parseJSON(text, new JSONReader.TypeReference<List<Item>>() {});
+            var items = reader.parallelParseUTF8(text.getBytes(StandardCharsets.UTF_8), new JSONReader.TypeReference<List<Item>>() {});
+            assertEquals(expected, items);
+        }
+
+        @Test
+        public void parallelParseSmallArrays() {
+            var reader = recordAndListReader();
+            assertAll(
+                    () -> assertEquals(List.of(), reader.parallelParseJSON(" [ ] ", new JSONReader.TypeReference<List<Item>>() {})),
+                    () -> assertEquals(List.of(1, 2, 3), reader.parallelParseJSON("[1, 2, 3]", new JSONReader.TypeReference<List<Integer>>() {})),
+                    () -> assertEquals(List.of(List.of("a"), List.of()), reader.parallelParseUTF8("[[\"a\"], []]".getBytes(StandardCharsets.UTF_8), new JSONReader.TypeReference<List<List<String>>>() {}))
+            );
+        }
+
+        @Test
+        public void parallelParseUnmodifiable() {
+            var items = recordAndListReader().parallelParseJSON("[1, 2]", new JSONReader.TypeReference<List<Integer>>() {});
+            assertThrows(UnsupportedOperationException.class, () -> items.add(3));
+        }
+
+        @Test
+        public void parallelParseInvalid() {
+            var reader = recordAndListReader();
+            var typeReference = new JSONReader.TypeReference<List<Integer>>() {};
+            assertAll(
+                    () -> assertThrows(IllegalStateException.class, () -> reader.parallelParseJSON("{}", typeReference)),
+                    () -> assertThrows(IllegalStateException.class, () -> reader.parallelParseJSON("[1, 2", typeReference)),
+                    () -> assertThrows(IllegalStateException.class, () -> reader.parallelParseJSON("[1, , 2]", typeReference)),
+                    () -> assertThrows(IllegalStateException.class, () -> reader.parallelParseJSON("[1 2]", typeReference)),
+                    () -> assertThrows(IllegalStateException.class, () -> reader.parallelParseUTF8("[1, }".getBytes(StandardCharsets.UTF_8), typeReference))
+            );
+        }
+    }
+
+    @Nested
+    public class IgnoreUnknownKeys {
+
+        @SuppressWarnings("unused")
+        public static class Projection {
+            private String name;
+            private int id;
+
+            public void setName(String name) {
+                this.name = name;
+            }
+
+            public void setId(int id) {
+                this.id = id;
+            }
+        }
+
+        public record Point(int x, int y) {
+        }
+
+        private static final String TEXT = """
+                {
+                  "id": 42,
+                  "payload": { "data": [1, 2.5, "}]", { "deep": [[[]]] }, null, true ], "more": "\\\"" },
+                  "name": "foo",
+                  "extra": [ "a", "b" ],
+                  "flag": false
+                }
+                """;
+
+        @Test
+        public void unknownKeysFailByDefault() {
+            var reader = new JSONReader();
+            assertThrows(IllegalStateException.class, () -> reader.parseJSON(TEXT, Projection.class));
+        }
+
+        @Test
+        public void ignoreUnknownKeysOfABean() {
+            var reader = new JSONReader();
+            reader.setIgnoreUnknownKeys(true);
+            var projection = reader.parseJSON(TEXT, Projection.class);
+            assertAll(
+                    () -> assertEquals("foo", projection.name),
+                    () -> assertEquals(42, projection.id)
+            );
+        }
+
+        @Test
+        public void ignoreUnknownKeysOfARecord() {
+            var reader = new JSONReader();
+            reader.setIgnoreUnknownKeys(true);
+            reader.addTypeMatcher(type -> Optional.of(Utils.erase(type)).filter(Class::isRecord).map(JSONReader.ObjectBuilder::record));
+            assertEquals(new Point(1, 2), reader.parseJSON("""
+                    { "z": { "a": [ 3 ] }, "x": 1, "label": "}", "y": 2 }
+                    """, Point.class));
+        }
+
+        @Test
+        public void ignoreUnknownKeysWithUTF8() {
+            var reader = new JSONReader();
+            reader.setIgnoreUnknownKeys(true);
+            var projection = reader.parseUTF8(TEXT.getBytes(StandardCharsets.UTF_8), Projection.class);
+            assertEquals("foo", projection.name);
+        }
+
+        @Test
+        public void ignoreUnknownKeysWithAReader() throws IOException {
+            var reader = new JSONReader();
+            reader.setIgnoreUnknownKeys(true);
+            var projection = reader.readJSON(new Reader() {  // one character at a time
+                private final StringReader reader = new StringReader(TEXT);
+
+                @Override
+                public int read(char[] buffer, int offset, int length) throws IOException {
+                    return reader.read(buffer, offset, Math.min(1, length));
+                }
+
+                @Override
+                public void close() {
+                    reader.close();
+                }
+            }, Projection.class);
+            assertEquals(42, projection.id);
+        }
+
+        @Test
+        public void keyFilterOfACustomObjectBuilder() {
+            var reader = new JSONReader();
+            reader.setIgnoreUnknownKeys(true);
+            reader.addTypeMatcher(type -> Optional.of(new JSONReader.ObjectBuilder<>(
+                    key -> int.class,
+                    () -> new int[2],
+                    (array, key, value) -> array[key.equals("x") ? 0 : 1] = (int) value,
+                    array -> new Point(array[0], array[1]),
+                    key -> key.equals("x") || key.equals("y")
+            )));
+            assertEquals(new Point(1, 2), reader.parseJSON("""
+                    { "x": 1, "z": [ { } ], "y": 2 }
+                    """, Point.class));
+        }
+    }
+
+    @Nested
+    public class KeyPlans {
+
+        public record Point3D(int x, int y, int z) {
+        }
+
+        public static class Bean {
+            private String first;
+            private String second;
+
+            public String getFirst() {
+                return first;
+            }
+            public void setFirst(String first) {
+                this.first = first;
+            }
+
+            public String getSecond() {
+                return second;
+            }
+            public void setSecond(String second) {
+                this.second = second;
+            }
+        }
+
+        @Test
+        public void keysInTheOrderOfTheDeclaration() {
+            var reader = recordAndListReader();
+            var text = """
+                    { "x": 1, "y": 2, "z": 3 }
+                    """;
+            assertAll(
+                    () -> assertEquals(new Point3D(1, 2, 3), reader.parseJSON(text, Point3D.class)),
+                    () -> assertEquals(new Point3D(1, 2, 3), reader.parseUTF8(text.getBytes(StandardCharsets.UTF_8), Point3D.class))
+            );
+        }
+
+        @Test
+        public void keysInAnotherOrder() {
+            var reader = recordAndListReader();
+            var text = """
+                    { "z": 3, "x": 1, "y": 2 }
+                    """;
+            assertAll(
+                    () -> assertEquals(new Point3D(1, 2, 3), reader.parseJSON(text, Point3D.class)),
+                    () -> assertEquals(new Point3D(1, 2, 3), reader.parseUTF8(text.getBytes(StandardCharsets.UTF_8), Point3D.class))
+            );
+        }
+
+        @Test
+        public void escapedKeysAndUnknownKeys() {
+            var reader = recordAndListReader();
+            assertAll(
+                    () -> assertEquals(new Point3D(1, 2, 3), reader.parseJSON("""
+                            { "\\u0078": 1, "y": 2, "z": 3 }
+                            """, Point3D.class)),
+                    () -> assertThrows(IllegalStateException.class, () -> reader.parseJSON("""
+                            { "x": 1, "w": 2, "z": 3 }
+                            """, Point3D.class))
+            );
+        }
+
+        @Test
+        public void beanKeysInTheOrderOfJSONWriter() {
+            var bean = new Bean();
+            bean.setFirst("1");
+            bean.setSecond("2");
+            var text = new JSONWriter().toJSON(bean);
+            var result = new JSONReader().parseJSON(text, Bean.class);
+            assertAll(
+                    () -> assertEquals("1", result.first),
+                    () -> assertEquals("2", result.second)
+            );
+        }
+    }
+
+    @Nested
+    public class PushDecoders {
+
+        public record Point(int x, int y) {
+        }
+
+        public record Polygon(String name, List<Point> points) {
+        }
+
+        @Test
+        public void decodeByFragments() {
+            var reader = recordAndListReader();
+            var bytes = """
+                    { "name": "triangle \u00e9", "points": [{ "x": 1, "y": 2 }, { "x": -3, "y": 4 }, { "y": 6, "x": 5 }] }
+                    """.getBytes(StandardCharsets.UTF_8);
+            var expected = new Polygon("triangle é", List.of(new Point(1, 2), new Point(-3, 4), new Point(5, 6)));
+            for (var fragmentSize = 1; fragmentSize <= bytes.length; fragmentSize++) {
+                var decoder = reader.pushDecoder(Polygon.class);
+                for (var i = 0; i < bytes.length; i += fragmentSize) {
+                    decoder.feed(ByteBuffer.wrap(bytes, i, Math.min(fragmentSize, bytes.length - i)));
+                }
+                assertEquals(expected, decoder.endOfInput());
+            }
+        }
+
+        @Test
+        public void decodeAType() {
+            var reader = recordAndListReader();
+            var decoder = reader.pushDecoder(JSONCodec.parameterizedType(List.class, Point.class));
+            decoder.feed(ByteBuffer.wrap("[{ \"x\": 1, \"y\": 2 }, ".getBytes(StandardCharsets.UTF_8)));
+            decoder.feed(ByteBuffer.wrap("{ \"x\": 3, \"y\": 4 }]".getBytes(StandardCharsets.UTF_8)));
+            assertEquals(List.of(new Point(1, 2), new Point(3, 4)), decoder.endOfInput());
+        }
+
+        @Test
+        public void decodeIgnoreUnknownKeys() {
+            var reader = recordAndListReader();
+            reader.setIgnoreUnknownKeys(true);
+            var decoder = reader.pushDecoder(Point.class);
+            for (var b : """
+                    { "x": 1, "unknown": { "a": [1, "}"] }, "y": 2 }
+                    """.getBytes(StandardCharsets.UTF_8)) {
+                decoder.feed(ByteBuffer.wrap(new byte[] { b }));
+            }
+            assertEquals(new Point(1, 2), decoder.endOfInput());
+        }
+
+        @Test
+        public void decodeIncompleteText() {
+            var decoder = recordAndListReader().pushDecoder(Point.class);
+            decoder.feed(ByteBuffer.wrap("{ \"x\": 1, ".getBytes(StandardCharsets.UTF_8)));
+            assertThrows(IllegalStateException.class, decoder::endOfInput);
+        }
+
+        @Test
+        public void decodePreconditions() {
+            var reader = recordAndListReader();
+            assertAll(
+                    () -> assertThrows(NullPointerException.class, () -> reader.pushDecoder((Class<?>) null)),
+                    () -> assertThrows(NullPointerException.class, () -> reader.pushDecoder((Type) null)),
+                    () -> assertThrows(NullPointerException.class, () -> reader.pushDecoder(Point.class).feed(null))
+            );
+        }
+    }
+
+    @Nested
+    public class Builders {
+
+        public record Point(int x, int y) {
+        }
+
+        public record Line(Point start, Point end) {
+        }
+
+        private static JSONReader.Builder recordBuilder() {
+            return JSONReader.builder()
+                    .addTypeMatcher(type -> Optional.of(Utils.erase(type)).filter(Class::isRecord).map(JSONReader.ObjectBuilder::record));
+        }
+
+        @Test
+        public void buildAFrozenReader() {
+            var reader = recordBuilder().build();
+            assertAll(
+                    () -> assertEquals(new Point(1, 2), reader.parseJSON("""
+                            { "x": 1, "y": 2 }
+                            """, Point.class)),
+                    () -> assertThrows(IllegalStateException.class, () -> reader.addTypeMatcher(type -> Optional.empty())),
+                    () -> assertThrows(IllegalStateException.class, () -> reader.setIgnoreUnknownKeys(true))
+            );
+        }
+
+        @Test
+        public void buildIgnoreUnknownKeys() {
+            var builder = recordBuilder();
+            var strictReader = builder.build();
+            var lenientReader = builder.ignoreUnknownKeys(true).build();
+            var text = """
+                    { "x": 1, "z": [3], "y": 2 }
+                    """;
+            assertAll(
+                    () -> assertThrows(IllegalStateException.class, () -> strictReader.parseJSON(text, Point.class)),
+                    () -> assertEquals(new Point(1, 2), lenientReader.parseJSON(text, Point.class))
+            );
+        }
+
+        @Test
+        public void buildLastTypeMatcherFirst() {
+            var reader = recordBuilder()
+                    .addTypeMatcher(type -> Optional.of(type)
+                            .filter(t -> t == Point.class)
+                            .map(t -> new JSONReader.ObjectBuilder<>(key -> int.class, () -> new int[2],
+                                    (array, key, value) -> array[key.equals("x") ? 0 : 1] = (Integer) value,
+                                    array -> new Point(array[1], array[0]))))
+                    .build();
+            assertEquals(new Point(2, 1), reader.parseJSON("""
+                    { "x": 1, "y": 2 }
+                    """, Point.class));
+        }
+
+        @Test
+        public void buildPreconditions() {
+            assertThrows(NullPointerException.class, () -> JSONReader.builder().addTypeMatcher(null));
+        }
+
+        @Test
+        public void reuseAfterAnError() {
+            var reader = recordBuilder().build();
+            assertAll(
+                    () -> assertThrows(IllegalStateException.class, () -> reader.parseJSON("""
+                            { "start": { "x": 1, "y": 2 }, "end": { "x": 3,
+                            """, Line.class)),
+                    () -> assertEquals(new Line(new Point(1, 2), new Point(3, 4)), reader.parseJSON("""
+                            { "start": { "x": 1, "y": 2 }, "end": { "x": 3, "y": 4 } }
+                            """, Line.class))
+            );
+        }
+
+        @Test
+        public void reentrantParse() {
+            var builder = recordBuilder();
+            var reader = new Object() { JSONReader reader; };
+            reader.reader = builder
+                    .addTypeMatcher(type -> Optional.of(type)
+                            .filter(t -> t == Line.class)
+                            .map(t -> new JSONReader.ObjectBuilder<>(key -> String.class, HashMap<String, Object>::new,
+                                    HashMap::put,
+                                    map -> new Line(reader.reader.parseJSON((String) map.get("start"), Point.class),
+                                                    reader.reader.parseJSON((String) map.get("end"), Point.class)))))
+                    .build();
+            assertEquals(new Line(new Point(1, 2), new Point(3, 4)), reader.reader.parseJSON("""
+                    { "start": "{ \\"x\\": 1, \\"y\\": 2 }", "end": "{ \\"x\\": 3, \\"y\\": 4 }" }
+                    """, Line.class));
+        }
+
+        @Test
+        public void shareBetweenVirtualThreads() throws InterruptedException {
+            var reader = recordBuilder().build();
+            var failures = new ConcurrentLinkedQueue<Throwable>();
+            var threads = IntStream.range(0, 1_000)
+                    .mapToObj(i -> Thread.ofVirtual().start(() -> {
+                        try {
+                            for (var j = 0; j < 100; j++) {
+                                var text = """
+                                        { "start": { "x": %d, "y": %d }, "end": { "x": %d, "y": %d } }
+                                        """.formatted(i, j, -i, -j);
+                                var line = (j & 1) == 0 ?
+                                        reader.parseJSON(text, Line.class) :
+                                        reader.parseUTF8(text.getBytes(StandardCharsets.UTF_8), Line.class);
+                                assertEquals(new Line(new Point(i, j), new Point(-i, -j)), line);
+                            }
+                        } catch (Throwable t) {
+                            failures.add(t);
+                        }
+                    }))
+                    .toList();
+            for (var thread : threads) {
+                thread.join();
+            }
+            assertEquals(List.of(), List.copyOf(failures));
+        }
+    }
+
+    @Nested
+    public class ParseInto {
+
+        public static class Location {
+            private double latitude;
+            private double longitude;
+
+            public double getLatitude() {
+                return latitude;
+            }
+            public void setLatitude(double latitude) {
+                this.latitude = latitude;
+            }
+
+            public double getLongitude() {
+                return longitude;
+            }
+            public void setLongitude(double longitude) {
+                this.longitude = longitude;
+            }
+        }
+
+        public static class Reading {
+            private long time;
+            private double value;
+
+            public long getTime() {
+                return time;
+            }
+            public void setTime(long time) {
+                this.time = time;
+            }
+
+            public double getValue() {
+                return value;
+            }
+            public void setValue(double value) {
+                this.value = value;
+            }
+        }
+
+        public static class Sensor {
+            private String id;
+            private int battery;
+            private boolean active;
+            private Location location;
+            private List<Reading> readings;
+            private List<String> tags;
+
+            public String getId() {
+                return id;
+            }
+            public void setId(String id) {
+                this.id = id;
+            }
+
+            public int getBattery() {
+                return battery;
+            }
+            public void setBattery(int battery) {
+                this.battery = battery;
+            }
+
+            public boolean isActive() {
+                return active;
+            }
+            public void setActive(boolean active) {
+                this.active = active;
+            }
+
+            public Location getLocation() {
+                return location;
+            }
+            public void setLocation(Location location) {
+                this.location = location;
+            }
+
+            public List<Reading> getReadings() {
+                return readings;
+            }
+            public void setReadings(List<Reading> readings) {
+                this.readings = readings;
+            }
+
+            public List<String> getTags() {
+                return tags;
+            }
+            public void setTags(List<String> tags) {
+                this.tags = tags;
+            }
+        }
+
+        public record Point(int x, int y) {
+        }
+
+        public static class Owner {
+            private String name = "unknown";
+            private List<String> emails = new ArrayList<>();
+
+            public String getName() {
+                return name;
+            }
+            public void setName(String name) {
+                this.name = name;
+            }
+
+            public List<String> getEmails() {
+                return emails;
+            }
+            public void setEmails(List<String> emails) {
+                this.emails = emails;
+            }
+        }
+
+        public static class Station {
+            private Owner owner;
+
+            public Owner getOwner() {
+                return owner;
+            }
+            public void setOwner(Owner owner) {
+                this.owner = owner;
+            }
+        }
+
+        private static final String SENSOR = """
+                {
+                  "id": "s1", "battery": 87, "active": true,
+                  "location": { "latitude": 48.85, "longitude": 2.35 },
+                  "readings": [{ "time": 1, "value": 0.5 }, { "time": 2, "value": 1.5 }],
+                  "tags": ["a", "b"]
+                }
+                """;
+
+        @Test
+        public void parseIntoABean() {
+            var sensor = new Sensor();
+            var result = recordAndListReader().parseInto(SENSOR, sensor);
+            assertAll(
+                    () -> assertSame(sensor, result),
+                    () -> assertEquals("s1", sensor.getId()),
+                    () -> assertEquals(87, sensor.getBattery()),
+                    () -> assertTrue(sensor.isActive()),
+                    () -> assertEquals(48.85, sensor.getLocation().getLatitude()),
+                    () -> assertEquals(2.35, sensor.getLocation().getLongitude()),
+                    () -> assertEquals(2, sensor.getReadings().size()),
+                    () -> assertEquals(2, sensor.getReadings().get(1).getTime()),
+                    () -> assertEquals(1.5, sensor.getReadings().get(1).getValue()),
+                    () -> assertEquals(List.of("a", "b"), sensor.getTags())
+            );
+        }
+
+        @Test
+        public void parseIntoRecyclesTheNestedInstances() {
+            var reader = recordAndListReader();
+            var sensor = reader.parseInto(SENSOR, new Sensor());
+            var location = sensor.getLocation();
+            var readings = sensor.getReadings();
+            var reading0 = readings.get(0);
+            var reading1 = readings.get(1);
+            var tags = sensor.getTags();
+            reader.parseInto("""
+                    {
+                      "id": "s2", "battery": 12, "active": false,
+                      "location": { "latitude": 1.0, "longitude": 2.0 },
+                      "readings": [{ "time": 3, "value": 2.5 }, { "time": 4, "value": 3.5 }, { "time": 5, "value": 4.5 }],
+                      "tags": ["c"]
+                    }
+                    """, sensor);
+            assertAll(
+                    () -> assertEquals("s2", sensor.getId()),
+                    () -> assertSame(location, sensor.getLocation()),
+                    () -> assertEquals(1.0, location.getLatitude()),
+                    () -> assertSame(readings, sensor.getReadings()),
+                    () -> assertEquals(3, readings.size()),
+                    () -> assertSame(reading0, readings.get(0)),
+                    () -> assertSame(reading1, readings.get(1)),
+                    () -> assertEquals(3, reading0.getTime()),
+                    () -> assertEquals(5, readings.get(2).getTime()),
+                    () -> assertSame(tags, sensor.getTags()),
+                    () -> assertEquals(List.of("c"), tags)
+            );
+        }
+
+        @Test
+        public void parseIntoResetsTheMissingProperties() {
+            var reader = recordAndListReader();
+            var sensor = reader.parseInto(SENSOR, new Sensor());
+            var readings = sensor.getReadings();
+            reader.parseInto("""
+                    { "battery": 5, "readings": [{ "value": 7.5 }] }
+                    """, sensor);
+            assertAll(
+                    () -> assertNull(sensor.getId()),
+                    () -> assertEquals(5, sensor.getBattery()),
+                    () -> assertFalse(sensor.isActive()),
+                    () -> assertNull(sensor.getLocation()),
+                    () -> assertNull(sensor.getTags()),
+                    () -> assertSame(readings, sensor.getReadings()),
+                    () -> assertEquals(1, readings.size()),
+                    () -> assertEquals(0, readings.get(0).getTime()),
+                    () -> assertEquals(7.5, readings.get(0).getValue())
+            );
+        }
+
+        @Test
+        public void parseIntoKeepsTheInitialValuesOfACreatedInstance() {
+            var reader = recordAndListReader();
+            var text = """
+                    { "owner": { "emails": ["ana@example.com"] } }
+                    """;
+            var station = reader.parseInto(text, new Station());
+            var expected = reader.parseJSON(text, Station.class);
+            assertAll(
+                    () -> assertEquals("unknown", expected.getOwner().getName()),
+                    () -> assertEquals(expected.getOwner().getName(), station.getOwner().getName()),
+                    () -> assertEquals(expected.getOwner().getEmails(), station.getOwner().getEmails())
+            );
+        }
+
+        @Test
+        public void parseIntoResetsTheInitialValuesOfARecycledInstance() {
+            var reader = recordAndListReader();
+            var station = reader.parseInto("""
+                    { "owner": { "name": "Ana" } }
+                    """, new Station());
+            var owner = station.getOwner();
+            reader.parseInto("""
+                    { "owner": { "emails": ["bob@example.com"] } }
+                    """, station);
+            assertAll(
+                    () -> assertSame(owner, station.getOwner()),
+                    () -> assertNull(owner.getName()),
+                    () -> assertEquals(List.of("bob@example.com"), owner.getEmails())
+            );
+        }
+
+        @Test
+        public void parseIntoReplacesAnImmutableList() {
+            var reader = recordAndListReader();
+            var sensor = new Sensor();
+            sensor.setTags(List.of("x"));
+            reader.parseInto("""
+                    { "tags": ["a", "b"] }
+                    """, sensor);
+            var tags = sensor.getTags();
+            reader.parseInto("""
+                    { "tags": ["c"] }
+                    """, sensor);
+            assertAll(
+                    () -> assertSame(tags, sensor.getTags()),
+                    () -> assertEquals(List.of("c"), tags)
+            );
+        }
+
+        @Test
+        public void parseIntoBytes() {
+            var sensor = recordAndListReader().parseInto(SENSOR.getBytes(StandardCharsets.UTF_8), new Sensor());
+            assertAll(
+                    () -> assertEquals("s1", sensor.getId()),
+                    () -> assertEquals(2, sensor.getReadings().size())
+            );
+        }
+
+        @Test
+        public void parseIntoAList() {
+            var reader = recordAndListReader();
+            var points = new ArrayList<Point>(List.of(new Point(0, 0), new Point(1, 1), new Point(2, 2)));
+            var result = reader.parseInto("""
+                    [{ "x": 3, "y": 4 }]
+                    """, new JSONReader.TypeReference<List<Point>>() {}, points);
+            assertAll(
+                    () -> assertSame(points, result),
+                    () -> assertEquals(List.of(new Point(3, 4)), points)
+            );
+        }
+
+        @Test
+        public void parseIntoAnInstanceThatCanNotBeRecycled() {
+            var reader = recordAndListReader();
+            assertAll(
+                    () -> assertThrows(IllegalArgumentException.class, () -> reader.parseInto("""
+                            { "x": 1, "y": 2 }
+                            """, new Point(0, 0))),
+                    () -> assertThrows(IllegalArgumentException.class, () -> reader.parseInto("""
+                            []
+                            """, new JSONReader.TypeReference<List<Point>>() {}, List.of())),
+                    () -> assertThrows(NullPointerException.class, () -> reader.parseInto("{}", (Object) null))
+            );
+        }
+    }
+}
@@ -4,13 +4,26 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.MonthDay;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -191,6 +204,40 @@ public class JSONWriterTest {
 
   } // end of Q6
 
+  @Nested
+  public class Streaming {
+    @Test
+    public void toJSONAppendable() throws IOException {
+      var writer = new JSONWriter();
+      var builder = new StringBuilder("person: ");
+      writer.toJSON(new Person("Bob", "Hunky"), builder);
+      assertEquals("""
+          person: {"first-name": "Bob", "last-name": "Hunky"}\
+          """,
+          builder.toString());
+    }
+
+    @Test
+    public void toJSONOutputStream() throws IOException {
+      var writer = new JSONWriter();
+      var output = new ByteArrayOutputStream();
+      writer.toJSON(new Car("Zo\u00e9"), output);
+      assertEquals("""
+          {"owner": "Zo\u00e9"}\
+          """,
+          output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void toJSONStreamingPreconditions() {
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertThrows(NullPointerException.class, () -> writer.toJSON("foo", (Appendable) null)),
+          () -> assertThrows(NullPointerException.class, () -> writer.toJSON("foo", (OutputStream) null))
+      );
+    }
+  } // end of Streaming
+
 /*
   public static class AddressInfo {
     private boolean international;
@@ -252,4 +299,303 @@ public class JSONWriterTest {
 
   }  // end of Q7
  */
+
+  @Nested
+  public class HiddenClassGenerator {
+    public static final class Failing {
+      public String getName() {
+        throw new IllegalArgumentException("oops");
+      }
+    }
+
+    public static final class Empty {
+    }
+
+    public static final class Wide {
+      public int getA() { return 1; }
+      public String getB() { return "b"; }
+      public boolean getC() { return true; }
+      public Double getD() { return 2.5; }
+      public Object getE() { return null; }
+      public Empty getF() { return new Empty(); }
+      @JSONProperty("g-key")
+      public String getG() { return "g"; }
+    }
+
+    @Test
+    public void generatorIsAHiddenClass() throws ReflectiveOperationException {
+      var writer = new JSONWriter();
+      writer.toJSON(new Wide());
+      var cacheField = JSONWriter.class.getDeclaredField("CACHE");
+      cacheField.setAccessible(true);
+      var cache = (ClassValue<?>) cacheField.get(null);
+      assertTrue(cache.get(Wide.class).getClass().isHidden());
+    }
+
+    @Test
+    public void toJSONWide() {
+      var writer = new JSONWriter();
+      assertEquals("""
+          {"a": 1, "b": "b", "c": true, "d": 2.5, "e": null, "f": {}, "g-key": "g"}\
+          """,
+          writer.toJSON(new Wide()));
+    }
+
+    @Test
+    public void toJSONEmpty() {
+      var writer = new JSONWriter();
+      assertEquals("{}", writer.toJSON(new Empty()));
+    }
+
+    @Test
+    public void getterExceptionIsPropagated() {
+      var writer = new JSONWriter();
+      var e = assertThrows(IllegalArgumentException.class, () -> writer.toJSON(new Failing()));
+      assertEquals("oops", e.getMessage());
+    }
+
+    @Test
+    public void appendableExceptionIsPropagated() {
+      var writer = new JSONWriter();
+      var appendable = new Appendable() {
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+          throw new IOException("full");
+        }
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+          throw new IOException("full");
+        }
+        @Override
+        public Appendable append(char c) throws IOException {
+          throw new IOException("full");
+        }
+      };
+      assertThrows(IOException.class, () -> writer.toJSON(new Wide(), appendable));
+    }
+  }
+
+  @Nested
+  public class CollectionsAndRecords {
+    public record Point(int x, @JSONProperty("ordinate") int y) {}
+
+    public record Polygon(String name, List<Point> points) {}
+
+    @Test
+    public void toJSONList() {
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertEquals("[]", writer.toJSON(List.of())),
+          () -> assertEquals("""
+              [1, "two", null, true]\
+              """, writer.toJSON(Arrays.asList(1, "two", null, true))),
+          () -> assertEquals("[[1, 2], [3]]", writer.toJSON(List.of(List.of(1, 2), List.of(3)))),
+          () -> assertEquals("[3]", writer.toJSON(new ArrayList<>(Set.of(3))))
+      );
+    }
+
+    @Test
+    public void toJSONMap() {
+      var writer = new JSONWriter();
+      var map = new LinkedHashMap<Object, Object>();
+      map.put("name", "Bob");
+      map.put(42, List.of(1));
+      map.put("empty", Map.of());
+      assertAll(
+          () -> assertEquals("{}", writer.toJSON(Map.of())),
+          () -> assertEquals("""
+              {"name": "Bob", "42": [1], "empty": {}}\
+              """, writer.toJSON(map))
+      );
+    }
+
+    @Test
+    public void toJSONArrays() {
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertEquals("""
+              ["a", null, [1, 2]]\
+              """, writer.toJSON(new Object[] { "a", null, new int[] { 1, 2 } })),
+          () -> assertEquals("[]", writer.toJSON(new String[0])),
+          () -> assertEquals("[1, -2, 3]", writer.toJSON(new int[] { 1, -2, 3 })),
+          () -> assertEquals("[9223372036854775807, 0]", writer.toJSON(new long[] { Long.MAX_VALUE, 0 })),
+          () -> assertEquals("[1.5, -0.0]", writer.toJSON(new double[] { 1.5, -0.0 })),
+          () -> assertEquals("[true, false]", writer.toJSON(new boolean[] { true, false }))
+      );
+    }
+
+    @Test
+    public void toJSONBoxedNumbers() {
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertEquals("12345678901", writer.toJSON(12345678901L)),
+          () -> assertEquals("2.5", writer.toJSON(2.5f)),
+          () -> assertEquals("-3", writer.toJSON((short) -3)),
+          () -> assertEquals("7", writer.toJSON((byte) 7))
+      );
+    }
+
+    @Test
+    public void toJSONShortByteAndCharArrays() {
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertEquals("[1, -32768, 32767]", writer.toJSON(new short[] { 1, Short.MIN_VALUE, Short.MAX_VALUE })),
+          () -> assertEquals("[0, -128, 127]", writer.toJSON(new byte[] { 0, Byte.MIN_VALUE, Byte.MAX_VALUE })),
+          () -> assertEquals("""
+              ["a", "\\"", "\\n", "é"]\
+              """, writer.toJSON(new char[] { 'a', '"', '\n', 'é' })),
+          () -> assertEquals("[]", writer.toJSON(new char[0])),
+          () -> assertEquals("""
+              ["a", "\\"", "\\n", "é"]\
+              """, new String(writer.toJSONBytes(new char[] { 'a', '"', '\n', 'é' }), StandardCharsets.UTF_8))
+      );
+    }
+
+    @Test
+    public void toJSONCharacter() {
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertEquals("\"x\"", writer.toJSON('x')),
+          () -> assertEquals("\"\\\\\"", writer.toJSON('\\')),
+          () -> assertEquals("\"\\u0001\"", writer.toJSON('\u0001')),
+          () -> assertEquals("\"€\"", new String(writer.toJSONBytes('€'), StandardCharsets.UTF_8)),
+          () -> assertEquals("[\"?\", \"a\"]", new String(writer.toJSONBytes(new char[] { '\ud83d', 'a' }), StandardCharsets.UTF_8)),
+          () -> assertEquals("""
+              ["c", 1]\
+              """, writer.toJSON(List.of('c', 1)))
+      );
+    }
+
+    @Test
+    public void toJSONRecord() {
+      var writer = new JSONWriter();
+      var polygon = new Polygon("triangle", List.of(new Point(0, 0), new Point(1, 0), new Point(0, 1)));
+      assertEquals("""
+          {"name": "triangle", "points": [{"x": 0, "ordinate": 0}, {"x": 1, "ordinate": 0}, {"x": 0, "ordinate": 1}]}\
+          """, writer.toJSON(polygon));
+    }
+
+    @Test
+    public void toJSONBeanWithAList() {
+      var writer = new JSONWriter();
+      var bean = new Object() {
+        public List<Long> getValues() {
+          return List.of(1L, 2L);
+        }
+      };
+      assertEquals("""
+          {"values": [1, 2]}\
+          """, writer.toJSON(bean));
+    }
+  }
+
+  @Nested
+  public class Bytes {
+    @Test
+    public void toJSONBytes() {
+      var writer = new JSONWriter();
+      var values = List.of(
+          new Person("Bob", "Hunky"),
+          new Car("Zo\u00e9 \u20ac \ud83d\ude00"),
+          new CollectionsAndRecords.Point(-3, Integer.MIN_VALUE),
+          Map.of("values", new long[] { Long.MIN_VALUE, Long.MAX_VALUE, 0 }),
+          new HiddenClassGenerator.Empty());
+      assertAll(values.stream().map(value -> () ->
+          assertArrayEquals(writer.toJSON(value).getBytes(StandardCharsets.UTF_8), writer.toJSONBytes(value))));
+    }
+
+    @Test
+    public void toJSONOutputStreamLargerThanTheBuffer() throws IOException {
+      var writer = new JSONWriter();
+      var list = IntStream.range(0, 10_000).mapToObj(i -> new Car("owner\u00e9" + i)).toList();
+      var output = new ByteArrayOutputStream();
+      writer.toJSON(list, output);
+      assertEquals(writer.toJSON(list), output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void toJSONBytesNumbers() {
+      var writer = new JSONWriter();
+      var random = new Random(0);
+      var values = new ArrayList<Object>();
+      for (var i = 0; i < 1_000; i++) {
+        values.add(random.nextLong());
+        values.add(random.nextInt());
+        values.add(Double.longBitsToDouble(random.nextLong()));
+        values.add(random.nextFloat() * 1e6f);
+        values.add(random.nextInt(100_000) / 100.0);
+      }
+      values.add(new double[] { 0.0, -0.0, Double.MIN_VALUE, 1e300 });
+      values.add(new float[] { 0.5f, Float.MAX_VALUE });
+      values.add(new long[] { Long.MIN_VALUE, -1, 10, 99, 100 });
+      assertArrayEquals(writer.toJSON(values).getBytes(StandardCharsets.UTF_8), writer.toJSONBytes(values));
+    }
+
+    @Test
+    public void toJSONBytesReusesTheBuffers() {
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertEquals("[1, 2]", new String(writer.toJSONBytes(List.of(1, 2)), StandardCharsets.UTF_8)),
+          () -> assertEquals("3", new String(writer.toJSONBytes(3), StandardCharsets.UTF_8)),
+          () -> assertEquals("null", new String(writer.toJSONBytes(null), StandardCharsets.UTF_8))
+      );
+    }
+  }
+
+  @Nested
+  public class Escaping {
+    public record Quoted(@JSONProperty("say \"hi\"") String text) {}
+
+    @Test
+    public void toJSONEscapedString() {
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertEquals("""
+              "a \\"quote\\" and a \\\\ backslash"\
+              """, writer.toJSON("a \"quote\" and a \\ backslash")),
+          () -> assertEquals("""
+              "tab\\tnew line\\nreturn\\r\\b\\f"\
+              """, writer.toJSON("tab\tnew line\nreturn\r\b\f")),
+          () -> assertEquals("""
+              "\\u0000\\u001f\u007f"\
+              """, writer.toJSON("\u0000\u001f\u007f")),
+          () -> assertEquals("\"Zo\u00e9 \ud83d\ude00 /\"", writer.toJSON("Zo\u00e9 \ud83d\ude00 /"))
+      );
+    }
+
+    @Test
+    public void toJSONEscapedKeys() {
+      var writer = new JSONWriter();
+      assertAll(
+          () -> assertEquals("""
+              {"say \\"hi\\"": "\\\\"}\
+              """, writer.toJSON(new Quoted("\\"))),
+          () -> assertEquals("""
+              {"line\\n": 1}\
+              """, writer.toJSON(Map.of("line\n", 1)))
+      );
+    }
+
+    @Test
+    public void toJSONBytesSameAsString() {
+      var writer = new JSONWriter();
+      var random = new Random(0);
+      var alphabet = "abc\"\\\n\u0001\u00e9\u20ac\ud83d\ude00 ";
+      for (var length : new int[] { 0, 1, 7, 8, 9, 15, 16, 17, 100, 1_365, 1_366, 5_000 }) {
+        var builder = new StringBuilder();
+        for (var i = 0; i < length; i++) {
+          builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        var text = builder.toString();
+        assertArrayEquals(writer.toJSON(text).getBytes(StandardCharsets.UTF_8), writer.toJSONBytes(text), text);
+      }
+    }
+
+    @Test
+    public void toJSONBytesEscapeAfterALongCleanRun() {
+      var writer = new JSONWriter();
+      var text = "x".repeat(10_000) + "\"" + "y".repeat(3) + "\n";
+      assertArrayEquals(writer.toJSON(text).getBytes(StandardCharsets.UTF_8), writer.toJSONBytes(text));
+    }
+  }
 }
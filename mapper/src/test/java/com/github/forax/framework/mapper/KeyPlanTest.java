@@ -0,0 +1,61 @@
+package com.github.forax.framework.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class KeyPlanTest {
+  private static int find(KeyPlan plan, String key, int expected) {
+    var chars = ("\"" + key + "\"").toCharArray();
+    return plan.find(chars, 1, chars.length - 1, expected);
+  }
+
+  private static int findUTF8(KeyPlan plan, String key, int expected) {
+    var bytes = ("\"" + key + "\"").getBytes(StandardCharsets.UTF_8);
+    return plan.find(bytes, 1, bytes.length - 1, expected);
+  }
+
+  @Test
+  public void findExpectedAndOutOfOrderKeys() {
+    var plan = new KeyPlan(List.of("name", "age", "été", "😀"));
+    assertAll(
+        () -> assertEquals(0, find(plan, "name", 0)),
+        () -> assertEquals(1, find(plan, "age", 1)),
+        () -> assertEquals(1, find(plan, "age", 3)),
+        () -> assertEquals(2, find(plan, "été", 0)),
+        () -> assertEquals(3, find(plan, "😀", 4)),
+        () -> assertEquals(-1, find(plan, "nam", 0)),
+        () -> assertEquals(-1, find(plan, "unknown", 0)),
+        () -> assertEquals(-1, find(plan, "", 0)),
+        () -> assertEquals(0, findUTF8(plan, "name", 1)),
+        () -> assertEquals(2, findUTF8(plan, "été", 2)),
+        () -> assertEquals(3, findUTF8(plan, "😀", 0)),
+        () -> assertEquals(-1, findUTF8(plan, "ete", 2)),
+        () -> assertEquals("été", plan.key(2))
+    );
+  }
+
+  @Test
+  public void emptyPlan() {
+    var plan = new KeyPlan(List.of());
+    assertAll(
+        () -> assertEquals(-1, find(plan, "foo", 0)),
+        () -> assertEquals(-1, findUTF8(plan, "foo", 0))
+    );
+  }
+
+  @Test
+  public void manyKeys() {
+    var keys = IntStream.range(0, 1_000).mapToObj(i -> "key" + i).toList();
+    var plan = new KeyPlan(keys);
+    for (var i = 0; i < keys.size(); i++) {
+      assertEquals(i, find(plan, keys.get(i), 0));
+      assertEquals(i, findUTF8(plan, keys.get(i), keys.size()));
+    }
+  }
+}
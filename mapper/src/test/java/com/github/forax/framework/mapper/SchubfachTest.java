@@ -0,0 +1,74 @@
+package com.github.forax.framework.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SchubfachTest {
+  private static String format(double value) {
+    var bytes = new byte[Schubfach.MAX_LENGTH];
+    var end = Schubfach.writeDouble(value, bytes, 0);
+    return new String(bytes, 0, end, StandardCharsets.US_ASCII);
+  }
+
+  private static String format(float value) {
+    var bytes = new byte[Schubfach.MAX_LENGTH];
+    var end = Schubfach.writeFloat(value, bytes, 0);
+    return new String(bytes, 0, end, StandardCharsets.US_ASCII);
+  }
+
+  @Test
+  public void specialDoubles() {
+    var values = new double[] {
+        0.0, -0.0, 1.0, -1.0, 0.1, 0.3, 1e7, 1e-3, 9.999999e6, 1.0e-4, 123456.789, 2e23, 5e-324, 1e23,
+        Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, Math.PI, -Math.E, 4.9e-322, 1e22, 1e21,
+        Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 9007199254740993.0, 100.0, 1e16, 1e17
+    };
+    assertAll(Arrays.stream(values).mapToObj(value -> () ->
+        assertEquals(Double.toString(value), format(value))));
+  }
+
+  @Test
+  public void specialFloats() {
+    var values = new float[] {
+        0f, -0f, 1f, -1f, 0.1f, 0.3f, 1e7f, 1e-3f, 9999999f, 1e-4f, 123456.79f, 1.4e-45f, 1e-44f,
+        Float.MIN_VALUE, Float.MIN_NORMAL, Float.MAX_VALUE, (float) Math.PI, 16777217f, 100f, 1e10f,
+        Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY
+    };
+    for (var value : values) {
+      assertEquals(Float.toString(value), format(value));
+    }
+  }
+
+  @Test
+  public void randomDoubles() {
+    var random = new SplittableRandom(0);
+    for (var i = 0; i < 1_000_000; i++) {
+      var value = Double.longBitsToDouble(random.nextLong());
+      assertEquals(Double.toString(value), format(value));
+    }
+  }
+
+  @Test
+  public void randomDoublesWithFewDigits() {
+    var random = new SplittableRandom(1);
+    for (var i = 0; i < 200_000; i++) {
+      var value = random.nextInt(1_000_000) / Math.pow(10, random.nextInt(12));
+      assertEquals(Double.toString(value), format(value));
+    }
+  }
+
+  @Test
+  public void randomFloats() {
+    var random = new SplittableRandom(2);
+    for (var i = 0; i < 1_000_000; i++) {
+      var value = Float.intBitsToFloat(random.nextInt());
+      assertEquals(Float.toString(value), format(value));
+    }
+  }
+}
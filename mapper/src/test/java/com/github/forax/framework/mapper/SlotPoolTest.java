@@ -0,0 +1,36 @@
+package com.github.forax.framework.mapper;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SlotPoolTest {
+  @Test
+  public void acquireAnEmptySlot() {
+    var pool = new SlotPool<String>();
+    assertNull(pool.acquire());
+  }
+
+  @Test
+  public void acquireTheReleasedInstance() {
+    var pool = new SlotPool<StringBuilder>();
+    var builder = new StringBuilder();
+    pool.release(builder);
+    assertAll(
+        () -> assertSame(builder, pool.acquire()),
+        () -> assertNull(pool.acquire())
+    );
+  }
+
+  @Test
+  public void releaseDoesNotReplaceThePooledInstance() {
+    var pool = new SlotPool<StringBuilder>();
+    var first = new StringBuilder();
+    var second = new StringBuilder();
+    pool.release(first);
+    pool.release(second);
+    assertSame(first, pool.acquire());
+  }
+}
@@ -3,69 +3,108 @@ package com.github.forax.framework.mapper;
 import com.github.forax.framework.mapper.ToyJSONParser.JSONVisitor;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ToyJSONParserTest {
   private static Object asJava(String text) {
-    var visitor = new JSONVisitor() {
-      private Object result;
-      private final ArrayDeque<Object> stack = new ArrayDeque<>();
+    var visitor = new CollectingVisitor();
+    ToyJSONParser.parse(text, visitor);
+    return visitor.result;
+  }
 
-      @Override
-      @SuppressWarnings("unchecked")
-      public void value(String key, Object value) {
-        var data = stack.peek();
-        if (data instanceof Map<?,?> map) {
-          ((Map<String, Object>) map).put(key, value);
-          return;
-        }
-        if (data instanceof List<?> list) {
-          ((List<Object>) list).add(value);
-          return;
-        }
-        throw new AssertionError();
-      }
+  private static Object asJava(Reader reader) throws IOException {
+    var visitor = new CollectingVisitor();
+    ToyJSONParser.parse(reader, visitor);
+    return visitor.result;
+  }
 
-      @Override
-      public void startObject(String key) {
-        stack.push(new HashMap<String, Object>());
-      }
+  private static Object asJava(byte[] bytes) {
+    var visitor = new CollectingVisitor();
+    ToyJSONParser.parse(bytes, visitor);
+    return visitor.result;
+  }
 
-      @Override
-      public void endObject(String key) {
-        var data = stack.pop();
-        if (stack.isEmpty()) {
-          result = data;
-        } else {
-          value(key, data);
-        }
+  private static Object asJava(ByteBuffer buffer) {
+    var visitor = new CollectingVisitor();
+    ToyJSONParser.parse(buffer, visitor);
+    return visitor.result;
+  }
+
+  private static Object asJava(InputStream input) throws IOException {
+    var visitor = new CollectingVisitor();
+    ToyJSONParser.parse(input, visitor);
+    return visitor.result;
+  }
+
+  private static final class CollectingVisitor implements JSONVisitor {
+    private Object result;
+    private final ArrayDeque<Object> stack = new ArrayDeque<>();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void value(String key, Object value) {
+      var data = stack.peek();
+      if (data instanceof Map<?,?> map) {
+        ((Map<String, Object>) map).put(key, value);
+        return;
+      }
+      if (data instanceof List<?> list) {
+        ((List<Object>) list).add(value);
+        return;
       }
+      throw new AssertionError();
+    }
 
-      @Override
-      public void startArray(String key) {
-        stack.push(new ArrayList<>());
+    @Override
+    public void startObject(String key) {
+      stack.push(new HashMap<String, Object>());
+    }
+
+    @Override
+    public void endObject(String key) {
+      var data = stack.pop();
+      if (stack.isEmpty()) {
+        result = data;
+      } else {
+        value(key, data);
       }
+    }
 
-      @Override
-      public void endArray(String key) {
-        var data = stack.pop();
-        if (stack.isEmpty()) {
-          result = data;
-        } else {
-          value(key, data);
-        }
+    @Override
+    public void startArray(String key) {
+      stack.push(new ArrayList<>());
+    }
+
+    @Override
+    public void endArray(String key) {
+      var data = stack.pop();
+      if (stack.isEmpty()) {
+        result = data;
+      } else {
+        value(key, data);
       }
-    };
-    ToyJSONParser.parse(text, visitor);
-    return visitor.result;
+    }
   }
 
   @Test
@@ -143,4 +182,476 @@ class ToyJSONParserTest {
         [ 13.4, null ]
         """));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void parseNested() {
+    assertEquals(Map.of(
+        "foo", List.of(1, Map.of("bar", List.of())),
+        "baz", Map.of("qux", "quux")
+    ), asJava("""
+        {\r
+        \t"foo": [1, { "bar": [] }],
+        \t"baz": { "qux": "quux" }
+        }
+        """));
+  }
+
+  @Test
+  public void parseEscapedStrings() {
+    assertEquals(List.of("a\"b", "back\\slash", "tab\tnew\nline", "\u00e9t\u00e9"), asJava("""
+        [ "a\\"b", "back\\\\slash", "tab\\tnew\\nline", "\\u00e9t\\u00e9" ]
+        """));
+  }
+
+  @Test
+  public void parseInvalid() {
+    assertAll(
+        () -> assertThrows(IllegalStateException.class, () -> asJava("")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("{ \"foo\" 3 }")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ nul ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ \"foo ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ 1, 2"))
+    );
+  }
+
+  // returns the characters one by one to check that the tokens can span several reads
+  private static Reader oneCharAtATime(String text) {
+    return new FilterReader(new StringReader(text)) {
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        return super.read(buffer, offset, Math.min(1, length));
+      }
+    };
+  }
+
+  @Test
+  public void parseReader() throws IOException {
+    var text = """
+        {
+          "key1": null,
+          "key2": [false, true, 12345, 145.4],
+          "key3": { "key4": "string \\"escaped\\"" },
+          "%s": "%s"
+        }
+        """.formatted("k".repeat(10_000), "v".repeat(20_000));
+    assertAll(
+        () -> assertEquals(asJava(text), asJava(new StringReader(text))),
+        () -> assertEquals(asJava(text), asJava(oneCharAtATime(text)))
+    );
+  }
+
+  @Test
+  public void parseReaderInvalid() {
+    assertAll(
+        () -> assertThrows(IllegalStateException.class, () -> asJava(oneCharAtATime("[ tru"))),
+        () -> assertThrows(IllegalStateException.class, () -> asJava(oneCharAtATime("{ \"foo")))
+    );
+  }
+
+  @Test
+  public void parseNumbers() {
+    var text = """
+        [0, -0, -1, 2147483648, -9223372036854775808, 9223372036854775807, 9223372036854775808,
+         1e3, -1.5E-3, 2E+2, 0.5, -0.0, 123456789012345678901234567890, 1e400, -1e-400]
+        """;
+    var expected = List.of(0, 0, -1, 2147483648L, Long.MIN_VALUE, Long.MAX_VALUE, 9.223372036854775808e18,
+        1000.0, -0.0015, 200.0, 0.5, -0.0, 1.2345678901234568e29, Double.POSITIVE_INFINITY, -0.0);
+    assertAll(
+        () -> assertEquals(expected, asJava(text)),
+        () -> assertEquals(expected, asJava(text.getBytes(StandardCharsets.UTF_8))),
+        () -> assertEquals(expected, asJava(oneCharAtATime(text)))
+    );
+  }
+
+  @Test
+  public void parseNumbersInvalid() {
+    assertAll(
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ 01 ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ - ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ -a ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ .5 ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ 1. ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ 1e ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ 1e+ ]".getBytes(StandardCharsets.UTF_8))),
+        () -> assertThrows(IllegalStateException.class, () -> asJava(oneCharAtATime("[ 1.e3 ]")))
+    );
+  }
+
+  private static double parseDouble(String number) {
+    return (double) ((List<?>) asJava("[" + number + "]")).get(0);
+  }
+
+  private static double parseDoubleUTF8(String number) {
+    return (double) ((List<?>) asJava(("[" + number + "]").getBytes(StandardCharsets.UTF_8))).get(0);
+  }
+
+  @Test
+  public void parseRandomDoubles() {
+    var random = new SplittableRandom(0);
+    for (var i = 0; i < 200_000; i++) {
+      var value = Double.longBitsToDouble(random.nextLong());
+      if (!Double.isFinite(value)) {
+        continue;
+      }
+      var text = Double.toString(value);
+      assertEquals(value, parseDouble(text), text);
+      assertEquals(value, parseDoubleUTF8(text), text);
+    }
+  }
+
+  @Test
+  public void parseRandomDecimals() {
+    var random = new SplittableRandom(1);
+    for (var i = 0; i < 200_000; i++) {
+      // up to 25 digits, so some significands are truncated
+      var digits = new StringBuilder();
+      digits.append(1 + random.nextInt(9));
+      for (var j = random.nextInt(25); j > 0; j--) {
+        digits.append(random.nextInt(10));
+      }
+      var dot = random.nextInt(digits.length()) + 1;
+      var text = (random.nextBoolean() ? "-" : "") + digits.substring(0, dot) + "." + digits.substring(dot) + "0"
+          + "e" + (random.nextInt(660) - 340);
+      assertEquals(Double.parseDouble(text), parseDouble(text), text);
+    }
+  }
+
+  @Test
+  public void parseHalfwayDoubles() {
+    // exactly in the middle of two doubles, and just above or below
+    var values = new String[] {
+        "9007199254740993.0", "9007199254740993.0000000000001", "9007199254740992.9999999999999",
+        "2.2250738585072011e-308", "4.9406564584124654e-324", "2.4703282292062327e-324",
+        "1.7976931348623157e308", "1.7976931348623158e308", "0.1000000000000000055511151231257827",
+        "179769313486231580793728971405301e276"
+    };
+    assertAll(Arrays.stream(values).map(text -> () ->
+        assertEquals(Double.parseDouble(text), parseDouble(text), text)));
+  }
+
+  @Test
+  public void parseUTF8() throws IOException {
+    var text = """
+        {
+          "cl\u00e9": [null, false, true, 12345, 145.4],
+          "\u65e5\u672c": { "emoji": "\ud83d\ude00 \\"quoted\\" \\u00e9 \u00e9" },
+          "%s": "%s"
+        }
+        """.formatted("k".repeat(10_000), "\u00e9".repeat(20_000));
+    var bytes = text.getBytes(StandardCharsets.UTF_8);
+    var direct = ByteBuffer.allocateDirect(bytes.length + 2).put((byte) ' ').put(bytes).flip().position(1);
+    var expected = asJava(text);
+    assertAll(
+        () -> assertEquals(expected, asJava(bytes)),
+        () -> assertEquals(expected, asJava(ByteBuffer.wrap(bytes))),
+        () -> assertEquals(expected, asJava(direct)),
+        () -> assertEquals(1, direct.position()),
+        () -> assertEquals(expected, asJava(new ByteArrayInputStream(bytes))),
+        () -> assertEquals(expected, asJava(new FilterInputStream(new ByteArrayInputStream(bytes)) {
+          @Override
+          public int read(byte[] buffer, int offset, int length) throws IOException {
+            return super.read(buffer, offset, Math.min(1, length));
+          }
+        }))
+    );
+  }
+
+  @Test
+  public void parseUTF8Invalid() {
+    assertAll(
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[ tru".getBytes(StandardCharsets.UTF_8))),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("{ \"foo".getBytes(StandardCharsets.UTF_8)))
+    );
+  }
+
+  // feeds the bytes by fragments of a fixed size
+  private static Object asJavaPushed(byte[] bytes, int fragmentSize, boolean direct) {
+    var visitor = new CollectingVisitor();
+    var parser = new ToyJSONParser.PushParser(visitor);
+    for (var i = 0; i < bytes.length; i += fragmentSize) {
+      var length = Math.min(fragmentSize, bytes.length - i);
+      var fragment = direct ?
+          ByteBuffer.allocateDirect(length).put(bytes, i, length).flip() :
+          ByteBuffer.wrap(bytes, i, length);
+      parser.feed(fragment);
+      assertEquals(fragment.limit(), fragment.position());
+    }
+    parser.endOfInput();
+    return visitor.result;
+  }
+
+  private static Object asJavaPushed(String text) {
+    return asJavaPushed(text.getBytes(StandardCharsets.UTF_8), 3, false);
+  }
+
+  @Test
+  public void pushParserByFragments() {
+    var text = """
+        {
+          "cl\u00e9": [null, false, true, 12345, -145.4e-2, 12345678901, [], {}],
+          "\u65e5\u672c": { "emoji": "\ud83d\ude00 \\"quoted\\" \\u00e9 \u00e9 \\\\" },
+          "nested": [[[{ "a": [1, 2, { "b": "]}" }] }]]],
+          "last": 0
+        }
+        """;
+    var bytes = text.getBytes(StandardCharsets.UTF_8);
+    var expected = asJava(bytes);
+    for (var fragmentSize = 1; fragmentSize <= bytes.length; fragmentSize++) {
+      assertEquals(expected, asJavaPushed(bytes, fragmentSize, false), "fragment size " + fragmentSize);
+    }
+    assertEquals(expected, asJavaPushed(bytes, 7, true));
+  }
+
+  @Test
+  public void pushParserLargeTokens() {
+    var text = """
+        { "%s": "%s", "number": 1%s }
+        """.formatted("k".repeat(10_000), "\u00e9".repeat(20_000), "0".repeat(300));
+    var bytes = text.getBytes(StandardCharsets.UTF_8);
+    var direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    var visitor = new CollectingVisitor();
+    var parser = new ToyJSONParser.PushParser(visitor);
+    parser.feed(direct);
+    parser.endOfInput();
+    assertAll(
+        () -> assertEquals(asJava(text), asJavaPushed(bytes, 1_000, false)),
+        () -> assertEquals(asJava(text), visitor.result)
+    );
+  }
+
+  @Test
+  public void pushParserDeepNestingIsNotRecursive() {
+    var text = "[".repeat(100_000) + "]".repeat(100_000);
+    Object expected = List.of();
+    for (var i = 1; i < 100_000; i++) {
+      expected = List.of(expected);
+    }
+    var result = asJavaPushed(text.getBytes(StandardCharsets.UTF_8), 8_192, false);
+    for (var i = 0; i < 100_000 - 1; i++) {
+      expected = ((List<?>) expected).get(0);
+      result = ((List<?>) result).get(0);
+    }
+    assertEquals(expected, result);
+  }
+
+  @Test
+  public void pushParserSkipKey() {
+    var keys = new ArrayList<String>();
+    var visitor = new JSONVisitor() {
+      @Override
+      public boolean skipKey(String key) {
+        return key.startsWith("skip");
+      }
+      @Override
+      public void value(String key, Object value) {
+        keys.add(key);
+      }
+      @Override
+      public void startObject(String key) {
+        keys.add("{" + key);
+      }
+      @Override
+      public void endObject(String key) {}
+      @Override
+      public void startArray(String key) {
+        keys.add("[" + key);
+      }
+      @Override
+      public void endArray(String key) {}
+    };
+    var parser = new ToyJSONParser.PushParser(visitor);
+    var bytes = """
+        { "a": 1, "skip1": { "b": [ "]", "\\"" ] }, "c": { "skip2": 3, "d": [ 4 ] }, "skip3": "e" }
+        """.getBytes(StandardCharsets.UTF_8);
+    for (var b : bytes) {
+      parser.feed(ByteBuffer.wrap(new byte[] { b }));
+    }
+    parser.endOfInput();
+    assertEquals(Arrays.asList("{null", "a", "{c", "[d", null), keys);
+  }
+
+  @Test
+  public void pushParserInvalid() {
+    assertAll(
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("42")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("{ \"foo\" 3 }")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("{ \"foo\": 3, }")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("{ 3: 3 }")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("[ 1, ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("[ 1 2 ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("[ 1 }")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("[ nul ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("[ nulll ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("[ 12a ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("[ \"foo ]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("[ 1, 2")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("[] []")),
+        () -> assertThrows(IllegalStateException.class, () -> asJavaPushed("]"))
+    );
+  }
+
+  @Test
+  public void parseStringsOfDifferentLengths() {
+    var longText = "[" + "1, ".repeat(5_000) + "2]";
+    assertAll(
+        () -> assertEquals(5_001, ((List<?>) asJava(longText)).size()),
+        () -> assertEquals(List.of(3), asJava("[3]")),
+        () -> assertThrows(IllegalStateException.class, () -> asJava("[3")),
+        () -> assertEquals(List.of(4), asJava("[4]"))
+    );
+  }
+
+  @Test
+  public void parseStringReentrant() {
+    var inner = new ArrayList<Object>();
+    var visitor = new JSONVisitor() {
+      @Override
+      public void value(String key, Object value) {
+        inner.add(asJava((String) value));
+      }
+      @Override
+      public void startObject(String key) {}
+      @Override
+      public void endObject(String key) {}
+      @Override
+      public void startArray(String key) {}
+      @Override
+      public void endArray(String key) {}
+    };
+    ToyJSONParser.parse("""
+        ["[1, 2]", "{\\"a\\": [3]}"]
+        """, visitor);
+    assertEquals(List.of(List.of(1, 2), Map.of("a", List.of(3))), inner);
+  }
+
+  @Test
+  public void parsePrimitiveValues() {
+    var calls = new ArrayList<String>();
+    var visitor = new JSONVisitor() {
+      @Override
+      public void value(String key, Object value) {
+        calls.add("value " + key + " " + value);
+      }
+      @Override
+      public void valueInt(String key, int value) {
+        calls.add("int " + key + " " + value);
+      }
+      @Override
+      public void valueLong(String key, long value) {
+        calls.add("long " + key + " " + value);
+      }
+      @Override
+      public void valueDouble(String key, double value) {
+        calls.add("double " + key + " " + value);
+      }
+      @Override
+      public void valueBoolean(String key, boolean value) {
+        calls.add("boolean " + key + " " + value);
+      }
+      @Override
+      public void startObject(String key) {}
+      @Override
+      public void endObject(String key) {}
+      @Override
+      public void startArray(String key) {}
+      @Override
+      public void endArray(String key) {}
+    };
+    ToyJSONParser.parse("""
+        { "a": 42, "b": 12345678901, "c": 1.5, "d": true, "e": "foo", "f": null }
+        """, visitor);
+    assertEquals(List.of(
+        "int a 42", "long b 12345678901", "double c 1.5", "boolean d true", "value e foo", "value f null"),
+        calls);
+  }
+
+  @Test
+  public void parsePrimitiveValuesBoxedByDefault() {
+    assertEquals(
+        Map.of("a", 42, "b", 12345678901L, "c", 1.5, "d", false),
+        asJava("""
+            { "a": 42, "b": 12345678901, "c": 1.5, "d": false }
+            """));
+  }
+
+  @Test
+  public void keyPlanKeysAreTheInstancesOfThePlan() throws IOException {
+    var plan = new KeyPlan(List.of(new String("a"), new String("b"), new String("\u00e9t\u00e9")));
+    var text = """
+        { "a": 1, "b": { "b": 2, "a": 3 }, "\u00e9t\u00e9": 4, "c": 5, "\\u0061": 6 }
+        """;
+    class PlanVisitor implements JSONVisitor {
+      private final ArrayList<String> keys = new ArrayList<>();
+
+      @Override
+      public KeyPlan keyPlan() {
+        return plan;
+      }
+      @Override
+      public void value(String key, Object value) {
+        keys.add(key);
+      }
+      @Override
+      public void startObject(String key) {}
+      @Override
+      public void endObject(String key) {
+        keys.add(key);
+      }
+      @Override
+      public void startArray(String key) {}
+      @Override
+      public void endArray(String key) {}
+    }
+    var fromString = new PlanVisitor();
+    ToyJSONParser.parse(text, fromString);
+    var fromBytes = new PlanVisitor();
+    ToyJSONParser.parse(text.getBytes(StandardCharsets.UTF_8), fromBytes);
+    var fromReader = new PlanVisitor();
+    ToyJSONParser.parse(oneCharAtATime(text), fromReader);
+    for (var visitor : List.of(fromString, fromBytes, fromReader)) {
+      var keys = visitor.keys;
+      assertAll(
+          () -> assertEquals(Arrays.asList("a", "b", "a", "b", "\u00e9t\u00e9", "c", "a", null), keys),
+          () -> assertSame(plan.key(0), keys.get(0)),
+          () -> assertSame(plan.key(1), keys.get(1)),
+          () -> assertSame(plan.key(0), keys.get(2)),
+          () -> assertSame(plan.key(1), keys.get(3)),
+          () -> assertSame(plan.key(2), keys.get(4)),
+          // an escaped key is not matched by the plan
+          () -> assertNotSame(plan.key(0), keys.get(6))
+      );
+    }
+  }
+
+  @Test
+  public void skipKey() {
+    var keys = new ArrayList<String>();
+    var visitor = new JSONVisitor() {
+      @Override
+      public boolean skipKey(String key) {
+        return key.startsWith("skip");
+      }
+      @Override
+      public void value(String key, Object value) {
+        keys.add(key);
+      }
+      @Override
+      public void startObject(String key) {
+        keys.add("{" + key);
+      }
+      @Override
+      public void endObject(String key) {}
+      @Override
+      public void startArray(String key) {
+        keys.add("[" + key);
+      }
+      @Override
+      public void endArray(String key) {}
+    };
+    ToyJSONParser.parse("""
+        { "a": 1, "skip1": { "b": [ "]", "\\"" ] }, "c": { "skip2": 3, "d": [ 4 ] }, "skip3": "e" }
+        """, visitor);
+    assertEquals(Arrays.asList("{null", "a", "{c", "[d", null), keys);
+  }
+}